@@ -1,31 +1,30 @@
 package org.tartarus.snowball;
 
-import java.lang.reflect.Method;
-
 public class Among {
-    public Among (String s, int substring_i, int result,
-		  String methodname, SnowballProgram methodobject) {
+    /**
+     * Routine to call when the substring matches. It is invoked on the
+     * program being run, so generated stemmers call their own private
+     * routines directly instead of through reflection.
+     */
+    public interface Routine {
+        boolean call(SnowballProgram program);
+    }
+
+    public Among (String s, int substring_i, int result) {
+        this(s, substring_i, result, null);
+    }
+
+    public Among (String s, int substring_i, int result, Routine routine) {
         this.s_size = s.length();
         this.s = s.toCharArray();
         this.substring_i = substring_i;
 	this.result = result;
-	this.methodobject = methodobject;
-	if (methodname.length() == 0) {
-	    this.method = null;
-	} else {
-	    try {
-		this.method = methodobject.getClass().
-		getDeclaredMethod(methodname, new Class[0]);
-	    } catch (NoSuchMethodException e) {
-		throw new RuntimeException(e);
-	    }
-	}
+	this.routine = routine;
     }
 
     public final int s_size; /* search string */
     public final char[] s; /* search string */
     public final int substring_i; /* index to longest matching substring */
     public final int result; /* result of the lookup */
-    public final Method method; /* method to use if substring matches */
-    public final SnowballProgram methodobject; /* object to invoke method on */
+    public final Routine routine; /* routine to use if substring matches */
 };
@@ -0,0 +1,263 @@
+package br.edu.pucminas.riw;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implementao do modelo probabilstico Okapi BM25.
+ *
+ * O IDF de cada termo e o peso de cada posting, que j inclui a saturao da
+ * frequncia e a normalizao pelo tamanho do documento, so calculados uma
+ * nica vez, na criao do modelo, a partir das estatsticas do ndice; uma
+ * consulta percorre apenas os postings dos seus termos. A
+ * pontuao no  normalizada como o cosseno do modelo vetorial; por isso, a
+ * relevncia mnima usada com este modelo  a do {@link RankingModel#BM25},
+ * na escala das pontuaes do BM25.
+ *
+ * O IDF e o tamanho mdio dos documentos vm das estatsticas da coleo, que,
+ * em um ndice com vrios segmentos, so as de todos eles.
+ */
+public class BM25Model implements RankedSearchModel {
+	public static final double DEFAULT_K1 = 1.2;
+	public static final double DEFAULT_B = 0.75;
+
+	private InvertedIndex invertedIndex;
+
+	// IDF de cada termo
+	private double[] inverseDocumentFrequencies;
+
+	// tf * (k1 + 1) / (tf + k1 * (1 - b + b * |d| / tamanho mdio)) de cada
+	// termo, na mesma ordem dos postings do termo
+	private double[][] weightsPostings;
+
+	private QueryBatchScorer batchScorer;
+
+	private ThreadLocal<ScoreAccumulators> accumulators = new ThreadLocal<ScoreAccumulators>() {
+		@Override
+		protected ScoreAccumulators initialValue() {
+			return new ScoreAccumulators(invertedIndex.getDocumentsTotal());
+		}
+	};
+
+	private ThreadLocal<TopKCollector> collectors = new ThreadLocal<TopKCollector>() {
+		@Override
+		protected TopKCollector initialValue() {
+			return new TopKCollector();
+		}
+	};
+
+	public BM25Model(InvertedIndex invertedIndex) {
+		this(invertedIndex, invertedIndex);
+	}
+
+	/**
+	 * Cria o modelo sobre um segmento de um ndice, com os pesos calculados a
+	 * partir das estatsticas de toda a coleo
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido do segmento
+	 * @param statistics
+	 *            as estatsticas da coleo
+	 */
+	public BM25Model(InvertedIndex invertedIndex,
+			CollectionStatistics statistics) {
+		this(invertedIndex, statistics, DEFAULT_K1, DEFAULT_B);
+	}
+
+	/**
+	 * Cria o modelo com os parmetros desejados
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param k1
+	 *            saturao da frequncia do termo no documento
+	 * @param b
+	 *            peso da normalizao pelo tamanho do documento, entre 0 e 1
+	 */
+	public BM25Model(InvertedIndex invertedIndex, double k1, double b) {
+		this(invertedIndex, invertedIndex, k1, b);
+	}
+
+	/**
+	 * Cria o modelo sobre um segmento de um ndice, com os parmetros
+	 * desejados
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido do segmento
+	 * @param statistics
+	 *            as estatsticas da coleo
+	 * @param k1
+	 *            saturao da frequncia do termo no documento
+	 * @param b
+	 *            peso da normalizao pelo tamanho do documento, entre 0 e 1
+	 */
+	public BM25Model(InvertedIndex invertedIndex,
+			CollectionStatistics statistics, double k1, double b) {
+		this.invertedIndex = invertedIndex;
+
+		int documentsTotal = invertedIndex.getDocumentsTotal();
+		int collectionDocumentsTotal = statistics.getDocumentsTotal();
+		int termsTotal = invertedIndex.getTermsTotal();
+		inverseDocumentFrequencies = new double[termsTotal];
+		for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+			double documentFrequency = statistics
+					.getDocumentFrequency(invertedIndex.getTerm(termIndex));
+			inverseDocumentFrequencies[termIndex] = Math.log(1
+					+ (collectionDocumentsTotal - documentFrequency + 0.5)
+					/ (documentFrequency + 0.5));
+		}
+
+		double averageDocumentLength = statistics.getAverageDocumentLength();
+		double[] lengthNormalizations = new double[documentsTotal];
+		for (int documentIndex = 0; documentIndex < documentsTotal; documentIndex++) {
+			double relativeLength = averageDocumentLength > 0 ? invertedIndex
+					.getDocumentLength(documentIndex) / averageDocumentLength
+					: 1;
+			lengthNormalizations[documentIndex] = k1
+					* (1 - b + b * relativeLength);
+		}
+
+		weightsPostings = new double[termsTotal][];
+		for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+			IntBuffer documents = invertedIndex.getDocuments(termIndex);
+			IntBuffer frequencies = invertedIndex.getFrequencies(termIndex);
+			double[] weights = new double[documents.limit()];
+			for (int postingIndex = 0; postingIndex < weights.length; postingIndex++) {
+				double frequency = frequencies.get(postingIndex);
+				weights[postingIndex] = frequency
+						* (k1 + 1)
+						/ (frequency + lengthNormalizations[documents
+								.get(postingIndex)]);
+			}
+			weightsPostings[termIndex] = weights;
+		}
+
+		batchScorer = new QueryBatchScorer(invertedIndex, weightsPostings,
+				null);
+	}
+
+	@Override
+	public List<Integer> processQuery(List<String> queryTerms) {
+		ScoreAccumulators accumulators = score(queryTerms);
+
+		List<Integer> resultsList = new ArrayList<Integer>();
+		for (int position = 0; position < accumulators.size(); position++) {
+			if (accumulators.getScore(position) > 0) {
+				resultsList.add(accumulators.getDocument(position));
+			}
+		}
+
+		return resultsList;
+	}
+
+	@Override
+	public List<List<Integer>> processQueries(List<List<String>> queriesTerms) {
+		return batchScorer.processQueries(prepareQueries(queriesTerms));
+	}
+
+	@Override
+	public List<RelevanceSearchReturn> processQueriesWithRelevance(
+			List<List<String>> queriesTerms, int treshold,
+			double minimalRelevance) {
+		return batchScorer.processQueriesWithRelevance(
+				prepareQueries(queriesTerms), treshold, minimalRelevance);
+	}
+
+	@Override
+	public RelevanceSearchReturn processQueryWithRelevance(
+			List<String> queryTerms, int treshold, double minimalRelevance) {
+		ScoreAccumulators accumulators = score(queryTerms);
+
+		TopKCollector collector = collectors.get();
+		collector.reset(treshold, minimalRelevance);
+		for (int position = 0; position < accumulators.size(); position++) {
+			collector.collect(accumulators.getDocument(position),
+					accumulators.getScore(position));
+		}
+		return collector.getResults();
+	}
+
+	@Override
+	public void collect(List<String> queryTerms, TopKCollector collector) {
+		ScoreAccumulators accumulators = score(queryTerms);
+		for (int position = 0; position < accumulators.size(); position++) {
+			collector.collect(accumulators.getDocument(position),
+					accumulators.getScore(position));
+		}
+	}
+
+	/**
+	 * Calcula a pontuao BM25 dos documentos que contm termos da consulta.
+	 * Um termo repetido na consulta tem a sua contribuio multiplicada pela
+	 * quantidade de repeties.
+	 *
+	 * @param queryTerms
+	 *            termos da consulta
+	 * @return os acumuladores, em ordem crescente de documento
+	 */
+	private ScoreAccumulators score(List<String> queryTerms) {
+		QueryVector query = prepareQuery(queryTerms);
+
+		ScoreAccumulators accumulators = this.accumulators.get();
+		accumulators.clear();
+		for (int position = 0; position < query.size(); position++) {
+			double queryWeight = query.getWeight(position);
+			IntBuffer documents = invertedIndex.getDocuments(query
+					.getTermIndex(position));
+			double[] weights = weightsPostings[query.getTermIndex(position)];
+
+			for (int postingIndex = 0; postingIndex < weights.length; postingIndex++) {
+				accumulators.add(documents.get(postingIndex),
+						weights[postingIndex] * queryWeight);
+			}
+		}
+		accumulators.sort();
+
+		return accumulators;
+	}
+
+	private QueryVector[] prepareQueries(List<List<String>> queriesTerms) {
+		QueryVector[] queries = new QueryVector[queriesTerms.size()];
+		for (int query = 0; query < queries.length; query++) {
+			queries[query] = prepareQuery(queriesTerms.get(query));
+		}
+		return queries;
+	}
+
+	/**
+	 * Prepara a consulta: o peso de cada termo  o seu IDF, multiplicado pela
+	 * quantidade de repeties do termo na consulta
+	 *
+	 * @param queryTerms
+	 *            termos da consulta
+	 * @return a consulta, em ordem crescente de termo
+	 */
+	private QueryVector prepareQuery(List<String> queryTerms) {
+		int[] termIndexes = new int[queryTerms.size()];
+		int termsSize = 0;
+		for (String term : queryTerms) {
+			int termIndex = invertedIndex.getTermIndex(term);
+			if (termIndex >= 0) {
+				termIndexes[termsSize++] = termIndex;
+			}
+		}
+		Arrays.sort(termIndexes, 0, termsSize);
+
+		int[] queryTermIndexes = new int[termsSize];
+		double[] queryWeights = new double[termsSize];
+		int querySize = 0;
+		for (int start = 0, end = 0; start < termsSize; start = end) {
+			while (end < termsSize && termIndexes[end] == termIndexes[start]) {
+				end++;
+			}
+			queryTermIndexes[querySize] = termIndexes[start];
+			queryWeights[querySize++] = (end - start)
+					* inverseDocumentFrequencies[termIndexes[start]];
+		}
+
+		return new QueryVector(Arrays.copyOf(queryTermIndexes, querySize),
+				Arrays.copyOf(queryWeights, querySize));
+	}
+}
@@ -1,73 +1,550 @@
 package br.edu.pucminas.riw;
 
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 
 /**
- * Implementao do modelo booleano.
+ * Implementao do modelo booleano, com consultas compostas por AND, OR e NOT
+ * (ver {@link BooleanQueryParser}) avaliadas sobre os postings ordenados.
+ * Consultas por frase e por proximidade so avaliadas pela interseco dos
+ * documentos dos seus termos, seguida da interseco das posies dos termos
+ * em cada documento candidato.
+ *
+ * Termos frequentes tm o seu conjunto de documentos guardado tambm como um
+ * bitset de long[], no qual 64 documentos so testados por operao. Um termo
+ *  considerado frequente quando o bitset no ocupa mais memria que os seus
+ * postings, ou seja, quando ocorre em pelo menos 1/32 dos documentos; os
+ * demais termos usam apenas os postings.
  */
 public class BooleanModel implements SearchModel {
-	private byte[][] booleanModelMatrix;
-	private Map<String, Integer> termsIndexMap;
+	private static final int DENSITY_RATIO = 32;
+	private static final int[] NO_DOCUMENTS = new int[0];
 
-	public BooleanModel(int[][] termDocumentMatrix,
-			Map<String, Integer> termsIndexMap) {
-		createBooleanModelRepresentation(termDocumentMatrix);
-		this.termsIndexMap = termsIndexMap;
+	private InvertedIndex invertedIndex;
+	private int wordsTotal;
+
+	// Bitset de documentos de cada termo frequente, null para os demais
+	private long[][] termsBitSets;
+
+	public BooleanModel(InvertedIndex invertedIndex) {
+		this.invertedIndex = invertedIndex;
+
+		int documentsTotal = invertedIndex.getDocumentsTotal();
+		wordsTotal = (documentsTotal + 63) >>> 6;
+		termsBitSets = new long[invertedIndex.getTermsTotal()][];
+		for (int termIndex = 0; termIndex < termsBitSets.length; termIndex++) {
+			if ((long) invertedIndex.getDocumentFrequency(termIndex)
+					* DENSITY_RATIO < documentsTotal) {
+				continue;
+			}
+			long[] bitSet = new long[wordsTotal];
+			IntBuffer documents = invertedIndex.getDocuments(termIndex);
+			for (int postingIndex = 0; postingIndex < documents.limit(); postingIndex++) {
+				int documentIndex = documents.get(postingIndex);
+				bitSet[documentIndex >>> 6] |= 1L << documentIndex;
+			}
+			termsBitSets[termIndex] = bitSet;
+		}
 	}
 
 	/**
-	 * Cria a matriz de documentos x termos para a modelagem Booleana
+	 * Processa uma consulta sem operadores, equivalente ao AND dos termos
 	 */
-	private void createBooleanModelRepresentation(int[][] termDocumentMatrix) {
-		int documentsTotal = termDocumentMatrix[0].length;
-		int termsTotal = termDocumentMatrix.length;
-		booleanModelMatrix = new byte[documentsTotal][termsTotal];
-		for (int documentIndex = 0; documentIndex < documentsTotal; documentIndex++) {
-			for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
-				booleanModelMatrix[documentIndex][termIndex] = (byte) (termDocumentMatrix[termIndex][documentIndex] > 0 ? 1
-						: 0);
+	@Override
+	public List<Integer> processQuery(List<String> queryTerms) {
+		List<BooleanQuery> operands = new ArrayList<BooleanQuery>(
+				queryTerms.size());
+		for (String term : queryTerms) {
+			operands.add(new BooleanQuery(term));
+		}
+		return processQuery(new BooleanQuery(BooleanQuery.Operator.AND,
+				operands));
+	}
+
+	/**
+	 * Processa uma consulta booleana e retorna todos os documentos resultados
+	 *
+	 * @param query
+	 *            a consulta, j analisada
+	 * @return lista de ndices dos documentos, em ordem crescente
+	 */
+	public List<Integer> processQuery(BooleanQuery query) {
+		int[] documents = evaluate(query);
+		List<Integer> resultsList = new ArrayList<Integer>(documents.length);
+		for (int documentIndex : documents) {
+			resultsList.add(documentIndex);
+		}
+		return resultsList;
+	}
+
+	/**
+	 * Avalia a consulta sobre os postings
+	 *
+	 * @param query
+	 *            a consulta
+	 * @return os documentos resultados, em ordem crescente; o array pode ser
+	 *         o dos postings de um termo e no deve ser alterado
+	 */
+	private int[] evaluate(BooleanQuery query) {
+		switch (query.getOperator()) {
+		case TERM:
+			int termIndex = invertedIndex.getTermIndex(query.getTerm());
+			return termIndex < 0 ? NO_DOCUMENTS : Postings
+					.toArray(invertedIndex.getDocuments(termIndex));
+		case OR:
+			return evaluateDisjunction(query.getOperands());
+		case NOT:
+			return subtract(allDocuments(), query.getOperands().get(0));
+		case PHRASE:
+		case NEAR:
+			return evaluatePositional(query);
+		default:
+			return evaluateConjunction(query.getOperands());
+		}
+	}
+
+	/**
+	 * Avalia uma consulta por frase ou por proximidade: os documentos que tm
+	 * todos os termos so filtrados pelas posies dos termos
+	 *
+	 * @param query
+	 *            a consulta
+	 * @return os documentos resultados, em ordem crescente
+	 */
+	private int[] evaluatePositional(BooleanQuery query) {
+		List<BooleanQuery> operands = query.getOperands();
+		int termsTotal = operands.size();
+		int[] termIndexes = new int[termsTotal];
+		for (int operandIndex = 0; operandIndex < termsTotal; operandIndex++) {
+			termIndexes[operandIndex] = invertedIndex.getTermIndex(operands
+					.get(operandIndex).getTerm());
+			if (termIndexes[operandIndex] < 0) {
+				return NO_DOCUMENTS;
 			}
 		}
+		IntBuffer[] documents = new IntBuffer[termsTotal];
+		IntBuffer[] frequencies = new IntBuffer[termsTotal];
+		for (int operandIndex = 0; operandIndex < termsTotal; operandIndex++) {
+			documents[operandIndex] = invertedIndex
+					.getDocuments(termIndexes[operandIndex]);
+			frequencies[operandIndex] = invertedIndex
+					.getFrequencies(termIndexes[operandIndex]);
+		}
+
+		int[] candidates = evaluateConjunction(operands);
+		int[] results = new int[candidates.length];
+		int resultsSize = 0;
+		int[] postingIndexes = new int[termsTotal];
+		int[][] positions = new int[termsTotal][16];
+		int[] positionsTotals = new int[termsTotal];
+		for (int documentIndex : candidates) {
+			for (int operandIndex = 0; operandIndex < termsTotal; operandIndex++) {
+				int termIndex = termIndexes[operandIndex];
+				int postingIndex = Postings.advance(documents[operandIndex],
+						postingIndexes[operandIndex], documentIndex);
+				postingIndexes[operandIndex] = postingIndex;
+
+				int frequency = frequencies[operandIndex].get(postingIndex);
+				if (frequency > positions[operandIndex].length) {
+					positions[operandIndex] = new int[Math.max(frequency,
+							positions[operandIndex].length * 2)];
+				}
+				positionsTotals[operandIndex] = invertedIndex.getPositions(
+						termIndex, postingIndex, positions[operandIndex]);
+			}
+
+			boolean matches = query.getOperator() == BooleanQuery.Operator.PHRASE ? matchesPhrase(
+					positions, positionsTotals, query.getPositions())
+					: matchesProximity(positions, positionsTotals,
+							query.getDistance());
+			if (matches) {
+				results[resultsSize++] = documentIndex;
+			}
+		}
+		return Arrays.copyOf(results, resultsSize);
 	}
 
-	@Override
-	public List<Integer> processQuery(List<String> queryTerms) {
-		byte[] query = prepareQuery(queryTerms);
+	/**
+	 * Verifica se os termos ocorrem com as distncias da frase. Para cada
+	 * ocorrncia do primeiro termo, a posio esperada de cada outro termo 
+	 * procurada nas suas posies, que s avanam.
+	 *
+	 * @param positions
+	 *            posies de cada termo no documento, em ordem crescente
+	 * @param positionsTotals
+	 *            quantidade de posies de cada termo
+	 * @param phrasePositions
+	 *            posio de cada termo na frase, relativa ao primeiro termo
+	 * @return true se a frase ocorre no documento
+	 */
+	private static boolean matchesPhrase(int[][] positions,
+			int[] positionsTotals, int[] phrasePositions) {
+		int[] cursors = new int[positions.length];
+		for (int firstIndex = 0; firstIndex < positionsTotals[0]; firstIndex++) {
+			int start = positions[0][firstIndex];
+			boolean matches = true;
+			for (int termIndex = 1; termIndex < positions.length && matches; termIndex++) {
+				int target = start + phrasePositions[termIndex];
+				int cursor = cursors[termIndex];
+				while (cursor < positionsTotals[termIndex]
+						&& positions[termIndex][cursor] < target) {
+					cursor++;
+				}
+				if (cursor == positionsTotals[termIndex]) {
+					return false;
+				}
+				cursors[termIndex] = cursor;
+				matches = positions[termIndex][cursor] == target;
+			}
+			if (matches) {
+				return true;
+			}
+		}
+		return false;
+	}
 
-		List<Integer> resultsList = new ArrayList<Integer>();
+	/**
+	 * Verifica se h uma janela com uma ocorrncia de cada termo e com no
+	 * mximo a distncia entre a primeira e a ltima. A janela percorre as
+	 * posies dos termos como em uma intercalao, avanando sempre o termo
+	 * de menor posio.
+	 *
+	 * @param positions
+	 *            posies de cada termo no documento, em ordem crescente
+	 * @param positionsTotals
+	 *            quantidade de posies de cada termo
+	 * @param distance
+	 *            distncia mxima, em tokens
+	 * @return true se os termos ocorrem prximos no documento
+	 */
+	private static boolean matchesProximity(int[][] positions,
+			int[] positionsTotals, int distance) {
+		int[] cursors = new int[positions.length];
+		while (true) {
+			int minimumTerm = 0;
+			int maximumPosition = Integer.MIN_VALUE;
+			for (int termIndex = 0; termIndex < positions.length; termIndex++) {
+				int position = positions[termIndex][cursors[termIndex]];
+				if (position < positions[minimumTerm][cursors[minimumTerm]]) {
+					minimumTerm = termIndex;
+				}
+				maximumPosition = Math.max(maximumPosition, position);
+			}
+			if (maximumPosition
+					- positions[minimumTerm][cursors[minimumTerm]] <= distance) {
+				return true;
+			}
+			if (++cursors[minimumTerm] == positionsTotals[minimumTerm]) {
+				return false;
+			}
+		}
+	}
 
-		for (int rowIndex = 0; rowIndex < booleanModelMatrix.length; rowIndex++) {
-			byte[] queryComparison = Arrays.copyOf(query, query.length);
+	/**
+	 * Avalia um AND. Os operandos positivos so intersectados do menor para o
+	 * maior custo estimado, e os operandos de NOT so subtrados em seguida;
+	 * a avaliao termina assim que o resultado fica vazio. Se todos os
+	 * operandos so termos frequentes, a interseco  feita palavra a palavra
+	 * nos bitsets.
+	 *
+	 * @param operands
+	 *            operandos do AND
+	 * @return os documentos resultados, em ordem crescente
+	 */
+	private int[] evaluateConjunction(List<BooleanQuery> operands) {
+		final List<BooleanQuery> positives = new ArrayList<BooleanQuery>();
+		List<BooleanQuery> negatives = new ArrayList<BooleanQuery>();
+		boolean allDense = true;
+		for (BooleanQuery operand : operands) {
+			if (operand.getOperator() == BooleanQuery.Operator.NOT) {
+				operand = operand.getOperands().get(0);
+				negatives.add(operand);
+			} else {
+				positives.add(operand);
+			}
+			allDense &= getBitSet(operand) != null;
+		}
 
-			for (int colIndex = 0; colIndex < query.length; colIndex++) {
-				queryComparison[colIndex] = (byte) (queryComparison[colIndex] & booleanModelMatrix[rowIndex][colIndex]);
+		final long[] costs = new long[positives.size()];
+		Integer[] order = new Integer[positives.size()];
+		for (int operandIndex = 0; operandIndex < order.length; operandIndex++) {
+			costs[operandIndex] = estimateCost(positives.get(operandIndex));
+			order[operandIndex] = operandIndex;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return costs[o1] < costs[o2] ? -1 : (costs[o1] == costs[o2] ? 0
+						: 1);
 			}
+		});
 
-			if (Arrays.equals(queryComparison, query)) {
-				resultsList.add(rowIndex);
+		if (allDense && positives.isEmpty() == false && operands.size() > 1) {
+			long[] results = getBitSet(positives.get(order[0])).clone();
+			for (int operandIndex = 1; operandIndex < order.length; operandIndex++) {
+				if (and(results, getBitSet(positives.get(order[operandIndex])),
+						false) == false) {
+					return NO_DOCUMENTS;
+				}
+			}
+			for (BooleanQuery negative : negatives) {
+				if (and(results, getBitSet(negative), true) == false) {
+					return NO_DOCUMENTS;
+				}
 			}
+			return toDocuments(results);
 		}
 
-		return resultsList;
+		int[] results = positives.isEmpty() ? allDocuments() : evaluate(positives
+				.get(order[0]));
+		for (int operandIndex = 1; operandIndex < order.length
+				&& results.length > 0; operandIndex++) {
+			results = intersect(results, positives.get(order[operandIndex]));
+		}
+		for (int operandIndex = 0; operandIndex < negatives.size()
+				&& results.length > 0; operandIndex++) {
+			results = subtract(results, negatives.get(operandIndex));
+		}
+		return results;
 	}
 
 	/**
-	 * Prepara a consulta com relao ao modelo atual
-	 * 
-	 * @param queryTerms
-	 *            termos da consulta
-	 * @return a consulta com relao ao modelo atual
+	 * Avalia um OR. Quando o resultado pode ser grande, a unio  feita em um
+	 * bitset, com os termos frequentes combinados palavra a palavra; seno, os
+	 * documentos so intercalados.
+	 *
+	 * @param operands
+	 *            operandos do OR
+	 * @return os documentos resultados, em ordem crescente
 	 */
-	private byte[] prepareQuery(List<String> queryTerms) {
-		byte[] query = new byte[booleanModelMatrix[0].length];
-		for (String term : queryTerms) {
-			int termIndex = termsIndexMap.get(term);
-			query[termIndex] = 1;
+	private int[] evaluateDisjunction(List<BooleanQuery> operands) {
+		List<int[]> documentsList = new ArrayList<int[]>(operands.size());
+		List<long[]> bitSetsList = new ArrayList<long[]>();
+		long documentsTotal = 0;
+		for (BooleanQuery operand : operands) {
+			long[] bitSet = getBitSet(operand);
+			if (bitSet != null) {
+				bitSetsList.add(bitSet);
+				continue;
+			}
+			int[] documents = evaluate(operand);
+			if (documents.length > 0) {
+				documentsList.add(documents);
+				documentsTotal += documents.length;
+			}
+		}
+
+		if (bitSetsList.isEmpty() && documentsList.size() <= 1) {
+			return documentsList.isEmpty() ? NO_DOCUMENTS : documentsList.get(0);
+		}
+
+		if (bitSetsList.isEmpty() && documentsTotal < wordsTotal) {
+			int[] results = new int[(int) documentsTotal];
+			int resultsSize = 0;
+			for (int[] documents : documentsList) {
+				System.arraycopy(documents, 0, results, resultsSize,
+						documents.length);
+				resultsSize += documents.length;
+			}
+			Arrays.sort(results);
+			int uniqueSize = 0;
+			for (int resultIndex = 0; resultIndex < resultsSize; resultIndex++) {
+				if (uniqueSize == 0 || results[uniqueSize - 1] != results[resultIndex]) {
+					results[uniqueSize++] = results[resultIndex];
+				}
+			}
+			return Arrays.copyOf(results, uniqueSize);
 		}
-		return query;
+
+		long[] results = new long[wordsTotal];
+		for (long[] bitSet : bitSetsList) {
+			for (int wordIndex = 0; wordIndex < wordsTotal; wordIndex++) {
+				results[wordIndex] |= bitSet[wordIndex];
+			}
+		}
+		for (int[] documents : documentsList) {
+			for (int documentIndex : documents) {
+				results[documentIndex >>> 6] |= 1L << documentIndex;
+			}
+		}
+		return toDocuments(results);
+	}
+
+	/**
+	 * Intersecta os documentos com os de uma subconsulta. Contra um termo
+	 * frequente, cada documento  testado no bitset; nos demais casos, cada
+	 * documento da lista menor  procurado na maior por busca galopante.
+	 *
+	 * @param documents
+	 *            documentos, em ordem crescente
+	 * @param operand
+	 *            a subconsulta
+	 * @return os documentos presentes tambm na subconsulta
+	 */
+	private int[] intersect(int[] documents, BooleanQuery operand) {
+		long[] bitSet = getBitSet(operand);
+		if (bitSet != null) {
+			return filter(documents, bitSet, false);
+		}
+
+		int[] other = evaluate(operand);
+		int[] smaller = documents.length <= other.length ? documents : other;
+		int[] larger = smaller == documents ? other : documents;
+		int[] results = new int[smaller.length];
+		int resultsSize = 0;
+		int position = 0;
+		for (int documentIndex : smaller) {
+			position = Postings.advance(larger, position, documentIndex);
+			if (position == larger.length) {
+				break;
+			}
+			if (larger[position] == documentIndex) {
+				results[resultsSize++] = documentIndex;
+			}
+		}
+		return Arrays.copyOf(results, resultsSize);
+	}
+
+	/**
+	 * Remove dos documentos os de uma subconsulta
+	 *
+	 * @param documents
+	 *            documentos, em ordem crescente
+	 * @param operand
+	 *            a subconsulta negada
+	 * @return os documentos ausentes da subconsulta
+	 */
+	private int[] subtract(int[] documents, BooleanQuery operand) {
+		long[] bitSet = getBitSet(operand);
+		if (bitSet != null) {
+			return filter(documents, bitSet, true);
+		}
+
+		int[] other = evaluate(operand);
+		int[] results = new int[documents.length];
+		int resultsSize = 0;
+		int position = 0;
+		for (int documentIndex : documents) {
+			position = Postings.advance(other, position, documentIndex);
+			if (position == other.length || other[position] != documentIndex) {
+				results[resultsSize++] = documentIndex;
+			}
+		}
+		return Arrays.copyOf(results, resultsSize);
+	}
+
+	private static int[] filter(int[] documents, long[] bitSet, boolean negated) {
+		int[] results = new int[documents.length];
+		int resultsSize = 0;
+		for (int documentIndex : documents) {
+			if (((bitSet[documentIndex >>> 6] & (1L << documentIndex)) != 0) != negated) {
+				results[resultsSize++] = documentIndex;
+			}
+		}
+		return Arrays.copyOf(results, resultsSize);
+	}
+
+	/**
+	 * AND palavra a palavra dos bitsets, guardado no primeiro
+	 *
+	 * @return false se o resultado ficou vazio
+	 */
+	private static boolean and(long[] results, long[] bitSet, boolean negated) {
+		long mask = negated ? -1L : 0;
+		long remaining = 0;
+		for (int wordIndex = 0; wordIndex < results.length; wordIndex++) {
+			results[wordIndex] &= bitSet[wordIndex] ^ mask;
+			remaining |= results[wordIndex];
+		}
+		return remaining != 0;
+	}
+
+	/**
+	 * Estima a quantidade de documentos do resultado da subconsulta, sem
+	 * avali-la
+	 *
+	 * @param query
+	 *            a subconsulta
+	 * @return limite superior da quantidade de documentos
+	 */
+	private long estimateCost(BooleanQuery query) {
+		long documentsTotal = invertedIndex.getDocumentsTotal();
+		switch (query.getOperator()) {
+		case TERM:
+			int termIndex = invertedIndex.getTermIndex(query.getTerm());
+			return termIndex < 0 ? 0 : invertedIndex
+					.getDocumentFrequency(termIndex);
+		case OR:
+			long cost = 0;
+			for (BooleanQuery operand : query.getOperands()) {
+				cost += estimateCost(operand);
+			}
+			return Math.min(cost, documentsTotal);
+		case NOT:
+			return documentsTotal;
+		default:
+			long conjunctionCost = documentsTotal;
+			for (BooleanQuery operand : query.getOperands()) {
+				if (operand.getOperator() != BooleanQuery.Operator.NOT) {
+					conjunctionCost = Math.min(conjunctionCost,
+							estimateCost(operand));
+				}
+			}
+			return conjunctionCost;
+		}
+	}
+
+	/**
+	 * Obtm o bitset da subconsulta, caso ela seja um termo frequente
+	 *
+	 * @param query
+	 *            a subconsulta
+	 * @return o bitset, ou null
+	 */
+	private long[] getBitSet(BooleanQuery query) {
+		if (query.getOperator() != BooleanQuery.Operator.TERM) {
+			return null;
+		}
+		int termIndex = invertedIndex.getTermIndex(query.getTerm());
+		return termIndex < 0 ? null : termsBitSets[termIndex];
+	}
+
+	private int[] allDocuments() {
+		int[] documents = new int[invertedIndex.getDocumentsTotal()];
+		for (int documentIndex = 0; documentIndex < documents.length; documentIndex++) {
+			documents[documentIndex] = documentIndex;
+		}
+		return documents;
+	}
+
+	/**
+	 * Obtm os documentos do bitset, em ordem crescente, visitando apenas os
+	 * bits ligados
+	 *
+	 * @param bitSet
+	 *            o bitset de documentos
+	 * @return os ndices dos documentos
+	 */
+	private static int[] toDocuments(long[] bitSet) {
+		int documentsTotal = 0;
+		for (long word : bitSet) {
+			documentsTotal += Long.bitCount(word);
+		}
+
+		int[] documents = new int[documentsTotal];
+		int documentsSize = 0;
+		for (int wordIndex = 0; wordIndex < bitSet.length; wordIndex++) {
+			long word = bitSet[wordIndex];
+			while (word != 0) {
+				documents[documentsSize++] = (wordIndex << 6)
+						+ Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return documents;
 	}
 
 	@Override
@@ -75,4 +552,32 @@ public class BooleanModel implements SearchModel {
 			List<String> queryTerms, int treshold, double minimalRelevance) {
 		return null;
 	}
+
+	/**
+	 * Processa as consultas uma a uma: as interseces de cada consulta
+	 * terminam assim que o resultado fica vazio, e no h uma varredura a ser
+	 * compartilhada
+	 */
+	@Override
+	public List<List<Integer>> processQueries(List<List<String>> queriesTerms) {
+		List<List<Integer>> resultsLists = new ArrayList<List<Integer>>(
+				queriesTerms.size());
+		for (List<String> queryTerms : queriesTerms) {
+			resultsLists.add(processQuery(queryTerms));
+		}
+		return resultsLists;
+	}
+
+	@Override
+	public List<RelevanceSearchReturn> processQueriesWithRelevance(
+			List<List<String>> queriesTerms, int treshold,
+			double minimalRelevance) {
+		List<RelevanceSearchReturn> returnsList = new ArrayList<RelevanceSearchReturn>(
+				queriesTerms.size());
+		for (List<String> queryTerms : queriesTerms) {
+			returnsList.add(processQueryWithRelevance(queryTerms, treshold,
+					minimalRelevance));
+		}
+		return returnsList;
+	}
 }
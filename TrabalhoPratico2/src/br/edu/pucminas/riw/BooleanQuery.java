@@ -0,0 +1,180 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Consulta booleana j analisada: um termo, a combinao de subconsultas
+ * pelos operadores AND, OR e NOT, ou uma consulta posicional sobre termos, por
+ * frase (PHRASE) ou por proximidade (NEAR). Um AND sem operandos corresponde a
+ * todos os documentos e um OR sem operandos, a nenhum.
+ */
+public class BooleanQuery {
+
+	/**
+	 * Operador do n da consulta
+	 */
+	public enum Operator {
+		TERM, AND, OR, NOT, PHRASE, NEAR
+	}
+
+	private Operator operator;
+	private String term;
+	private List<BooleanQuery> operands;
+	private int[] positions;
+	private int distance;
+
+	/**
+	 * Cria uma consulta por um nico termo
+	 *
+	 * @param term
+	 *            o termo, j pr-processado e reduzido ao radical
+	 */
+	public BooleanQuery(String term) {
+		this.operator = Operator.TERM;
+		this.term = term;
+		this.operands = Collections.emptyList();
+	}
+
+	/**
+	 * Cria uma consulta que combina subconsultas
+	 *
+	 * @param operator
+	 *            AND, OR ou NOT; o NOT recebe um nico operando
+	 * @param operands
+	 *            as subconsultas
+	 */
+	public BooleanQuery(Operator operator, List<BooleanQuery> operands) {
+		if (operator == Operator.TERM
+				|| (operator == Operator.NOT && operands.size() != 1)) {
+			throw new IllegalArgumentException("Operandos invlidos para "
+					+ operator);
+		}
+		this.operator = operator;
+		this.operands = operands;
+	}
+
+	/**
+	 * Cria uma consulta por frase: os termos devem ocorrer no documento com as
+	 * mesmas distncias entre si que na consulta
+	 *
+	 * @param terms
+	 *            os termos da frase, j analisados
+	 * @param positions
+	 *            posio de cada termo na frase, contando as stopwords
+	 */
+	public BooleanQuery(List<String> terms, int[] positions) {
+		this.operator = Operator.PHRASE;
+		this.operands = toOperands(operator, terms);
+		this.positions = positions;
+	}
+
+	/**
+	 * Cria uma consulta por proximidade: todos os termos devem ocorrer no
+	 * documento, em qualquer ordem, dentro de uma janela de tokens
+	 *
+	 * @param terms
+	 *            os termos, j analisados
+	 * @param distance
+	 *            distncia mxima, em tokens, entre a primeira e a ltima
+	 *            ocorrncia da janela
+	 */
+	public BooleanQuery(List<String> terms, int distance) {
+		this.operator = Operator.NEAR;
+		this.operands = toOperands(operator, terms);
+		this.distance = distance;
+	}
+
+	private static List<BooleanQuery> toOperands(Operator operator,
+			List<String> terms) {
+		if (terms.size() < 2) {
+			throw new IllegalArgumentException("Operandos invlidos para "
+					+ operator);
+		}
+		List<BooleanQuery> operands = new ArrayList<BooleanQuery>(terms.size());
+		for (String term : terms) {
+			operands.add(new BooleanQuery(term));
+		}
+		return operands;
+	}
+
+	public Operator getOperator() {
+		return operator;
+	}
+
+	public String getTerm() {
+		return term;
+	}
+
+	public List<BooleanQuery> getOperands() {
+		return operands;
+	}
+
+	/**
+	 * Obtm a posio de cada termo de uma consulta por frase
+	 *
+	 * @return as posies, na ordem dos operandos
+	 */
+	public int[] getPositions() {
+		return positions;
+	}
+
+	/**
+	 * Obtm a distncia mxima de uma consulta por proximidade
+	 *
+	 * @return a distncia, em tokens
+	 */
+	public int getDistance() {
+		return distance;
+	}
+
+	/**
+	 * Descreve a consulta; as posies de uma frase ocupadas por stopwords
+	 * aparecem como "?", de modo que a descrio identifica a consulta e
+	 * serve de chave no {@link CachingBooleanModel}
+	 */
+	@Override
+	public String toString() {
+		if (operator == Operator.TERM) {
+			return term;
+		}
+		if (operator == Operator.NOT) {
+			return "NOT " + operands.get(0);
+		}
+		if (operator == Operator.PHRASE || operator == Operator.NEAR) {
+			StringBuilder description = new StringBuilder("\"");
+			for (int operandIndex = 0; operandIndex < operands.size(); operandIndex++) {
+				if (operandIndex > 0) {
+					description.append(' ');
+					for (int gap = getGap(operandIndex); gap > 0; gap--) {
+						description.append("? ");
+					}
+				}
+				description.append(operands.get(operandIndex));
+			}
+			description.append('"');
+			if (operator == Operator.NEAR) {
+				description.append('~').append(distance);
+			}
+			return description.toString();
+		}
+
+		StringBuilder description = new StringBuilder("(");
+		for (int operandIndex = 0; operandIndex < operands.size(); operandIndex++) {
+			if (operandIndex > 0) {
+				description.append(' ').append(operator).append(' ');
+			}
+			description.append(operands.get(operandIndex));
+		}
+		return description.append(')').toString();
+	}
+
+	/**
+	 * Obtm a quantidade de posies vazias antes de um termo de uma frase
+	 */
+	private int getGap(int operandIndex) {
+		return positions == null ? 0 : positions[operandIndex]
+				- positions[operandIndex - 1] - 1;
+	}
+}
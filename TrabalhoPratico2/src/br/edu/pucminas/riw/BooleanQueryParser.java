@@ -0,0 +1,338 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Analisador sinttico da linguagem de consultas booleanas. A gramtica :
+ *
+ * <pre>
+ * consulta  := conjuno ("OR" conjuno)*
+ * conjuno := unrio (["AND"] unrio)*
+ * unrio    := "NOT" unrio | "(" consulta ")" | frase | texto
+ * frase     := '"' texto '"' ["~" distncia]
+ * </pre>
+ *
+ * Os operadores so reconhecidos apenas em maisculas, e operandos lado a lado
+ * so combinados por AND, de modo que uma consulta sem operadores continua
+ * sendo a conjuno dos seus termos. Cada trecho de texto passa pelo mesmo
+ * pr-processamento, remoo de stopwords e stemming dos documentos; trechos
+ * dos quais no resta nenhum termo so descartados da expresso.
+ *
+ * Uma frase entre aspas s  satisfeita pelos documentos em que os seus termos
+ * ocorrem com as mesmas distncias entre si, contando as stopwords; seguida de
+ * "~" e de uma distncia,  satisfeita quando todos os termos ocorrem, em
+ * qualquer ordem, dentro de uma janela de no mximo essa distncia em tokens.
+ */
+public class BooleanQueryParser {
+	private static final String OPERATOR_AND = "AND";
+	private static final String OPERATOR_OR = "OR";
+	private static final String OPERATOR_NOT = "NOT";
+	private static final String LEFT_PARENTHESIS = "(";
+	private static final String RIGHT_PARENTHESIS = ")";
+	private static final char QUOTE = '"';
+	private static final char DISTANCE_MARK = '~';
+	private static final String MESSAGE_INVALID_QUERY = "Consulta booleana invlida";
+
+	private DocumentAnalyzer documentAnalyzer;
+
+	// Estado da anlise da consulta corrente
+	private String content;
+	private List<String> lexemesList;
+	private List<Boolean> operatorsList;
+	private int position;
+
+	public BooleanQueryParser(DocumentAnalyzer documentAnalyzer) {
+		this.documentAnalyzer = documentAnalyzer;
+	}
+
+	/**
+	 * Analisa a consulta
+	 *
+	 * @param content
+	 *            o texto da consulta
+	 * @return a consulta; um AND sem operandos caso no reste nenhum termo
+	 * @throws DocumentProcessorException
+	 *             caso a consulta esteja malformada
+	 */
+	public synchronized BooleanQuery parse(String content)
+			throws DocumentProcessorException {
+		this.content = content;
+		lexemesList = new ArrayList<String>();
+		operatorsList = new ArrayList<Boolean>();
+		position = 0;
+		split();
+
+		BooleanQuery query = parseDisjunction();
+		if (position < lexemesList.size()) {
+			throw invalidQuery("'" + lexemesList.get(position) + "' inesperado");
+		}
+		if (query == null) {
+			query = new BooleanQuery(BooleanQuery.Operator.AND,
+					new ArrayList<BooleanQuery>());
+		}
+		return query;
+	}
+
+	/**
+	 * Divide a consulta em operadores, parnteses, frases e trechos de texto.
+	 * Palavras seguidas que no so operadores formam um nico trecho, copiado
+	 * da consulta original; uma frase  copiada com as aspas e a distncia.
+	 *
+	 * @throws DocumentProcessorException
+	 *             caso uma frase no seja fechada
+	 */
+	private void split() throws DocumentProcessorException {
+		int textStart = -1;
+		int textEnd = -1;
+		int index = 0;
+		while (index < content.length()) {
+			char character = content.charAt(index);
+			if (Character.isWhitespace(character)) {
+				index++;
+				continue;
+			}
+
+			if (character == QUOTE) {
+				if (textStart >= 0) {
+					addLexeme(content.substring(textStart, textEnd), false);
+					textStart = -1;
+				}
+				index = splitPhrase(index);
+				continue;
+			}
+
+			String operator = null;
+			int wordEnd = index + 1;
+			if (character == '(' || character == ')') {
+				operator = String.valueOf(character);
+			} else {
+				while (wordEnd < content.length()
+						&& Character.isWhitespace(content.charAt(wordEnd)) == false
+						&& content.charAt(wordEnd) != '('
+						&& content.charAt(wordEnd) != ')'
+						&& content.charAt(wordEnd) != QUOTE) {
+					wordEnd++;
+				}
+				String word = content.substring(index, wordEnd);
+				if (word.equals(OPERATOR_AND) || word.equals(OPERATOR_OR)
+						|| word.equals(OPERATOR_NOT)) {
+					operator = word;
+				}
+			}
+
+			if (operator == null) {
+				if (textStart < 0) {
+					textStart = index;
+				}
+				textEnd = wordEnd;
+			} else {
+				if (textStart >= 0) {
+					addLexeme(content.substring(textStart, textEnd), false);
+					textStart = -1;
+				}
+				addLexeme(operator, true);
+			}
+			index = wordEnd;
+		}
+		if (textStart >= 0) {
+			addLexeme(content.substring(textStart, textEnd), false);
+		}
+	}
+
+	/**
+	 * Separa a frase que comea na posio, com a distncia que a segue
+	 *
+	 * @param start
+	 *            posio das aspas de abertura
+	 * @return a posio seguinte ao fim da frase
+	 * @throws DocumentProcessorException
+	 *             caso a frase no seja fechada
+	 */
+	private int splitPhrase(int start) throws DocumentProcessorException {
+		int end = content.indexOf(QUOTE, start + 1);
+		if (end < 0) {
+			throw invalidQuery("aspas no fechadas");
+		}
+		end++;
+
+		if (end + 1 < content.length() && content.charAt(end) == DISTANCE_MARK
+				&& Character.isDigit(content.charAt(end + 1))) {
+			end++;
+			while (end < content.length()
+					&& Character.isDigit(content.charAt(end))) {
+				end++;
+			}
+		}
+		addLexeme(content.substring(start, end), false);
+		return end;
+	}
+
+	private void addLexeme(String lexeme, boolean operator) {
+		lexemesList.add(lexeme);
+		operatorsList.add(operator);
+	}
+
+	private boolean isOperator(String operator) {
+		return position < lexemesList.size() && operatorsList.get(position)
+				&& lexemesList.get(position).equals(operator);
+	}
+
+	private boolean isText() {
+		return position < lexemesList.size()
+				&& operatorsList.get(position) == false;
+	}
+
+	private BooleanQuery parseDisjunction() throws DocumentProcessorException {
+		List<BooleanQuery> operands = new ArrayList<BooleanQuery>();
+		addOperand(BooleanQuery.Operator.OR, operands, parseConjunction());
+		while (isOperator(OPERATOR_OR)) {
+			position++;
+			addOperand(BooleanQuery.Operator.OR, operands, parseConjunction());
+		}
+		return combine(BooleanQuery.Operator.OR, operands);
+	}
+
+	private BooleanQuery parseConjunction() throws DocumentProcessorException {
+		List<BooleanQuery> operands = new ArrayList<BooleanQuery>();
+		addOperand(BooleanQuery.Operator.AND, operands, parseUnary());
+		while (true) {
+			if (isOperator(OPERATOR_AND)) {
+				position++;
+			} else if (isText() == false && isOperator(OPERATOR_NOT) == false
+					&& isOperator(LEFT_PARENTHESIS) == false) {
+				break;
+			}
+			addOperand(BooleanQuery.Operator.AND, operands, parseUnary());
+		}
+		return combine(BooleanQuery.Operator.AND, operands);
+	}
+
+	private BooleanQuery parseUnary() throws DocumentProcessorException {
+		if (position == lexemesList.size()) {
+			throw invalidQuery("operando esperado no final");
+		}
+
+		if (isOperator(OPERATOR_NOT)) {
+			position++;
+			BooleanQuery operand = parseUnary();
+			if (operand == null) {
+				return null;
+			}
+			List<BooleanQuery> operands = new ArrayList<BooleanQuery>(1);
+			operands.add(operand);
+			return new BooleanQuery(BooleanQuery.Operator.NOT, operands);
+		}
+
+		if (isOperator(LEFT_PARENTHESIS)) {
+			position++;
+			BooleanQuery query = parseDisjunction();
+			if (isOperator(RIGHT_PARENTHESIS) == false) {
+				throw invalidQuery("')' esperado");
+			}
+			position++;
+			return query;
+		}
+
+		if (isText() == false) {
+			throw invalidQuery("'" + lexemesList.get(position) + "' inesperado");
+		}
+		String text = lexemesList.get(position++);
+		if (text.charAt(0) == QUOTE) {
+			return parsePhrase(text);
+		}
+		return parseText(text);
+	}
+
+	/**
+	 * Analisa um trecho de texto como os documentos e combina os seus termos
+	 * por AND
+	 *
+	 * @param text
+	 *            o trecho de texto
+	 * @return a consulta, ou null se no restar nenhum termo
+	 */
+	private BooleanQuery parseText(String text) {
+		Document document = new Document(text, -1);
+		documentAnalyzer.analyzeDocument(document);
+
+		List<BooleanQuery> operands = new ArrayList<BooleanQuery>();
+		for (String term : document.getTerms()) {
+			operands.add(new BooleanQuery(term));
+		}
+		return combine(BooleanQuery.Operator.AND, operands);
+	}
+
+	/**
+	 * Analisa uma frase como os documentos. A posio de cada termo na frase 
+	 * relativa  do primeiro termo.
+	 *
+	 * @param phrase
+	 *            a frase, com as aspas e a distncia
+	 * @return a consulta por frase ou por proximidade, a consulta pelo nico
+	 *         termo que restar, ou null se no restar nenhum termo
+	 * @throws DocumentProcessorException
+	 *             caso a distncia seja grande demais
+	 */
+	private BooleanQuery parsePhrase(String phrase)
+			throws DocumentProcessorException {
+		int end = phrase.lastIndexOf(QUOTE);
+		Document document = new Document(phrase.substring(1, end), -1);
+		documentAnalyzer.analyzeDocument(document);
+
+		List<String> terms = document.getTerms();
+		if (terms.isEmpty()) {
+			return null;
+		}
+		if (terms.size() == 1) {
+			return new BooleanQuery(terms.get(0));
+		}
+
+		if (end + 1 < phrase.length()) {
+			try {
+				return new BooleanQuery(terms, Integer.parseInt(phrase
+						.substring(end + 2)));
+			} catch (NumberFormatException e) {
+				throw invalidQuery("distncia invlida");
+			}
+		}
+
+		int[] positions = document.getPositions().clone();
+		for (int termIndex = positions.length - 1; termIndex >= 0; termIndex--) {
+			positions[termIndex] -= positions[0];
+		}
+		return new BooleanQuery(terms, positions);
+	}
+
+	/**
+	 * Adiciona o operando, trazendo para o mesmo nvel os operandos de uma
+	 * subconsulta com o mesmo operador
+	 */
+	private static void addOperand(BooleanQuery.Operator operator,
+			List<BooleanQuery> operands, BooleanQuery operand) {
+		if (operand == null) {
+			return;
+		}
+		if (operand.getOperator() == operator) {
+			operands.addAll(operand.getOperands());
+		} else {
+			operands.add(operand);
+		}
+	}
+
+	private static BooleanQuery combine(BooleanQuery.Operator operator,
+			List<BooleanQuery> operands) {
+		if (operands.isEmpty()) {
+			return null;
+		}
+		if (operands.size() == 1) {
+			return operands.get(0);
+		}
+		return new BooleanQuery(operator, operands);
+	}
+
+	private DocumentProcessorException invalidQuery(String detail) {
+		return new DocumentProcessorException(MESSAGE_INVALID_QUERY + " ("
+				+ detail + "): " + content, null);
+	}
+}
@@ -0,0 +1,83 @@
+package br.edu.pucminas.riw;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Modelo booleano que guarda os resultados de um {@link SegmentedBooleanModel}
+ * em um cache, para que consultas repetidas no sejam avaliadas novamente.
+ *
+ * A chave de cada consulta  a sua descrio, j normalizada pelo
+ * {@link BooleanQueryParser}: os termos analisados, os operandos de
+ * operadores iguais trazidos para o mesmo nvel e as posies das frases. Os
+ * resultados devolvidos so compartilhados com o cache e no devem ser
+ * alterados.
+ *
+ * Os resultados so identificadores de documentos, que no mudam com as
+ * junes de segmentos, e no dependem das estatsticas da coleo; por isso
+ * o cache s precisa ser descartado quando documentos so acrescentados,
+ * atualizados ou excludos.
+ */
+public class CachingBooleanModel {
+	private SegmentedBooleanModel booleanModel;
+	private QueryResultCache<List<Integer>> resultsCache;
+
+	/**
+	 * Cria o modelo
+	 *
+	 * @param booleanModel
+	 *            o modelo cujos resultados so guardados
+	 * @param maximumSize
+	 *            quantidade mxima de resultados
+	 * @param timeToLiveMillis
+	 *            validade dos resultados, em milissegundos, ou 0 para
+	 *            resultados sem prazo de validade
+	 * @param evictionPolicy
+	 *            poltica de descarte de resultados
+	 */
+	public CachingBooleanModel(SegmentedBooleanModel booleanModel,
+			int maximumSize, long timeToLiveMillis,
+			QueryResultCache.EvictionPolicy evictionPolicy) {
+		this.booleanModel = booleanModel;
+		resultsCache = new QueryResultCache<List<Integer>>(maximumSize,
+				timeToLiveMillis, evictionPolicy);
+	}
+
+	/**
+	 * Processa uma consulta booleana e retorna todos os documentos resultados
+	 *
+	 * @param query
+	 *            a consulta, j analisada
+	 * @return lista de identificadores dos documentos, em ordem crescente
+	 */
+	public List<Integer> processQuery(BooleanQuery query) {
+		String key = query.toString();
+		List<Integer> resultsList = resultsCache.get(key);
+		if (resultsList == null) {
+			resultsList = Collections.unmodifiableList(booleanModel
+					.processQuery(query));
+			resultsCache.put(key, resultsList);
+		}
+		return resultsList;
+	}
+
+	/**
+	 * Descarta todos os resultados guardados. Deve ser chamado quando
+	 * documentos do ndice so acrescentados, atualizados ou excludos.
+	 */
+	public void invalidate() {
+		resultsCache.invalidate();
+	}
+
+	public long getHits() {
+		return resultsCache.getHits();
+	}
+
+	public long getMisses() {
+		return resultsCache.getMisses();
+	}
+
+	public double getHitRatio() {
+		return resultsCache.getHitRatio();
+	}
+}
@@ -0,0 +1,291 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modelo de busca que guarda os resultados de outro modelo em um cache, para
+ * que consultas repetidas no sejam avaliadas novamente.
+ *
+ * Os termos recebidos j foram analisados (stopwords removidas e radicais
+ * extrados); a chave de cada consulta  a lista ordenada dos seus termos,
+ * com as repeties, que alteram os pesos da consulta, e os parmetros da
+ * busca. Os resultados devolvidos so compartilhados com o cache e no devem
+ * ser alterados.
+ *
+ * Sobre um {@link SegmentedIndex}, o cache compara a gerao das estatsticas
+ * a cada busca e descarta os resultados quando ela muda, o que inclui as
+ * junes que removem documentos excludos, feitas em segundo plano.
+ */
+public class CachingSearchModel implements SearchModel {
+	private static final char KEY_SEPARATOR = ' ';
+
+	private SearchModel searchModel;
+	private SegmentedIndex segmentedIndex;
+	private volatile int generation;
+	private QueryResultCache<List<Integer>> resultsCache;
+	private QueryResultCache<RelevanceSearchReturn> relevanceResultsCache;
+
+	/**
+	 * Cria o modelo
+	 *
+	 * @param searchModel
+	 *            o modelo cujos resultados so guardados
+	 * @param maximumSize
+	 *            quantidade mxima de resultados de cada tipo de busca
+	 * @param timeToLiveMillis
+	 *            validade dos resultados, em milissegundos, ou 0 para
+	 *            resultados sem prazo de validade
+	 * @param evictionPolicy
+	 *            poltica de descarte de resultados
+	 */
+	public CachingSearchModel(SearchModel searchModel, int maximumSize,
+			long timeToLiveMillis, QueryResultCache.EvictionPolicy evictionPolicy) {
+		this(searchModel, null, maximumSize, timeToLiveMillis, evictionPolicy);
+	}
+
+	/**
+	 * Cria o modelo sobre um ndice segmentado
+	 *
+	 * @param searchModel
+	 *            o modelo cujos resultados so guardados
+	 * @param segmentedIndex
+	 *            o ndice do modelo, cuja gerao invalida os resultados, ou
+	 *            null
+	 * @param maximumSize
+	 *            quantidade mxima de resultados de cada tipo de busca
+	 * @param timeToLiveMillis
+	 *            validade dos resultados, em milissegundos, ou 0 para
+	 *            resultados sem prazo de validade
+	 * @param evictionPolicy
+	 *            poltica de descarte de resultados
+	 */
+	public CachingSearchModel(SearchModel searchModel,
+			SegmentedIndex segmentedIndex, int maximumSize,
+			long timeToLiveMillis, QueryResultCache.EvictionPolicy evictionPolicy) {
+		this.searchModel = searchModel;
+		this.segmentedIndex = segmentedIndex;
+		if (segmentedIndex != null) {
+			generation = segmentedIndex.getGeneration();
+		}
+		resultsCache = new QueryResultCache<List<Integer>>(maximumSize,
+				timeToLiveMillis, evictionPolicy);
+		relevanceResultsCache = new QueryResultCache<RelevanceSearchReturn>(
+				maximumSize, timeToLiveMillis, evictionPolicy);
+	}
+
+	@Override
+	public List<Integer> processQuery(List<String> queryTerms) {
+		checkGeneration();
+		String key = createKey(queryTerms);
+		List<Integer> resultsList = resultsCache.get(key);
+		if (resultsList == null) {
+			resultsList = Collections.unmodifiableList(searchModel
+					.processQuery(queryTerms));
+			resultsCache.put(key, resultsList);
+		}
+		return resultsList;
+	}
+
+	@Override
+	public RelevanceSearchReturn processQueryWithRelevance(
+			List<String> queryTerms, int treshold, double minimalRelevance) {
+		checkGeneration();
+		String key = createKey(queryTerms, treshold, minimalRelevance);
+		RelevanceSearchReturn relevanceSearchReturn = relevanceResultsCache
+				.get(key);
+		if (relevanceSearchReturn == null) {
+			relevanceSearchReturn = searchModel.processQueryWithRelevance(
+					queryTerms, treshold, minimalRelevance);
+			relevanceResultsCache.put(key, relevanceSearchReturn);
+		}
+		return relevanceSearchReturn;
+	}
+
+	/**
+	 * Processa um lote de queries; apenas as queries que no esto no cache
+	 * so repassadas, em um nico lote, ao modelo, e as repetidas dentro do
+	 * lote so avaliadas uma nica vez
+	 */
+	@Override
+	public List<List<Integer>> processQueries(List<List<String>> queriesTerms) {
+		checkGeneration();
+		List<List<Integer>> resultsLists = new ArrayList<List<Integer>>(
+				queriesTerms.size());
+		Map<String, Integer> missesMap = new HashMap<String, Integer>();
+		List<List<String>> missesTerms = new ArrayList<List<String>>();
+		List<String> keysList = new ArrayList<String>(queriesTerms.size());
+		for (List<String> queryTerms : queriesTerms) {
+			String key = createKey(queryTerms);
+			List<Integer> resultsList = resultsCache.get(key);
+			if (resultsList == null && missesMap.containsKey(key) == false) {
+				missesMap.put(key, missesTerms.size());
+				missesTerms.add(queryTerms);
+			}
+			keysList.add(key);
+			resultsLists.add(resultsList);
+		}
+
+		if (missesTerms.isEmpty()) {
+			return resultsLists;
+		}
+
+		List<List<Integer>> missesResults = searchModel
+				.processQueries(missesTerms);
+		for (int queryIndex = 0; queryIndex < resultsLists.size(); queryIndex++) {
+			if (resultsLists.get(queryIndex) != null) {
+				continue;
+			}
+			String key = keysList.get(queryIndex);
+			List<Integer> resultsList = Collections
+					.unmodifiableList(missesResults.get(missesMap.get(key)));
+			resultsCache.put(key, resultsList);
+			resultsLists.set(queryIndex, resultsList);
+		}
+		return resultsLists;
+	}
+
+	/**
+	 * Processa um lote de queries com relevncia; apenas as queries que no
+	 * esto no cache so repassadas, em um nico lote, ao modelo, e as
+	 * repetidas dentro do lote so avaliadas uma nica vez
+	 */
+	@Override
+	public List<RelevanceSearchReturn> processQueriesWithRelevance(
+			List<List<String>> queriesTerms, int treshold,
+			double minimalRelevance) {
+		checkGeneration();
+		List<RelevanceSearchReturn> returnsList = new ArrayList<RelevanceSearchReturn>(
+				queriesTerms.size());
+		Map<String, Integer> missesMap = new HashMap<String, Integer>();
+		List<List<String>> missesTerms = new ArrayList<List<String>>();
+		List<String> keysList = new ArrayList<String>(queriesTerms.size());
+		for (List<String> queryTerms : queriesTerms) {
+			String key = createKey(queryTerms, treshold, minimalRelevance);
+			RelevanceSearchReturn relevanceSearchReturn = relevanceResultsCache
+					.get(key);
+			if (relevanceSearchReturn == null
+					&& missesMap.containsKey(key) == false) {
+				missesMap.put(key, missesTerms.size());
+				missesTerms.add(queryTerms);
+			}
+			keysList.add(key);
+			returnsList.add(relevanceSearchReturn);
+		}
+
+		if (missesTerms.isEmpty()) {
+			return returnsList;
+		}
+
+		List<RelevanceSearchReturn> missesReturns = searchModel
+				.processQueriesWithRelevance(missesTerms, treshold,
+						minimalRelevance);
+		for (int queryIndex = 0; queryIndex < returnsList.size(); queryIndex++) {
+			if (returnsList.get(queryIndex) != null) {
+				continue;
+			}
+			String key = keysList.get(queryIndex);
+			RelevanceSearchReturn relevanceSearchReturn = missesReturns
+					.get(missesMap.get(key));
+			relevanceResultsCache.put(key, relevanceSearchReturn);
+			returnsList.set(queryIndex, relevanceSearchReturn);
+		}
+		return returnsList;
+	}
+
+	/**
+	 * Descarta todos os resultados guardados. Deve ser chamado quando o ndice
+	 * do modelo  alterado.
+	 */
+	public void invalidate() {
+		resultsCache.invalidate();
+		relevanceResultsCache.invalidate();
+	}
+
+	/**
+	 * Descarta os resultados se a gerao do ndice mudou desde que foram
+	 * guardados
+	 */
+	private void checkGeneration() {
+		if (segmentedIndex == null) {
+			return;
+		}
+		int currentGeneration = segmentedIndex.getGeneration();
+		if (currentGeneration != generation) {
+			invalidate();
+			generation = currentGeneration;
+		}
+	}
+
+	public long getHits() {
+		return resultsCache.getHits() + relevanceResultsCache.getHits();
+	}
+
+	public long getMisses() {
+		return resultsCache.getMisses() + relevanceResultsCache.getMisses();
+	}
+
+	public long getEvictions() {
+		return resultsCache.getEvictions()
+				+ relevanceResultsCache.getEvictions();
+	}
+
+	/**
+	 * Obtm a taxa de acertos do cache
+	 *
+	 * @return a frao de consultas respondidas pelo cache
+	 */
+	public double getHitRatio() {
+		long hits = getHits();
+		long requests = hits + getMisses();
+		return requests == 0 ? 0 : ((double) hits) / requests;
+	}
+
+	public int size() {
+		return resultsCache.size() + relevanceResultsCache.size();
+	}
+
+	/**
+	 * Cria a chave de uma busca por todos os documentos resultados
+	 *
+	 * @param queryTerms
+	 *            termos da consulta
+	 * @return a chave
+	 */
+	private String createKey(List<String> queryTerms) {
+		return appendTerms(new StringBuilder(), queryTerms).toString();
+	}
+
+	/**
+	 * Cria a chave de uma busca com relevncia
+	 *
+	 * @param queryTerms
+	 *            termos da consulta
+	 * @param treshold
+	 *            limite de documentos mais relevantes a serem retornados
+	 * @param minimalRelevance
+	 *            limiar da mtrica de ordenao quanto  relevncia mnima
+	 * @return a chave
+	 */
+	private String createKey(List<String> queryTerms, int treshold,
+			double minimalRelevance) {
+		StringBuilder key = new StringBuilder();
+		key.append(treshold).append(KEY_SEPARATOR)
+				.append(Double.doubleToLongBits(minimalRelevance))
+				.append(KEY_SEPARATOR);
+		return appendTerms(key, queryTerms).toString();
+	}
+
+	private StringBuilder appendTerms(StringBuilder key, List<String> queryTerms) {
+		String[] terms = queryTerms.toArray(new String[queryTerms.size()]);
+		Arrays.sort(terms);
+		for (String term : terms) {
+			key.append(KEY_SEPARATOR).append(term);
+		}
+		return key;
+	}
+}
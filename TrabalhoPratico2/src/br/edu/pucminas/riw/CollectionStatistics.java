@@ -0,0 +1,33 @@
+package br.edu.pucminas.riw;
+
+/**
+ * Estatsticas da coleo usadas nos pesos dos modelos com ordenao: o IDF
+ * dos termos e o tamanho mdio dos documentos. Um ndice de um nico segmento
+ *  a sua prpria coleo; em um ndice com vrios segmentos, os modelos de
+ * cada segmento usam as estatsticas de todos eles, para que as pontuaes no
+ * dependam da diviso em segmentos.
+ */
+public interface CollectionStatistics {
+
+	/**
+	 * Quantidade de documentos da coleo
+	 */
+	int getDocumentsTotal();
+
+	/**
+	 * Obtm a quantidade de documentos da coleo em que o termo ocorre
+	 *
+	 * @param term
+	 *            o termo
+	 * @return a frequncia de documentos do termo, ou 0 caso o termo no
+	 *         exista na coleo
+	 */
+	int getDocumentFrequency(String term);
+
+	/**
+	 * Obtm o tamanho mdio dos documentos da coleo
+	 *
+	 * @return a mdia da quantidade de termos por documento
+	 */
+	double getAverageDocumentLength();
+}
@@ -8,6 +8,9 @@ import java.util.List;
 public class Document {
 	private int index;
 	private List<String> terms;
+
+	// Posio de cada termo entre os tokens do contedo, contando as stopwords
+	private int[] positions;
 	private String content;
 
 	public Document(String content, int index) {
@@ -31,6 +34,14 @@ public class Document {
 		this.terms = terms;
 	}
 
+	public int[] getPositions() {
+		return positions;
+	}
+
+	public void setPositions(int[] positions) {
+		this.positions = positions;
+	}
+
 	@Override
 	public String toString() {
 		return toString(content.length());
@@ -45,7 +56,8 @@ public class Document {
 	 */
 	public String toString(int maxSize) {
 		String ret = "Documento " + index + ": "
-				+ content.substring(0, maxSize).trim() + "...";
+				+ content.substring(0, Math.min(maxSize, content.length()))
+						.trim() + "...";
 		return ret;
 	}
 
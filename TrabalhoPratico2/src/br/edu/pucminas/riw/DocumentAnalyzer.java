@@ -0,0 +1,142 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.tartarus.snowball.SnowballStemmer;
+
+/**
+ * Analisador de documentos: realiza o pr-processamento, a remoo de
+ * stopwords e o stemming. Os documentos de uma lista so analisados em
+ * paralelo, cada um de forma independente, de modo que o resultado no depende
+ * da ordem de execuo.
+ */
+public class DocumentAnalyzer {
+	private static final int DOCUMENTS_PER_TASK = 16;
+
+	// Pool compartilhado por todos os analisadores; as suas threads so daemon
+	private static final ForkJoinPool POOL = new ForkJoinPool();
+
+	private Language language;
+	private StopwordFilter stopwordFilter;
+	private StemCache stemCache;
+
+	private ThreadLocal<Tokenizer> tokenizer = new ThreadLocal<Tokenizer>() {
+		@Override
+		protected Tokenizer initialValue() {
+			return new Tokenizer();
+		}
+	};
+
+	// O SnowballProgram guarda estado, ento cada thread usa o seu stemmer
+	private ThreadLocal<SnowballStemmer> stemmer = new ThreadLocal<SnowballStemmer>() {
+		@Override
+		protected SnowballStemmer initialValue() {
+			return language.createStemmer();
+		}
+	};
+
+	public DocumentAnalyzer(Language language, StopwordFilter stopwordFilter,
+			StemCache stemCache) {
+		this.language = language;
+		this.stopwordFilter = stopwordFilter;
+		this.stemCache = stemCache;
+	}
+
+	/**
+	 * Analisa os documentos em paralelo, utilizando todos os processadores
+	 * 
+	 * @param documentsList
+	 *            lista de documentos
+	 */
+	public void analyzeDocuments(List<Document> documentsList) {
+		POOL.invoke(new AnalysisTask(documentsList, 0, documentsList
+				.size()));
+	}
+
+	/**
+	 * Realiza as etapas de pr-processamento, remoo de stopwords e stemming
+	 * em um documento. Os termos passam pelas etapas um a um, diretamente do
+	 * buffer do tokenizador, e s viram String ao sair do cache de radicais.
+	 * A posio de cada termo conta tambm as stopwords removidas, para que as
+	 * consultas por frase respeitem a distncia original entre as palavras.
+	 * 
+	 * @param document
+	 *            o documento
+	 */
+	public void analyzeDocument(Document document) {
+		TermsHandler termsHandler = new TermsHandler(stemmer.get());
+		tokenizer.get().tokenize(document.getContent(), termsHandler);
+		document.setTerms(termsHandler.termsList);
+		document.setPositions(Arrays.copyOf(termsHandler.positions,
+				termsHandler.termsList.size()));
+	}
+
+	/**
+	 * Receptor dos tokens de um documento, que guarda os termos que no so
+	 * stopwords, j reduzidos ao radical, e as suas posies
+	 */
+	private class TermsHandler implements Tokenizer.TokenHandler {
+		private SnowballStemmer stemmer;
+		private List<String> termsList = new ArrayList<String>();
+		private int[] positions = new int[16];
+		private int tokenPosition;
+
+		public TermsHandler(SnowballStemmer stemmer) {
+			this.stemmer = stemmer;
+		}
+
+		@Override
+		public void token(char[] buffer, int offset, int length) {
+			// O termo vazio que o tokenizador emite para um contedo que
+			// comea com separador no  uma palavra
+			if (length == 0) {
+				return;
+			}
+			int position = tokenPosition++;
+			if (stopwordFilter.isStopword(buffer, offset, length)) {
+				return;
+			}
+			if (termsList.size() == positions.length) {
+				positions = Arrays.copyOf(positions, positions.length * 2);
+			}
+			positions[termsList.size()] = position;
+			termsList.add(stemCache.stem(buffer, offset, length, stemmer));
+		}
+	}
+
+	/**
+	 * Tarefa que divide um intervalo da lista de documentos at um tamanho
+	 * pequeno o suficiente para ser analisado diretamente
+	 */
+	private class AnalysisTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private List<Document> documentsList;
+		private int start;
+		private int end;
+
+		public AnalysisTask(List<Document> documentsList, int start, int end) {
+			this.documentsList = documentsList;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start <= DOCUMENTS_PER_TASK) {
+				for (int documentIndex = start; documentIndex < end; documentIndex++) {
+					analyzeDocument(documentsList.get(documentIndex));
+				}
+				return;
+			}
+
+			int middle = (start + end) >>> 1;
+			invokeAll(new AnalysisTask(documentsList, start, middle),
+					new AnalysisTask(documentsList, middle, end));
+		}
+	}
+}
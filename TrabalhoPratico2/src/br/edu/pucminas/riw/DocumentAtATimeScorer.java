@@ -0,0 +1,489 @@
+package br.edu.pucminas.riw;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Motor de pontuao documento a documento (document-at-a-time) para consultas
+ * top-k do modelo vetorial, com poda dinmica. Cada termo tem um limite
+ * superior para a sua contribuio  similaridade de qualquer documento, e um
+ * documento s  pontuado se a soma dos limites dos seus termos pode alcanar
+ * o limiar corrente, que  o menor entre a k-sima maior similaridade j
+ * encontrada e a relevncia mnima. Documentos que no entrariam no resultado
+ * nem no conjunto de relevantes no chegam a ser pontuados.
+ * <ul>
+ * <li>WAND: ordena os cursores pelo documento corrente e escolhe como piv o
+ * primeiro documento cuja soma de limites alcana o limiar;</li>
+ * <li>MAXSCORE: separa os termos cuja soma de limites no alcana o limiar,
+ * que s so consultados para documentos encontrados nos demais.</li>
+ * </ul>
+ * Opcionalmente, os limites de cada bloco de postings (block-max) refinam os
+ * limites globais dos termos.
+ *
+ * A similaridade dos documentos pontuados  calculada exatamente como no
+ * {@link TermAtATimeScorer}, em ordem crescente de termo, e o resultado  o
+ * mesmo da avaliao exaustiva, inclusive nos empates com o k-simo documento.
+ */
+public class DocumentAtATimeScorer {
+
+	/**
+	 * Algoritmo de poda dinmica
+	 */
+	public enum Strategy {
+		WAND, MAXSCORE
+	}
+
+	private static final int BLOCK_SIZE = 64;
+	private static final int END = Integer.MAX_VALUE;
+
+	// Folga relativa nas comparaes com o limiar, para que erros de
+	// arredondamento nos limites nunca descartem um documento do resultado
+	private static final double EPSILON = 1e-9;
+
+	private InvertedIndex invertedIndex;
+	private double[][] weightsPostings;
+	private double[] documentNorms;
+	private Strategy strategy;
+	private boolean blockMax;
+
+	private ThreadLocal<TopKCollector> collectors = new ThreadLocal<TopKCollector>() {
+		@Override
+		protected TopKCollector initialValue() {
+			return new TopKCollector();
+		}
+	};
+
+	// Maior peso normalizado pela norma do documento, por termo e por bloco de
+	// postings, e o ltimo documento de cada bloco
+	private double[] maximumWeights;
+	private double[][] blockMaximumWeights;
+	private int[][] blockLastDocuments;
+
+	/**
+	 * Cria o motor de pontuao, calculando os limites superiores dos termos
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param weightsPostings
+	 *            pesos TF-IDF de cada termo, na ordem dos postings
+	 * @param documentNorms
+	 *            norma do vetor de cada documento
+	 * @param strategy
+	 *            algoritmo de poda dinmica
+	 * @param blockMax
+	 *            se os limites por bloco de postings devem ser usados
+	 */
+	public DocumentAtATimeScorer(InvertedIndex invertedIndex,
+			double[][] weightsPostings, double[] documentNorms,
+			Strategy strategy, boolean blockMax) {
+		this.invertedIndex = invertedIndex;
+		this.weightsPostings = weightsPostings;
+		this.documentNorms = documentNorms;
+		this.strategy = strategy;
+		this.blockMax = blockMax;
+
+		int termsTotal = invertedIndex.getTermsTotal();
+		maximumWeights = new double[termsTotal];
+		if (blockMax) {
+			blockMaximumWeights = new double[termsTotal][];
+			blockLastDocuments = new int[termsTotal][];
+		}
+		for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+			IntBuffer documents = invertedIndex.getDocuments(termIndex);
+			double[] weights = weightsPostings[termIndex];
+			int blocksTotal = (weights.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			if (blockMax) {
+				blockMaximumWeights[termIndex] = new double[blocksTotal];
+				blockLastDocuments[termIndex] = new int[blocksTotal];
+			}
+
+			for (int postingIndex = 0; postingIndex < weights.length; postingIndex++) {
+				double norm = documentNorms[documents.get(postingIndex)];
+				double weight = norm > 0 ? weights[postingIndex] / norm : 0;
+				maximumWeights[termIndex] = Math.max(
+						maximumWeights[termIndex], weight);
+				if (blockMax) {
+					int blockIndex = postingIndex / BLOCK_SIZE;
+					blockMaximumWeights[termIndex][blockIndex] = Math.max(
+							blockMaximumWeights[termIndex][blockIndex], weight);
+					blockLastDocuments[termIndex][blockIndex] = documents
+							.get(postingIndex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Obtm os documentos mais similares  consulta
+	 *
+	 * @param query
+	 *            a consulta
+	 * @param treshold
+	 *            quantidade de documentos mais relevantes a serem retornados;
+	 *            documentos empatados com o ltimo tambm so retornados
+	 * @param minimalRelevance
+	 *            similaridade mnima dos documentos relevantes
+	 * @return os documentos retornados, por similaridade decrescente, e o
+	 *         conjunto de documentos relevantes
+	 */
+	public RelevanceSearchReturn score(QueryVector query, int treshold,
+			double minimalRelevance) {
+		TopKCollector collector = collectors.get();
+		collector.reset(treshold, minimalRelevance);
+		collect(query, 0, invertedIndex.getDocumentsTotal(), collector);
+		return collector.getResults();
+	}
+
+	/**
+	 * Avalia a consulta apenas sobre um intervalo de documentos, entregando os
+	 * documentos que podem fazer parte do resultado ao coletor
+	 *
+	 * @param query
+	 *            a consulta
+	 * @param startDocument
+	 *            primeiro documento do intervalo
+	 * @param endDocument
+	 *            documento seguinte ao ltimo do intervalo
+	 * @param collector
+	 *            o coletor, j preparado para a consulta
+	 */
+	public void collect(QueryVector query, int startDocument, int endDocument,
+			TopKCollector collector) {
+		Evaluation evaluation = new Evaluation(query, collector,
+				startDocument, endDocument);
+		if (strategy == Strategy.WAND) {
+			evaluation.evaluateWand();
+		} else {
+			evaluation.evaluateMaxScore();
+		}
+	}
+
+	/**
+	 * Estado da avaliao de uma consulta: os cursores sobre os postings de
+	 * cada termo e o coletor dos documentos mais similares
+	 */
+	private class Evaluation {
+		private QueryVector query;
+		private TopKCollector collector;
+
+		private IntBuffer[] documents;
+		private double[][] weights;
+		private int[] termIndexes;
+		private int[] positions;
+		private int[] ends;
+		private int[] blockIndexes;
+		private double[] upperBounds;
+
+		public Evaluation(QueryVector query, TopKCollector collector,
+				int startDocument, int endDocument) {
+			this.query = query;
+			this.collector = collector;
+
+			int termsTotal = query.size();
+			documents = new IntBuffer[termsTotal];
+			weights = new double[termsTotal][];
+			termIndexes = new int[termsTotal];
+			positions = new int[termsTotal];
+			ends = new int[termsTotal];
+			blockIndexes = new int[termsTotal];
+			upperBounds = new double[termsTotal];
+			for (int term = 0; term < termsTotal; term++) {
+				int termIndex = query.getTermIndex(term);
+				termIndexes[term] = termIndex;
+				documents[term] = invertedIndex.getDocuments(termIndex);
+				weights[term] = weightsPostings[termIndex];
+				positions[term] = Postings.advance(documents[term], 0,
+						startDocument);
+				ends[term] = Postings.advance(documents[term], positions[term],
+						endDocument);
+				upperBounds[term] = maximumWeights[termIndex]
+						* query.getWeight(term) / query.getNorm();
+			}
+		}
+
+		/**
+		 * WAND, opcionalmente com limites por bloco (block-max WAND)
+		 */
+		public void evaluateWand() {
+			int termsTotal = query.size();
+			int[] order = new int[termsTotal];
+			for (int term = 0; term < termsTotal; term++) {
+				order[term] = term;
+			}
+
+			while (true) {
+				sortByDocument(order);
+
+				// Piv: primeiro cursor em que a soma dos limites alcana o
+				// limiar; nenhum documento anterior ao dele pode alcan-lo
+				double threshold = getThreshold();
+				double bound = 0;
+				int pivot = -1;
+				for (int position = 0; position < termsTotal; position++) {
+					int term = order[position];
+					if (getDocument(term) == END) {
+						break;
+					}
+					bound += upperBounds[term];
+					if (reaches(bound, threshold)) {
+						pivot = position;
+						break;
+					}
+				}
+				if (pivot < 0) {
+					return;
+				}
+
+				int pivotDocument = getDocument(order[pivot]);
+				while (pivot + 1 < termsTotal
+						&& getDocument(order[pivot + 1]) == pivotDocument) {
+					pivot++;
+				}
+
+				if (blockMax) {
+					// Os blocos que contm o piv limitam tambm os documentos
+					// seguintes at o fim do primeiro desses blocos
+					double blockBound = 0;
+					int nextDocument = pivot + 1 < termsTotal ? getDocument(order[pivot + 1])
+							: END;
+					for (int position = 0; position <= pivot; position++) {
+						int term = order[position];
+						blockBound += getBlockBound(term, pivotDocument);
+						int blockEnd = getBlockEnd(term);
+						if (blockEnd != END) {
+							nextDocument = Math.min(nextDocument, blockEnd + 1);
+						}
+					}
+					if (reaches(blockBound, threshold) == false) {
+						advance(getStrongestTerm(order, pivot), nextDocument);
+						continue;
+					}
+				}
+
+				if (getDocument(order[0]) == pivotDocument) {
+					collect(pivotDocument);
+					for (int position = 0; position <= pivot; position++) {
+						positions[order[position]]++;
+					}
+				} else {
+					// Algum cursor anterior ao piv est atrs dele: avana o
+					// de maior limite at o piv
+					int term = -1;
+					for (int position = 0; position <= pivot; position++) {
+						int candidate = order[position];
+						if (getDocument(candidate) < pivotDocument
+								&& (term < 0 || upperBounds[candidate] > upperBounds[term])) {
+							term = candidate;
+						}
+					}
+					advance(term, pivotDocument);
+				}
+			}
+		}
+
+		/**
+		 * MaxScore, opcionalmente com limites por bloco
+		 */
+		public void evaluateMaxScore() {
+			int termsTotal = query.size();
+
+			// Termos por limite crescente, com as somas acumuladas dos limites
+			Integer[] boxedOrder = new Integer[termsTotal];
+			for (int term = 0; term < termsTotal; term++) {
+				boxedOrder[term] = term;
+			}
+			Arrays.sort(boxedOrder, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					return Double.compare(upperBounds[o1], upperBounds[o2]);
+				}
+			});
+			int[] order = new int[termsTotal];
+			double[] boundSums = new double[termsTotal];
+			for (int position = 0; position < termsTotal; position++) {
+				order[position] = boxedOrder[position];
+				boundSums[position] = (position > 0 ? boundSums[position - 1]
+						: 0) + upperBounds[order[position]];
+			}
+			double[] blockBoundSums = new double[termsTotal];
+
+			double threshold = getThreshold();
+			int essential = getFirstEssential(boundSums, threshold);
+			while (essential < termsTotal) {
+				// Prximo documento de algum termo essencial
+				int document = END;
+				for (int position = essential; position < termsTotal; position++) {
+					document = Math.min(document, getDocument(order[position]));
+				}
+				if (document == END) {
+					return;
+				}
+
+				double bound = 0;
+				for (int position = essential; position < termsTotal; position++) {
+					int term = order[position];
+					if (getDocument(term) == document) {
+						bound += getContribution(term, document);
+					}
+				}
+
+				if (blockMax) {
+					for (int position = 0; position < essential; position++) {
+						blockBoundSums[position] = (position > 0 ? blockBoundSums[position - 1]
+								: 0)
+								+ Math.min(upperBounds[order[position]],
+										getBlockBound(order[position], document));
+					}
+				}
+
+				// Os termos no essenciais so consultados do maior para o
+				// menor limite, enquanto o documento ainda pode alcanar o
+				// limiar
+				boolean pruned = false;
+				for (int position = essential - 1; position >= 0; position--) {
+					double remaining = blockMax ? blockBoundSums[position]
+							: boundSums[position];
+					if (reaches(bound + remaining, threshold) == false) {
+						pruned = true;
+						break;
+					}
+					int term = order[position];
+					advance(term, document);
+					if (getDocument(term) == document) {
+						bound += getContribution(term, document);
+					}
+				}
+				if (pruned == false && reaches(bound, threshold)) {
+					collect(document);
+				}
+
+				for (int position = essential; position < termsTotal; position++) {
+					if (getDocument(order[position]) == document) {
+						positions[order[position]]++;
+					}
+				}
+
+				double newThreshold = getThreshold();
+				if (newThreshold != threshold) {
+					threshold = newThreshold;
+					essential = getFirstEssential(boundSums, threshold);
+				}
+			}
+		}
+
+		/**
+		 * Obtm a posio do primeiro termo essencial: os termos anteriores,
+		 * juntos, no alcanam o limiar
+		 */
+		private int getFirstEssential(double[] boundSums, double threshold) {
+			int position = 0;
+			while (position < boundSums.length
+					&& reaches(boundSums[position], threshold) == false) {
+				position++;
+			}
+			return position;
+		}
+
+		private boolean reaches(double bound, double threshold) {
+			return bound * (1 + EPSILON) >= threshold;
+		}
+
+		/**
+		 * Obtm o limiar corrente: o menor entre a k-sima maior similaridade
+		 * j encontrada e a relevncia mnima
+		 */
+		private double getThreshold() {
+			return collector.getThreshold();
+		}
+
+		private int getDocument(int term) {
+			return positions[term] < ends[term] ? documents[term]
+					.get(positions[term]) : END;
+		}
+
+		private void advance(int term, int target) {
+			positions[term] = Postings.advance(documents[term],
+					positions[term], target);
+		}
+
+		private double getContribution(int term, int document) {
+			return weights[term][positions[term]] * query.getWeight(term)
+					/ (documentNorms[document] * query.getNorm());
+		}
+
+		/**
+		 * Obtm o limite da contribuio do termo no bloco de postings que
+		 * pode conter o documento, sem mover o cursor
+		 */
+		private double getBlockBound(int term, int document) {
+			int[] lastDocuments = blockLastDocuments[termIndexes[term]];
+			int blockIndex = Math.max(blockIndexes[term], positions[term]
+					/ BLOCK_SIZE);
+			if (blockIndex > positions[term] / BLOCK_SIZE
+					&& lastDocuments[blockIndex - 1] >= document) {
+				blockIndex = positions[term] / BLOCK_SIZE;
+			}
+			while (blockIndex < lastDocuments.length
+					&& lastDocuments[blockIndex] < document) {
+				blockIndex++;
+			}
+			blockIndexes[term] = blockIndex;
+			if (blockIndex == lastDocuments.length) {
+				return 0;
+			}
+			return blockMaximumWeights[termIndexes[term]][blockIndex]
+					* query.getWeight(term) / query.getNorm();
+		}
+
+		/**
+		 * Obtm o ltimo documento do bloco encontrado pela ltima chamada a
+		 * getBlockBound do termo
+		 */
+		private int getBlockEnd(int term) {
+			int[] lastDocuments = blockLastDocuments[termIndexes[term]];
+			return blockIndexes[term] < lastDocuments.length ? lastDocuments[blockIndexes[term]]
+					: END;
+		}
+
+		private int getStrongestTerm(int[] order, int pivot) {
+			int term = order[0];
+			for (int position = 1; position <= pivot; position++) {
+				if (upperBounds[order[position]] > upperBounds[term]) {
+					term = order[position];
+				}
+			}
+			return term;
+		}
+
+		private void sortByDocument(int[] order) {
+			for (int position = 1; position < order.length; position++) {
+				int term = order[position];
+				int document = getDocument(term);
+				int previous = position - 1;
+				while (previous >= 0 && getDocument(order[previous]) > document) {
+					order[previous + 1] = order[previous];
+					previous--;
+				}
+				order[previous + 1] = term;
+			}
+		}
+
+		/**
+		 * Calcula a similaridade exata do documento, somando as contribuies
+		 * dos termos em ordem crescente, e o entrega ao coletor
+		 */
+		private void collect(int document) {
+			double similarity = 0;
+			for (int term = 0; term < query.size(); term++) {
+				if (getDocument(term) == document) {
+					similarity += weights[term][positions[term]]
+							* query.getWeight(term);
+				}
+			}
+			similarity = similarity
+					/ (documentNorms[document] * query.getNorm());
+			collector.collect(document, similarity);
+		}
+	}
+}
@@ -2,14 +2,14 @@ package br.edu.pucminas.riw;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.IntBuffer;
 import java.nio.charset.Charset;
-import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -17,10 +17,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
-
-import org.tartarus.snowball.SnowballStemmer;
-import org.tartarus.snowball.ext.englishStemmer;
+import java.util.TreeMap;
 
 /**
  * Classe processadora de documentos.
@@ -31,45 +28,223 @@ public class DocumentsProcessor {
 	private static final String MESSAGE_READING_ERROR = "Erro na leitura do arquivo.";
 	private static final String MESSAGE_WRITING_ERROR = "Erro na gravao do arquivo.";
 	private static final String MESSAGE_FILE_NOT_FOUND = "Arquivo nao encontrado.";
-	private static final String STOPWORDS_FILE = "stopwords.txt";
+	private static final String MESSAGE_INVALID_UPDATE = "Atualizao invlida na linha ";
+	private static final String STOPWORDS_ENCODING = "UTF-8";
+	private static final long RESULT_CACHE_TIME_TO_LIVE = 10 * 60 * 1000;
+	private static final QueryResultCache.EvictionPolicy RESULT_CACHE_EVICTION_POLICY = QueryResultCache.EvictionPolicy.TINY_LFU;
 	private static final int METRIC_MAX_RESULTS = 10;
-	private static final double METRIC_MINIMAL_RELEVANCE = 0.05;
-	private static final String TERM_DOCUMENT_MATRIX_RESULTS_FILE = "step1-term-document-matrix.txt";
+	private static final int INDEXING_BATCH_SIZE = 4096;
+	private static final String INVERTED_INDEX_RESULTS_FILE = "step1-inverted-index.txt";
 	private static final String QUERY_RESULTS_RESULTS_FILE = "step2-query-results.txt";
 	private static final String TEN_MOST_RELEVANT_RESULTS_FILE = "step3-10-most-relevant-results.txt";
 	private static final String PRECISION_AND_RECALL_RESULTS_FILE = "step4-precision-and-recall.txt";
+	private static final String POSTINGS_CODECS_RESULTS_FILE = "postings-codecs.txt";
+
+	private Language language;
+	private String corpusFileName;
+	private String encoding;
+	private StemCache stemCache;
+	private String stemCacheFileName;
+	private int stemCacheSize;
+	private StemCache.EvictionPolicy stemCacheEvictionPolicy;
+	private DocumentAnalyzer documentAnalyzer;
+	private MappedCorpus documentsCorpus;
+	private InvertedIndex invertedIndex;
+	private SegmentedIndex segmentedIndex;
+	// Arquivo de documentos de cada segmento acrescentado, pelo identificador
+	// do seu primeiro documento
+	private TreeMap<Integer, MappedCorpus> corporaMap = new TreeMap<Integer, MappedCorpus>();
+	// Contedo atual dos documentos atualizados, que no  o dos arquivos
+	private Map<Integer, String> updatedContentsMap = new HashMap<Integer, String>();
+	private SegmentedBooleanModel booleanModel;
+	private BooleanQueryParser booleanQueryParser;
+	private RankingModel rankingModel;
+	private SearchModel rankingSearchModel;
+	private int resultCacheSize;
+
+	// Nulos quando os resultados das consultas no so guardados
+	private CachingSearchModel cachingSearchModel;
+	private CachingBooleanModel cachingBooleanModel;
+
+	public DocumentsProcessor(String fileName, String encoding,
+			Language language, String stemCacheFileName, int stemCacheSize,
+			StemCache.EvictionPolicy stemCacheEvictionPolicy,
+			RankingModel rankingModel, int resultCacheSize)
+			throws DocumentProcessorException {
+		this.language = language;
+		this.stemCacheFileName = stemCacheFileName;
+		this.stemCacheSize = stemCacheSize;
+		this.stemCacheEvictionPolicy = stemCacheEvictionPolicy;
+		this.rankingModel = rankingModel;
+		this.resultCacheSize = resultCacheSize;
+		this.corpusFileName = fileName;
+		this.encoding = encoding;
+		loadStemCache();
+		documentAnalyzer = new DocumentAnalyzer(language,
+				loadStopwords(language), stemCache);
+		processDocuments(fileName, encoding);
+	}
 
-	private List<String> stopwordsList;
-	private List<Document> documentsList;
-	private Map<String, Integer> termsIndexMap;
-	private int[][] termDocumentMatrix;
-	private SearchModel booleanModel;
-	private SearchModel vectorialModel;
+	/**
+	 * Cria o processador a partir de um ndice gravado por
+	 * {@link #saveIndex(String, PostingsCodecType)}, sem reprocessar os documentos. O idioma e o
+	 * arquivo de documentos so os do ndice.
+	 * 
+	 * @param indexFileName
+	 *            nome do arquivo do ndice
+	 * @param stemCacheFileName
+	 *            nome do arquivo do cache de radicais, ou null
+	 * @param stemCacheSize
+	 *            quantidade mxima de radicais guardados em cache
+	 * @param stemCacheEvictionPolicy
+	 *            poltica de descarte do cache de radicais
+	 * @param rankingModel
+	 *            o modelo de ordenao
+	 * @param resultCacheSize
+	 *            quantidade mxima de resultados guardados em cache, ou 0
+	 * @throws DocumentProcessorException
+	 */
+	public DocumentsProcessor(String indexFileName, String stemCacheFileName,
+			int stemCacheSize, StemCache.EvictionPolicy stemCacheEvictionPolicy,
+			RankingModel rankingModel, int resultCacheSize)
+			throws DocumentProcessorException {
+		this.stemCacheFileName = stemCacheFileName;
+		this.stemCacheSize = stemCacheSize;
+		this.stemCacheEvictionPolicy = stemCacheEvictionPolicy;
+		this.rankingModel = rankingModel;
+		this.resultCacheSize = resultCacheSize;
 
-	public DocumentsProcessor(String fileName, String encoding)
+		try {
+			InvertedIndexFile indexFile = new InvertedIndexFile(indexFileName);
+			language = indexFile.getLanguage();
+			corpusFileName = indexFile.getCorpusFileName();
+			encoding = indexFile.getEncoding();
+			invertedIndex = indexFile.getInvertedIndex();
+			documentsCorpus = indexFile.openCorpus();
+			System.out.println("Leu o ndice do arquivo: " + indexFileName);
+		} catch (FileNotFoundException e) {
+			throw new DocumentProcessorException(MESSAGE_FILE_NOT_FOUND, e);
+		} catch (IOException e) {
+			throw new DocumentProcessorException(MESSAGE_READING_ERROR, e);
+		}
+
+		loadStemCache();
+		documentAnalyzer = new DocumentAnalyzer(language,
+				loadStopwords(language), stemCache);
+		createModels();
+	}
+
+	/**
+	 * Grava o ndice invertido, para que as prximas execues respondam s
+	 * consultas sem reprocessar os documentos
+	 * 
+	 * @param indexFileName
+	 *            nome do arquivo do ndice
+	 * @param codecType
+	 *            codificao dos postings no arquivo
+	 * @throws DocumentProcessorException
+	 */
+	public void saveIndex(String indexFileName, PostingsCodecType codecType)
 			throws DocumentProcessorException {
-		loadStopwords();
-		processDocuments(fileName, encoding);
+		try {
+			InvertedIndexFile.write(indexFileName, invertedIndex, codecType,
+					language, encoding, corpusFileName, documentsCorpus);
+			System.out.println("Escreveu no arquivo " + indexFileName);
+		} catch (IOException e) {
+			throw new DocumentProcessorException(MESSAGE_WRITING_ERROR, e);
+		}
 	}
 
 	/**
-	 * L o arquivo de stopwords e converte numa lista de stopwords
+	 * Compara as codificaes de postings sobre o ndice, quanto ao tamanho e
+	 *  vazo de decodificao
 	 * 
-	 * @param fileName
-	 *            nome do arquivo
 	 * @throws DocumentProcessorException
 	 */
-	private void loadStopwords() throws DocumentProcessorException {
-		stopwordsList = new ArrayList<String>();
+	public void reportPostingsCodecs() throws DocumentProcessorException {
+		List<PostingsCodec> codecsList = new ArrayList<PostingsCodec>();
+		for (PostingsCodecType codecType : PostingsCodecType.values()) {
+			PostingsCodec codec = codecType.createCodec();
+			if (codec != null) {
+				codecsList.add(codec);
+			}
+		}
+		PostingsCodecReport report = new PostingsCodecReport(invertedIndex,
+				codecsList.toArray(new PostingsCodec[codecsList.size()]));
+		System.out.print(report.getReport());
+		writeToFile(POSTINGS_CODECS_RESULTS_FILE,
+				new StringBuilder(report.getReport()));
+	}
+
+	/**
+	 * Cria o cache de radicais, aquecido com o vocabulrio salvo na execuo
+	 * anterior, caso exista
+	 * 
+	 * @throws DocumentProcessorException
+	 */
+	private void loadStemCache() throws DocumentProcessorException {
+		stemCache = new StemCache(stemCacheSize, stemCacheEvictionPolicy);
+		if (stemCacheFileName == null
+				|| new File(stemCacheFileName).exists() == false) {
+			return;
+		}
 
 		try {
-			BufferedReader reader = new BufferedReader(new FileReader(
-					STOPWORDS_FILE));
+			if (stemCache.load(stemCacheFileName, language)) {
+				System.out.println("Leu " + stemCache.size()
+						+ " radicais do arquivo: " + stemCacheFileName);
+			}
+		} catch (IOException e) {
+			throw new DocumentProcessorException(MESSAGE_READING_ERROR, e);
+		}
+	}
+
+	/**
+	 * Salva o vocabulrio do cache de radicais, para aquecer a prxima
+	 * execuo, e exibe as mtricas do cache
+	 * 
+	 * @throws DocumentProcessorException
+	 */
+	public void saveStemCache() throws DocumentProcessorException {
+		System.out.println("Cache de radicais: " + stemCache.getHits()
+				+ " acertos, " + stemCache.getMisses()
+				+ " faltas, taxa de acertos de " + stemCache.getHitRatio());
+		if (stemCacheFileName == null) {
+			return;
+		}
+
+		try {
+			stemCache.save(stemCacheFileName, language);
+			System.out.println("Escreveu no arquivo " + stemCacheFileName);
+		} catch (IOException e) {
+			throw new DocumentProcessorException(MESSAGE_WRITING_ERROR, e);
+		}
+	}
+
+	/**
+	 * L o arquivo de stopwords do idioma e cria o filtro de stopwords
+	 * 
+	 * @param language
+	 *            o idioma
+	 * @return o filtro de stopwords
+	 * @throws DocumentProcessorException
+	 */
+	private StopwordFilter loadStopwords(Language language)
+			throws DocumentProcessorException {
+		List<String> stopwordsList = new ArrayList<String>();
+		String stopwordsFileName = language.getStopwordsFileName();
+
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					new FileInputStream(stopwordsFileName), STOPWORDS_ENCODING));
 			String fileLine = null;
 			while ((fileLine = reader.readLine()) != null) {
 				stopwordsList.addAll(Arrays.asList(fileLine.split(",")));
 			}
-			System.out.println("Leu o arquivo de stopwords: " + STOPWORDS_FILE);
+			reader.close();
+			System.out.println("Leu o arquivo de stopwords: "
+					+ stopwordsFileName);
+			return new StopwordFilter(stopwordsList);
 		} catch (FileNotFoundException e) {
 			throw new DocumentProcessorException(MESSAGE_FILE_NOT_FOUND, e);
 		} catch (IOException e) {
@@ -86,17 +261,160 @@ public class DocumentsProcessor {
 	 */
 	private void processDocuments(String fileName, String encoding)
 			throws DocumentProcessorException {
+		documentsCorpus = loadCorpus(fileName, encoding);
+
 		// Realiza etapas de pr-processamento, remoo de stopwords e stemming
-		documentsList = prepareDocumentsList(fileName, encoding);
+		//  medida que os documentos so indexados
+		createInvertedIndex();
+		System.out.println("Criou ndice invertido");
 
-		createTermDocumentMatrix();
-		System.out.println("Criou matriz termos x documentos");
+		createModels();
+	}
 
-		booleanModel = new BooleanModel(termDocumentMatrix, termsIndexMap);
-		System.out.println("Criou matriz do modelo booleano");
+	/**
+	 * Cria os modelos de busca sobre o ndice segmentado, que comea com o
+	 * ndice invertido como o seu primeiro segmento
+	 */
+	private void createModels() {
+		segmentedIndex = new SegmentedIndex(new TieredMergePolicy());
+		segmentedIndex.addSegment(invertedIndex);
+		corporaMap.put(0, documentsCorpus);
+
+		booleanModel = new SegmentedBooleanModel(segmentedIndex);
+		booleanQueryParser = new BooleanQueryParser(documentAnalyzer);
+		System.out.println("Criou o modelo booleano");
+
+		rankingSearchModel = new SegmentedSearchModel(segmentedIndex,
+				rankingModel);
+		System.out.println("Criou o modelo " + rankingModel.getDescription());
+
+		if (resultCacheSize > 0) {
+			cachingSearchModel = new CachingSearchModel(rankingSearchModel,
+					segmentedIndex, resultCacheSize, RESULT_CACHE_TIME_TO_LIVE,
+					RESULT_CACHE_EVICTION_POLICY);
+			rankingSearchModel = cachingSearchModel;
+			cachingBooleanModel = new CachingBooleanModel(booleanModel,
+					resultCacheSize, RESULT_CACHE_TIME_TO_LIVE,
+					RESULT_CACHE_EVICTION_POLICY);
+		}
+	}
 
-		vectorialModel = new VectorialModel(termDocumentMatrix, termsIndexMap);
-		System.out.println("Criou matriz do modelo vetorial");
+	/**
+	 * Descarta os resultados em cache, depois de uma alterao dos documentos
+	 * do ndice
+	 */
+	private void invalidateCaches() {
+		if (cachingSearchModel != null) {
+			cachingSearchModel.invalidate();
+			cachingBooleanModel.invalidate();
+		}
+	}
+
+	/**
+	 * Acrescenta os documentos de um arquivo ao ndice, em um novo segmento,
+	 * depois dos documentos j indexados. Apenas os novos documentos so
+	 * analisados e indexados; os resultados em cache so descartados.
+	 * 
+	 * @param fileName
+	 *            nome do arquivo
+	 * @param encoding
+	 *            codificao
+	 * @throws DocumentProcessorException
+	 */
+	public void appendDocuments(String fileName, String encoding)
+			throws DocumentProcessorException {
+		MappedCorpus corpus = loadCorpus(fileName, encoding);
+		if (corpus.getDocumentsTotal() == 0) {
+			System.out.println("Nenhum documento a acrescentar ao ndice");
+			return;
+		}
+		Segment segment = segmentedIndex.addSegment(indexDocuments(corpus));
+		corporaMap.put(segment.getDocumentId(0), corpus);
+		invalidateCaches();
+		System.out.println("Acrescentou " + segment.getDocumentsTotal()
+				+ " documentos ao ndice, em " + segmentedIndex.getSegments().size()
+				+ " segmentos");
+	}
+
+	/**
+	 * Atualiza documentos j indexados com os contedos de um arquivo, em que
+	 * cada linha tem o ndice do documento e o seu novo contedo, separados
+	 * por espao. Os documentos antigos so excludos e os novos so
+	 * indexados em um novo segmento, com os mesmos ndices; os resultados em
+	 * cache so descartados.
+	 * 
+	 * @param fileName
+	 *            nome do arquivo
+	 * @param encoding
+	 *            codificao
+	 * @throws DocumentProcessorException
+	 */
+	public void updateDocuments(String fileName, String encoding)
+			throws DocumentProcessorException {
+		MappedCorpus corpus = loadCorpus(fileName, encoding);
+		int documentsTotal = corpus.getDocumentsTotal();
+		int[] documentIds = new int[documentsTotal];
+		Set<Integer> documentIdsSet = new HashSet<Integer>(documentsTotal * 2);
+		List<Document> documentsList = new ArrayList<Document>(documentsTotal);
+		for (int documentIndex = 0; documentIndex < documentsTotal; documentIndex++) {
+			String line = corpus.getContent(documentIndex).trim();
+			int separator = line.indexOf(' ');
+			try {
+				documentIds[documentIndex] = Integer.parseInt(separator < 0 ? line
+						: line.substring(0, separator));
+			} catch (NumberFormatException e) {
+				throw new DocumentProcessorException(MESSAGE_INVALID_UPDATE
+						+ (documentIndex + 1), e);
+			}
+			if (documentIds[documentIndex] < 0
+					|| documentIds[documentIndex] >= segmentedIndex
+							.getNextDocumentId()
+					|| documentIdsSet.add(documentIds[documentIndex]) == false) {
+				throw new DocumentProcessorException(MESSAGE_INVALID_UPDATE
+						+ (documentIndex + 1), null);
+			}
+			documentsList.add(new Document(separator < 0 ? "" : line.substring(
+					separator + 1).trim(), documentIndex));
+		}
+
+		documentAnalyzer.analyzeDocuments(documentsList);
+		InvertedIndexBuilder invertedIndexBuilder = new InvertedIndexBuilder();
+		for (Document document : documentsList) {
+			invertedIndexBuilder.addDocument(document.getIndex(),
+					document.getTerms(), document.getPositions());
+		}
+
+		for (int documentIndex = 0; documentIndex < documentsTotal; documentIndex++) {
+			segmentedIndex.deleteDocument(documentIds[documentIndex]);
+			updatedContentsMap.put(documentIds[documentIndex], documentsList
+					.get(documentIndex).getContent());
+		}
+		segmentedIndex.addSegment(invertedIndexBuilder.build(), documentIds);
+		invalidateCaches();
+		System.out.println("Atualizou " + documentsTotal
+				+ " documentos do ndice, em " + segmentedIndex.getSegments().size()
+				+ " segmentos");
+	}
+
+	/**
+	 * Exclui documentos do ndice. A excluso apenas marca os documentos, que
+	 * deixam de aparecer nos resultados e so removidos fisicamente nas
+	 * junes de segmentos; os resultados em cache so descartados.
+	 * 
+	 * @param documentIndexesList
+	 *            os ndices dos documentos
+	 */
+	public void deleteDocuments(List<Integer> documentIndexesList) {
+		int deletedTotal = 0;
+		for (Integer documentIndex : documentIndexesList) {
+			if (segmentedIndex.deleteDocument(documentIndex)) {
+				updatedContentsMap.remove(documentIndex);
+				deletedTotal++;
+			}
+		}
+		invalidateCaches();
+		System.out.println("Excluiu " + deletedTotal + " documentos do ndice, que tem "
+				+ segmentedIndex.getLiveDocumentsTotal() + " documentos");
 	}
 
 	/**
@@ -108,54 +426,78 @@ public class DocumentsProcessor {
 	 */
 	public void processQueries(String fileName, String encoding)
 			throws DocumentProcessorException {
+		// As junes agendadas pelas alteraes do ndice podem remover
+		// documentos excludos e mudar as estatsticas; as consultas s
+		// comeam depois delas, para que os resultados no dependam de quando
+		// as junes terminam
+		segmentedIndex.waitForMerges();
+
 		// Realiza etapas de pr-processamento, remoo de stopwords e stemming
 		List<Document> queriesList = prepareDocumentsList(fileName, encoding);
 
-		// Aplica as 5 consultas no modelo booleano e vetorial
+		// Aplica as 5 consultas no modelo booleano e no modelo com ordenao
 		StringBuilder contentToWriteStep2 = new StringBuilder();
 		contentToWriteStep2
 				.append("As 5 consultas foram aplicadas no modelo booleano e os resultados sao:");
 
 		System.out.println("----------------");
 		System.out.println("Modelo booleano:");
-		applyQueries(booleanModel, queriesList, contentToWriteStep2);
+		applyBooleanQueries(queriesList, contentToWriteStep2);
 		
 		contentToWriteStep2
-		.append("As 5 consultas foram aplicadas no modelo vetorial e os resultados sao:");
+		.append("As 5 consultas foram aplicadas no modelo ")
+		.append(rankingModel.getDescription())
+		.append(" e os resultados sao:");
 
 		System.out.println("----------------");
-		System.out.println("Modelo vetorial:");
-		applyQueries(vectorialModel, queriesList, contentToWriteStep2);
+		System.out.println("Modelo " + rankingModel.getDescription() + ":");
+		applyQueries(rankingSearchModel, queriesList, contentToWriteStep2);
 
 		writeToFile(QUERY_RESULTS_RESULTS_FILE, contentToWriteStep2);
 
-		// Aplica a mtrica de ordenao no modelo vetorial e calcula a preciso
+		// Aplica a mtrica de ordenao no modelo escolhido e calcula a preciso
 		// e revocao
 		StringBuilder contentToWriteStep3 = new StringBuilder();
 		StringBuilder contentToWriteStep4 = new StringBuilder();
 
 		System.out.println("----------------");
-		System.out.println("Modelo vetorial mostrando os " + METRIC_MAX_RESULTS
+		System.out.println("Modelo " + rankingModel.getDescription()
+				+ " mostrando os " + METRIC_MAX_RESULTS
 				+ " documentos mais relevantes, com relevncia mnima de "
-				+ METRIC_MINIMAL_RELEVANCE + ":");
+				+ rankingModel.getMinimalRelevance() + ":");
 		contentToWriteStep3
-				.append("Modelo vetorial mostrando os ")
+				.append("Modelo ").append(rankingModel.getDescription())
+				.append(" mostrando os ")
 				.append(METRIC_MAX_RESULTS)
 				.append(" documentos mais relevantes, com relevncia mnima de ")
-				.append(METRIC_MINIMAL_RELEVANCE).append(":\n");
+				.append(rankingModel.getMinimalRelevance()).append(":\n");
 		contentToWriteStep4
 				.append("Clculo de preciso e revocao por consulta:\n");
 
-		applyQueriesWithRelevance(vectorialModel, queriesList,
-				METRIC_MAX_RESULTS, METRIC_MINIMAL_RELEVANCE,
+		applyQueriesWithRelevance(rankingSearchModel, queriesList,
+				METRIC_MAX_RESULTS, rankingModel.getMinimalRelevance(),
 				contentToWriteStep3, contentToWriteStep4);
 
 		writeToFile(TEN_MOST_RELEVANT_RESULTS_FILE, contentToWriteStep3);
 		writeToFile(PRECISION_AND_RECALL_RESULTS_FILE, contentToWriteStep4);
+
+		if (cachingSearchModel != null) {
+			System.out.println("Cache de resultados: "
+					+ cachingSearchModel.getHits() + " acertos, "
+					+ cachingSearchModel.getMisses()
+					+ " faltas, taxa de acertos de "
+					+ cachingSearchModel.getHitRatio());
+			System.out.println("Cache de consultas booleanas: "
+					+ cachingBooleanModel.getHits() + " acertos, "
+					+ cachingBooleanModel.getMisses()
+					+ " faltas, taxa de acertos de "
+					+ cachingBooleanModel.getHitRatio());
+		}
 	}
 
 	/**
-	 * Aplica um modelo com relao a um conjunto de consultas
+	 * Aplica um modelo com relao a um conjunto de consultas, avaliadas em
+	 * lote
 	 * 
 	 * @param searchModel
 	 *            o modelo de consultas
@@ -166,16 +508,49 @@ public class DocumentsProcessor {
 	 */
 	private void applyQueries(SearchModel searchModel,
 			List<Document> queriesList, StringBuilder contentToWrite) {
+		List<List<Integer>> documentIndexesLists = searchModel
+				.processQueries(getQueriesTerms(queriesList));
+		for (int queryIndex = 0; queryIndex < queriesList.size(); queryIndex++) {
+			showResults(queriesList.get(queryIndex),
+					documentIndexesLists.get(queryIndex), contentToWrite);
+		}
+	}
+
+	/**
+	 * Aplica o modelo booleano a um conjunto de consultas, interpretando os
+	 * operadores AND, OR, NOT, os parnteses e as frases de cada consulta. Uma
+	 * consulta invlida  informada nos seus resultados, sem interromper as
+	 * demais
+	 * 
+	 * @param queriesList
+	 *            a lista de consultas
+	 * @param contentToWrite
+	 *            contedo a ser escrito no arquivo de log
+	 */
+	private void applyBooleanQueries(List<Document> queriesList,
+			StringBuilder contentToWrite) {
 		for (Document query : queriesList) {
-			List<Integer> documentIndexesList = searchModel.processQuery(query
-					.getTerms());
+			BooleanQuery booleanQuery;
+			try {
+				booleanQuery = booleanQueryParser.parse(query.getContent());
+			} catch (DocumentProcessorException e) {
+				System.out.println("\nA consulta '" + query.getContent()
+						+ "' no foi aplicada. " + e.getMessage());
+				contentToWrite.append("\n\nA consulta '")
+						.append(query.getContent())
+						.append("' no foi aplicada. ").append(e.getMessage());
+				continue;
+			}
+			List<Integer> documentIndexesList = cachingBooleanModel != null ? cachingBooleanModel
+					.processQuery(booleanQuery) : booleanModel
+					.processQuery(booleanQuery);
 			showResults(query, documentIndexesList, contentToWrite);
 		}
 	}
 
 	/**
-	 * Aplica um modelo com relao a um conjunto de consultas, retornando com
-	 * relevncia
+	 * Aplica um modelo com relao a um conjunto de consultas, avaliadas em
+	 * lote, retornando com relevncia
 	 * 
 	 * @param searchModel
 	 *            o modelo de consultas
@@ -193,16 +568,35 @@ public class DocumentsProcessor {
 	private void applyQueriesWithRelevance(SearchModel searchModel,
 			List<Document> queriesList, int threshold, double minimalRelevance,
 			StringBuilder contentToWriteStep3, StringBuilder contentToWriteStep4) {
-		for (Document query : queriesList) {
-			RelevanceSearchReturn relevanceSearchReturn = searchModel
-					.processQueryWithRelevance(query.getTerms(), threshold,
-							minimalRelevance);
+		List<RelevanceSearchReturn> relevanceSearchReturns = searchModel
+				.processQueriesWithRelevance(getQueriesTerms(queriesList),
+						threshold, minimalRelevance);
+		for (int queryIndex = 0; queryIndex < queriesList.size(); queryIndex++) {
+			Document query = queriesList.get(queryIndex);
+			RelevanceSearchReturn relevanceSearchReturn = relevanceSearchReturns
+					.get(queryIndex);
 			showResults(query, relevanceSearchReturn.getResultDocumentsList(),
 					contentToWriteStep3);
 			showMetrics(query, relevanceSearchReturn, contentToWriteStep4);
 		}
 	}
 
+	/**
+	 * Obtm os termos de cada consulta
+	 * 
+	 * @param queriesList
+	 *            a lista de consultas, j analisadas
+	 * @return lista de termos de cada consulta
+	 */
+	private List<List<String>> getQueriesTerms(List<Document> queriesList) {
+		List<List<String>> queriesTerms = new ArrayList<List<String>>(
+				queriesList.size());
+		for (Document query : queriesList) {
+			queriesTerms.add(query.getTerms());
+		}
+		return queriesTerms;
+	}
+
 	/**
 	 * Exibe resultados da consulta
 	 * 
@@ -220,10 +614,30 @@ public class DocumentsProcessor {
 		contentToWrite.append("\n\nA consulta '").append(query.getContent())
 				.append("' retornou os seguintes documentos:");
 		for (Integer documentIndex : documentIndexesList) {
-			System.out.println(">> "+documentsList.get(documentIndex).toString(100));
+			Document document = readDocument(documentIndex);
+			System.out.println(">> "+document.toString(100));
 			contentToWrite.append("\n>> ")
-					.append(documentsList.get(documentIndex).toString(300));
+					.append(document.toString(300));
+		}
+	}
+
+	/**
+	 * L um documento do arquivo de documentos do seu segmento, ou o seu
+	 * contedo atualizado
+	 * 
+	 * @param documentIndex
+	 *            ndice do documento no ndice segmentado
+	 * @return o documento, com o ndice no ndice segmentado
+	 */
+	private Document readDocument(int documentIndex) {
+		String updatedContent = updatedContentsMap.get(documentIndex);
+		if (updatedContent != null) {
+			return new Document(updatedContent, documentIndex);
 		}
+		Map.Entry<Integer, MappedCorpus> entry = corporaMap
+				.floorEntry(documentIndex);
+		return new Document(entry.getValue().getContent(
+				documentIndex - entry.getKey()), documentIndex);
 	}
 
 	/**
@@ -268,195 +682,98 @@ public class DocumentsProcessor {
 	 */
 	private List<Document> prepareDocumentsList(String fileName, String encoding)
 			throws DocumentProcessorException {
-		List<Document> documentsList = loadDocuments(fileName, encoding);
-		preProcessDocuments(documentsList);
-		removeStopwords(documentsList);
-		stemDocuments(documentsList);
+		MappedCorpus corpus = loadCorpus(fileName, encoding);
+		List<Document> documentsList = new ArrayList<Document>();
+		for (int documentIndex = 0; documentIndex < corpus.getDocumentsTotal(); documentIndex++) {
+			documentsList.add(corpus.readDocument(documentIndex));
+		}
+		documentAnalyzer.analyzeDocuments(documentsList);
 		return documentsList;
 	}
 
 	/**
-	 * L o arquivo e converte numa lista de documentos
+	 * Mapeia o arquivo em memria, registrando a posio de cada documento
 	 * 
 	 * @param fileName
 	 *            nome do arquivo
-	 * @return a lista de documentos
+	 * @param encoding
+	 *            codificao
+	 * @return o arquivo de documentos mapeado
 	 * @throws DocumentProcessorException
 	 */
-	private List<Document> loadDocuments(String fileName, String encoding)
+	private MappedCorpus loadCorpus(String fileName, String encoding)
 			throws DocumentProcessorException {
-		List<Document> documentsList = new ArrayList<Document>();
-
 		try {
-			Charset charset = Charset.forName(encoding);
-			BufferedReader reader = new BufferedReader(new InputStreamReader(
-					new FileInputStream(fileName), charset));
-			String fileLine = null;
-			while ((fileLine = reader.readLine()) != null) {
-				documentsList.add(new Document(fileLine.trim(), documentsList
-						.size()));
-			}
+			MappedCorpus corpus = new MappedCorpus(fileName,
+					Charset.forName(encoding));
 			System.out.println("Leu, na codificacao " + encoding
 					+ ", o arquivo: " + fileName);
+			return corpus;
 		} catch (FileNotFoundException e) {
 			throw new DocumentProcessorException(MESSAGE_FILE_NOT_FOUND, e);
 		} catch (IOException e) {
 			throw new DocumentProcessorException(MESSAGE_READING_ERROR, e);
 		}
-
-		return documentsList;
 	}
 
 	/**
-	 * Realiza o pr-processamento em cada documento, removendo caracteres
-	 * especiais, caracteres acentuados e substituindo caracteres maisculos por
-	 * minsculos.
+	 * Cria o ndice invertido, com os postings de cada termo. Os documentos so
+	 * lidos e analisados em lotes, e descartados assim que indexados.
 	 * 
-	 * @param documentsList
-	 *            lista de documentos
+	 * @throws DocumentProcessorException
 	 */
-	private void preProcessDocuments(List<Document> documentsList) {
-		for (Document document : documentsList) {
-			String content = document.getContent();
-
-			// Remoo de nmeros sozinhos
-			String preProcessedContent = content.replaceAll("\\d+", " ");
-
-			// Substituio de caracteres acentuados
-			preProcessedContent = Normalizer.normalize(preProcessedContent,
-					Normalizer.Form.NFD).replaceAll(
-					"\\p{InCombiningDiacriticalMarks}+", "");
-
-			// Remoo de caracteres especiais
-			preProcessedContent = preProcessedContent
-					.replaceAll(
-							"[\\Q.,;:?=/\\!*&%$#(){}[]<>\"'-_+@|~\\E]",
-							" ");
-
-			// Remoo de caracteres no-reconhecidos
-			preProcessedContent = preProcessedContent.replaceAll("\\W", " ");
+	private void createInvertedIndex() throws DocumentProcessorException {
+		invertedIndex = indexDocuments(documentsCorpus);
 
-			// Remoo de palavras menores que 2 caracteres
-			preProcessedContent = preProcessedContent.replaceAll("\\s\\w?\\s",
-					" ");
-
-			// Substituio de caracteres maisculos por minsculos
-			preProcessedContent = preProcessedContent.toLowerCase();
-
-			// Substituio de mltiplos espaos por apenas um espao
-			preProcessedContent = preProcessedContent.replaceAll("\\s+", " ");
-
-			document.setTerms(new ArrayList<String>(Arrays
-					.asList(preProcessedContent.split(" "))));
-		}
-	}
-
-	/**
-	 * Remove as stopwords de cada documento.
-	 * 
-	 * @param documentsList
-	 *            lista de documentos
-	 */
-	private void removeStopwords(List<Document> documentsList) {
-		for (Document document : documentsList) {
-			List<String> termsList = document.getTerms();
-			for (int termIndex = 0; termIndex < termsList.size(); termIndex++) {
-				String term = termsList.get(termIndex);
-				for (String stopword : stopwordsList) {
-					if (term.equals(stopword)) {
-						termsList.remove(termIndex);
-						break;
-					}
+		// Log
+		StringBuilder contentToWriteStep1 = new StringBuilder();
+		contentToWriteStep1.append("O ndice invertido foi criado:\n");
+		for (int termIndex = 0; termIndex < invertedIndex.getTermsTotal(); termIndex++) {
+			IntBuffer documents = invertedIndex.getDocuments(termIndex);
+			IntBuffer frequencies = invertedIndex.getFrequencies(termIndex);
+			contentToWriteStep1.append(invertedIndex.getTerm(termIndex))
+					.append("={");
+			for (int postingIndex = 0; postingIndex < documents.limit(); postingIndex++) {
+				contentToWriteStep1.append(documents.get(postingIndex))
+						.append(":").append(frequencies.get(postingIndex));
+
+				if (postingIndex < documents.limit() - 1) {
+					contentToWriteStep1.append(",");
 				}
 			}
+			contentToWriteStep1.append("}\n");
 		}
 
+		writeToFile(INVERTED_INDEX_RESULTS_FILE, contentToWriteStep1);
 	}
 
 	/**
-	 * Realiza o processo de stemming em cada documento
-	 * 
-	 * @param documentsList
-	 *            lista de documentos
-	 */
-	private void stemDocuments(List<Document> documentsList) {
-		SnowballStemmer stemmer = new englishStemmer();
-
-		for (Document document : documentsList) {
-			List<String> termsList = document.getTerms();
-			for (int termIndex = 0; termIndex < termsList.size(); termIndex++) {
-				stemmer.setCurrent(termsList.get(termIndex));
-				stemmer.stem();
-				termsList.set(termIndex, stemmer.getCurrent());
-			}
-		}
-	}
-
-	/**
-	 * Cria a matriz de termos x documentos
+	 * Indexa os documentos de um arquivo, que so lidos e analisados em lotes,
+	 * e descartados assim que indexados
 	 * 
-	 * @return um array de objetos contendo a matriz de termos x documentos na
-	 *         primeira posio e o mapa de ndice de termos na segunda posio
-	 * @throws DocumentProcessorException
+	 * @param corpus
+	 *            o arquivo de documentos mapeado
+	 * @return o ndice invertido dos documentos
 	 */
-	private void createTermDocumentMatrix() throws DocumentProcessorException {
-		StringBuilder contentToWriteStep1 = new StringBuilder();
-		contentToWriteStep1
-				.append("A matriz de termos x documentos foi criada:\n");
-
-		List<List<Integer>> termDocumentMatrixBuilderList = new ArrayList<List<Integer>>();
-		termsIndexMap = new WeakHashMap<String, Integer>();
-
-		// Cria a lista auxiliadora da construo da matriz de termos x
-		// documentos e o mapa de ndice de termos
-		for (int documentIndex = 0; documentIndex < documentsList.size(); documentIndex++) {
-			List<String> termsList = documentsList.get(documentIndex)
-					.getTerms();
-			for (String term : termsList) {
-				if (termsIndexMap.containsKey(term) == false) {
-					List<Integer> documentsForTermList = new ArrayList<Integer>();
-					documentsForTermList.add(documentIndex);
-					termDocumentMatrixBuilderList.add(documentsForTermList);
-
-					termsIndexMap.put(term,
-							termDocumentMatrixBuilderList.size() - 1);
-				} else {
-					termDocumentMatrixBuilderList.get(termsIndexMap.get(term))
-							.add(documentIndex);
-				}
-			}
-		}
-
-		// Cria a matriz de termos x documentos
-		termDocumentMatrix = new int[termDocumentMatrixBuilderList.size()][documentsList
-				.size()];
-
-		for (int rowIndex = 0; rowIndex < termDocumentMatrixBuilderList.size(); rowIndex++) {
-			List<Integer> documentsForTermList = termDocumentMatrixBuilderList
-					.get(rowIndex);
-			for (int colIndex = 0; colIndex < documentsForTermList.size(); colIndex++) {
-				int documentIndex = documentsForTermList.get(colIndex);
-				termDocumentMatrix[rowIndex][documentIndex]++;
+	private InvertedIndex indexDocuments(MappedCorpus corpus) {
+		InvertedIndexBuilder invertedIndexBuilder = new InvertedIndexBuilder();
+		int documentsTotal = corpus.getDocumentsTotal();
+		for (int batchStart = 0; batchStart < documentsTotal; batchStart += INDEXING_BATCH_SIZE) {
+			int batchEnd = Math.min(batchStart + INDEXING_BATCH_SIZE,
+					documentsTotal);
+			List<Document> documentsList = new ArrayList<Document>(batchEnd
+					- batchStart);
+			for (int documentIndex = batchStart; documentIndex < batchEnd; documentIndex++) {
+				documentsList.add(corpus.readDocument(documentIndex));
 			}
-		}
 
-		// Log
-		for (int rowIndex = 0; rowIndex < termDocumentMatrix.length; rowIndex++) {
-			int[] row = termDocumentMatrix[rowIndex];
-			contentToWriteStep1.append("termDocumentMatrix[").append(rowIndex)
-					.append("]={");
-			for (int colIndex = 0; colIndex < row.length; colIndex++) {
-				contentToWriteStep1
-						.append(termDocumentMatrix[rowIndex][colIndex]);
-
-				if (colIndex < row.length - 1) {
-					contentToWriteStep1.append(",");
-				}
+			documentAnalyzer.analyzeDocuments(documentsList);
+			for (Document document : documentsList) {
+				invertedIndexBuilder.addDocument(document.getIndex(),
+						document.getTerms(), document.getPositions());
 			}
-			contentToWriteStep1.append("}\n");
 		}
-
-		writeToFile(TERM_DOCUMENT_MATRIX_RESULTS_FILE, contentToWriteStep1);
+		return invertedIndexBuilder.build();
 	}
 
 	/**
@@ -0,0 +1,281 @@
+package br.edu.pucminas.riw;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Codificao Elias-Fano: cada valor de uma sequncia crescente de n valores
+ * menores que u  dividido em l = piso(log2(u / n)) bits baixos, guardados
+ * lado a lado, e bits altos, guardados em unrio como um bit ligado na posio
+ * (bits altos + ndice do valor) de um vetor de n + u / 2^l bits. O tamanho
+ * fica perto de 2 + log2(u / n) bits por valor, sem depender da distribuio
+ * das diferenas.
+ *
+ * Os documentos so codificados diretamente; as frequncias no so
+ * crescentes, e por isso  codificada a sua soma acumulada, que 
+ * estritamente crescente. A posio no vetor de bits altos do primeiro valor
+ * de cada bloco  guardada, para que um bloco seja decodificado sem percorrer
+ * os anteriores.
+ *
+ * Como a maioria dos termos aparece em poucos documentos, os vetores de bits
+ * so guardados em bytes, e no em palavras de 64 bits, e o cabealho de cada
+ * sequncia  s a largura dos bits baixos e o tamanho do vetor de bits
+ * altos; as posies e as somas de frequncias do primeiro bloco, que so
+ * sempre 0, no so gravadas.
+ */
+public class EliasFanoCodec implements PostingsCodec {
+
+	@Override
+	public String getName() {
+		return "eliasfano";
+	}
+
+	@Override
+	public EncodedPostings encode(int[] documents, int[] frequencies) {
+		return new EliasFanoPostings(documents, frequencies);
+	}
+
+	@Override
+	public EncodedPostings read(ByteBuffer buffer) {
+		return new EliasFanoPostings(buffer);
+	}
+
+	private static class EliasFanoPostings extends EncodedPostings {
+		private EliasFanoSequence documentsSequence;
+		private EliasFanoSequence frequenciesSequence;
+
+		// Soma das frequncias anteriores a cada bloco
+		private int[] blocksFrequencies;
+
+		public EliasFanoPostings(int[] documents, int[] frequencies) {
+			super(documents);
+			documentsSequence = new EliasFanoSequence(documents);
+
+			int[] accumulatedFrequencies = new int[frequencies.length];
+			blocksFrequencies = new int[getBlocksTotal(frequencies.length)];
+			int accumulatedFrequency = 0;
+			for (int postingIndex = 0; postingIndex < frequencies.length; postingIndex++) {
+				if (postingIndex % PostingsIterator.BLOCK_SIZE == 0) {
+					blocksFrequencies[postingIndex
+							/ PostingsIterator.BLOCK_SIZE] = accumulatedFrequency;
+				}
+				accumulatedFrequency += frequencies[postingIndex];
+				accumulatedFrequencies[postingIndex] = accumulatedFrequency;
+			}
+			frequenciesSequence = new EliasFanoSequence(accumulatedFrequencies);
+		}
+
+		public EliasFanoPostings(ByteBuffer buffer) {
+			super(buffer);
+			documentsSequence = new EliasFanoSequence(buffer, size());
+			frequenciesSequence = new EliasFanoSequence(buffer, size());
+			blocksFrequencies = readBlocksTable(buffer, getBlocksTotal(size()));
+		}
+
+		@Override
+		protected void writeData(DataOutputStream output) throws IOException {
+			documentsSequence.write(output);
+			frequenciesSequence.write(output);
+			writeBlocksTable(output, blocksFrequencies);
+		}
+
+		@Override
+		public PostingsIterator iterator() {
+			return new PostingsIterator(size(), getLastDocuments()) {
+				@Override
+				protected void decodeBlock(int blockIndex, int blockSize,
+						int[] documents, int[] frequencies) {
+					documentsSequence.decodeBlock(blockIndex, blockSize,
+							documents);
+					frequenciesSequence.decodeBlock(blockIndex, blockSize,
+							frequencies);
+
+					int accumulatedFrequency = blocksFrequencies[blockIndex];
+					for (int position = 0; position < blockSize; position++) {
+						int frequency = frequencies[position]
+								- accumulatedFrequency;
+						accumulatedFrequency = frequencies[position];
+						frequencies[position] = frequency;
+					}
+				}
+			};
+		}
+
+		@Override
+		protected long getDataSizeInBytes() {
+			return documentsSequence.getSizeInBytes()
+					+ frequenciesSequence.getSizeInBytes()
+					+ (blocksFrequencies.length - 1) * 4L;
+		}
+	}
+
+	/**
+	 * Sequncia crescente de inteiros no negativos codificada em Elias-Fano,
+	 * com os vetores de bits guardados em bytes, o bit i no bit (i % 8) do
+	 * byte i / 8
+	 */
+	private static class EliasFanoSequence {
+		private int lowBitsWidth;
+		private ByteBuffer lowBits;
+		private ByteBuffer highBits;
+
+		// Posio no vetor de bits altos do primeiro valor de cada bloco, ou 0
+		// no primeiro bloco, cujo primeiro valor  o primeiro bit ligado
+		private int[] blocksHighPositions;
+
+		public EliasFanoSequence(int[] values) {
+			int size = values.length;
+			long universe = (long) values[size - 1] + 1;
+			lowBitsWidth = universe > size ? 63 - Long
+					.numberOfLeadingZeros(universe / size) : 0;
+
+			byte[] low = new byte[getBytesTotal(size * (long) lowBitsWidth)];
+			byte[] high = new byte[getBytesTotal(size
+					+ ((universe - 1) >>> lowBitsWidth))];
+			blocksHighPositions = new int[EncodedPostings.getBlocksTotal(size)];
+			long lowMask = (1L << lowBitsWidth) - 1;
+			for (int index = 0; index < size; index++) {
+				long bit = (long) index * lowBitsWidth;
+				long lowValue = values[index] & lowMask;
+				for (int written = 0; written < lowBitsWidth; written += 8
+						- (int) ((bit + written) & 7)) {
+					low[(int) ((bit + written) >>> 3)] |= (byte) ((lowValue >>> written) << ((bit + written) & 7));
+				}
+				int highPosition = (values[index] >>> lowBitsWidth) + index;
+				high[highPosition >>> 3] |= (byte) (1 << (highPosition & 7));
+				if (index % PostingsIterator.BLOCK_SIZE == 0 && index > 0) {
+					blocksHighPositions[index / PostingsIterator.BLOCK_SIZE] = highPosition;
+				}
+			}
+			lowBits = ByteBuffer.wrap(low);
+			highBits = ByteBuffer.wrap(high);
+		}
+
+		/**
+		 * L a sequncia gravada por {@link #write(DataOutputStream)}
+		 *
+		 * @param buffer
+		 *            o buffer, posicionado no incio da sequncia
+		 * @param size
+		 *            quantidade de valores
+		 */
+		public EliasFanoSequence(ByteBuffer buffer, int size) {
+			lowBitsWidth = buffer.get();
+			lowBits = EncodedPostings.getBytes(buffer,
+					getBytesTotal(size * (long) lowBitsWidth));
+			highBits = EncodedPostings.getBytes(buffer,
+					readVariableByte(buffer));
+			blocksHighPositions = readBlocksTable(buffer,
+					EncodedPostings.getBlocksTotal(size));
+		}
+
+		public void write(DataOutputStream output) throws IOException {
+			output.writeByte(lowBitsWidth);
+			EncodedPostings.writeBytes(output, lowBits);
+			writeVariableByte(output, highBits.limit());
+			EncodedPostings.writeBytes(output, highBits);
+			writeBlocksTable(output, blocksHighPositions);
+		}
+
+		/**
+		 * Decodifica os valores de um bloco
+		 *
+		 * @param blockIndex
+		 *            ndice do bloco
+		 * @param blockSize
+		 *            quantidade de valores do bloco
+		 * @param values
+		 *            destino dos valores
+		 */
+		public void decodeBlock(int blockIndex, int blockSize, int[] values) {
+			int start = blockIndex * PostingsIterator.BLOCK_SIZE;
+			int highPosition = blocksHighPositions[blockIndex];
+			int byteIndex = highPosition >>> 3;
+			// Bits altos ainda no lidos do byte corrente
+			int word = highBits.get(byteIndex) & (0xFF << (highPosition & 7))
+					& 0xFF;
+			long lowMask = (1L << lowBitsWidth) - 1;
+			for (int position = 0; position < blockSize; position++) {
+				while (word == 0) {
+					word = highBits.get(++byteIndex) & 0xFF;
+				}
+				highPosition = (byteIndex << 3)
+						+ Integer.numberOfTrailingZeros(word);
+				word &= word - 1;
+
+				int index = start + position;
+				int value = (highPosition - index) << lowBitsWidth;
+				if (lowBitsWidth > 0) {
+					long bit = (long) index * lowBitsWidth;
+					int lowByteIndex = (int) (bit >>> 3);
+					int shift = (int) (bit & 7);
+					long low = 0;
+					for (int read = 0; read < shift + lowBitsWidth; read += 8) {
+						low |= (lowBits.get(lowByteIndex++) & 0xFFL) << read;
+					}
+					value |= (int) ((low >>> shift) & lowMask);
+				}
+				values[position] = value;
+			}
+		}
+
+		public long getSizeInBytes() {
+			return 1 + lowBits.limit() + getVariableByteSize(highBits.limit())
+					+ highBits.limit() + (blocksHighPositions.length - 1) * 4L;
+		}
+
+		private static int getBytesTotal(long bits) {
+			return (int) ((bits + 7) >>> 3);
+		}
+	}
+
+	/**
+	 * Grava uma tabela com um valor por bloco, sem o do primeiro bloco, que 
+	 * sempre 0
+	 */
+	private static void writeBlocksTable(DataOutputStream output, int[] table)
+			throws IOException {
+		for (int blockIndex = 1; blockIndex < table.length; blockIndex++) {
+			output.writeInt(table[blockIndex]);
+		}
+	}
+
+	private static int[] readBlocksTable(ByteBuffer buffer, int blocksTotal) {
+		int[] table = new int[blocksTotal];
+		for (int blockIndex = 1; blockIndex < blocksTotal; blockIndex++) {
+			table[blockIndex] = buffer.getInt();
+		}
+		return table;
+	}
+
+	private static void writeVariableByte(DataOutputStream output, int number)
+			throws IOException {
+		while ((number & ~0x7F) != 0) {
+			output.writeByte((number & 0x7F) | 0x80);
+			number >>>= 7;
+		}
+		output.writeByte(number);
+	}
+
+	private static int readVariableByte(ByteBuffer buffer) {
+		int number = 0;
+		int shift = 0;
+		byte value;
+		do {
+			value = buffer.get();
+			number |= (value & 0x7F) << shift;
+			shift += 7;
+		} while (value < 0);
+		return number;
+	}
+
+	private static int getVariableByteSize(int number) {
+		int size = 1;
+		while ((number & ~0x7F) != 0) {
+			number >>>= 7;
+			size++;
+		}
+		return size;
+	}
+}
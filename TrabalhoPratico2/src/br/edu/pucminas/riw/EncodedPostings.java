@@ -0,0 +1,189 @@
+package br.edu.pucminas.riw;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Postings de um termo codificados por um {@link PostingsCodec}, divididos em
+ * blocos de {@link PostingsIterator#BLOCK_SIZE} postings. Alm dos dados de
+ * cada codificao,  guardado o ltimo documento de cada bloco, que permite
+ * saltar blocos na busca de um documento.
+ *
+ * Os postings codificados podem ser gravados e lidos de volta pela mesma
+ * codificao, como no {@link InvertedIndexFile}. Na leitura, os dados da
+ * codificao so vises do buffer lido, e no cpias, para que os postings
+ * de um arquivo mapeado continuem no mapeamento.
+ */
+public abstract class EncodedPostings {
+	private int size;
+	private int[] lastDocuments;
+
+	/**
+	 * Guarda a quantidade de postings e o ltimo documento de cada bloco
+	 *
+	 * @param documents
+	 *            os documentos, em ordem crescente
+	 */
+	protected EncodedPostings(int[] documents) {
+		size = documents.length;
+		lastDocuments = new int[getBlocksTotal(size)];
+		for (int blockIndex = 0; blockIndex < lastDocuments.length; blockIndex++) {
+			lastDocuments[blockIndex] = documents[Math.min(size,
+					(blockIndex + 1) * PostingsIterator.BLOCK_SIZE) - 1];
+		}
+	}
+
+	/**
+	 * L a quantidade de postings e o ltimo documento de cada bloco,
+	 * gravados por {@link #write(DataOutputStream)}; a posio do buffer
+	 * avana at os dados da codificao
+	 *
+	 * @param buffer
+	 *            o buffer, posicionado no incio dos postings
+	 */
+	protected EncodedPostings(ByteBuffer buffer) {
+		size = buffer.getInt();
+		lastDocuments = readInts(buffer, getBlocksTotal(size));
+	}
+
+	/**
+	 * Grava os postings codificados, que so lidos de volta por
+	 * {@link PostingsCodec#read(ByteBuffer)}
+	 *
+	 * @param output
+	 *            destino da gravao
+	 * @throws IOException
+	 */
+	public void write(DataOutputStream output) throws IOException {
+		output.writeInt(size);
+		writeInts(output, lastDocuments);
+		writeData(output);
+	}
+
+	/**
+	 * Quantidade de postings
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Obtm o tamanho dos postings codificados, incluindo a tabela de saltos
+	 *
+	 * @return o tamanho em bytes
+	 */
+	public long getSizeInBytes() {
+		return getDataSizeInBytes() + lastDocuments.length * 4L;
+	}
+
+	/**
+	 * Cria um iterador sobre os postings
+	 *
+	 * @return o iterador, posicionado antes do primeiro documento
+	 */
+	public abstract PostingsIterator iterator();
+
+	/**
+	 * Obtm o tamanho dos dados da codificao, sem a tabela de saltos
+	 *
+	 * @return o tamanho em bytes
+	 */
+	protected abstract long getDataSizeInBytes();
+
+	/**
+	 * Grava os dados da codificao, sem a tabela de saltos
+	 *
+	 * @param output
+	 *            destino da gravao
+	 * @throws IOException
+	 */
+	protected abstract void writeData(DataOutputStream output)
+			throws IOException;
+
+	protected int[] getLastDocuments() {
+		return lastDocuments;
+	}
+
+	/**
+	 * Obtm o documento que antecede um bloco, a base das diferenas do
+	 * primeiro documento do bloco
+	 *
+	 * @param blockIndex
+	 *            ndice do bloco
+	 * @return o ltimo documento do bloco anterior, ou 0 no primeiro bloco
+	 */
+	protected int getBaseDocument(int blockIndex) {
+		return blockIndex == 0 ? 0 : lastDocuments[blockIndex - 1];
+	}
+
+	protected static int getBlocksTotal(int size) {
+		return (size + PostingsIterator.BLOCK_SIZE - 1)
+				/ PostingsIterator.BLOCK_SIZE;
+	}
+
+	protected static int[] readInts(ByteBuffer buffer, int size) {
+		int[] values = new int[size];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + size * 4);
+		return values;
+	}
+
+	protected static long[] readLongs(ByteBuffer buffer, int size) {
+		long[] values = new long[size];
+		buffer.asLongBuffer().get(values);
+		buffer.position(buffer.position() + size * 8);
+		return values;
+	}
+
+	/**
+	 * Obtm uma viso dos prximos inteiros do buffer, sem copi-los; a
+	 * posio do buffer avana at o fim deles
+	 */
+	protected static IntBuffer getInts(ByteBuffer buffer, int size) {
+		IntBuffer values = buffer.slice().asIntBuffer();
+		values.limit(size);
+		buffer.position(buffer.position() + size * 4);
+		return values.slice();
+	}
+
+	/**
+	 * Obtm uma viso dos prximos bytes do buffer, sem copi-los; a posio
+	 * do buffer avana at o fim deles
+	 */
+	protected static ByteBuffer getBytes(ByteBuffer buffer, int size) {
+		ByteBuffer values = buffer.slice();
+		values.limit(size);
+		buffer.position(buffer.position() + size);
+		return values.slice();
+	}
+
+	protected static void writeInts(DataOutputStream output, IntBuffer values)
+			throws IOException {
+		for (int index = 0; index < values.limit(); index++) {
+			output.writeInt(values.get(index));
+		}
+	}
+
+	protected static void writeBytes(DataOutputStream output, ByteBuffer values)
+			throws IOException {
+		for (int index = 0; index < values.limit(); index++) {
+			output.writeByte(values.get(index));
+		}
+	}
+
+	protected static void writeInts(DataOutputStream output, int[] values)
+			throws IOException {
+		for (int value : values) {
+			output.writeInt(value);
+		}
+	}
+
+	protected static void writeLongs(DataOutputStream output, long[] values)
+			throws IOException {
+		for (long value : values) {
+			output.writeLong(value);
+		}
+	}
+}
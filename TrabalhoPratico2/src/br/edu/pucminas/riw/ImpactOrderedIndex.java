@@ -0,0 +1,167 @@
+package br.edu.pucminas.riw;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * ndice ordenado por impacto: cada posting guarda, no lugar da frequncia, o
+ * seu impacto, ou seja, a sua contribuio  pontuao do documento,
+ * quantizado em um inteiro de poucos bits. Os postings de cada termo ficam
+ * ordenados por impacto decrescente e agrupados em segmentos de mesmo impacto,
+ * com os documentos de cada segmento em ordem crescente.
+ */
+public class ImpactOrderedIndex {
+	private int maximumImpact;
+	private double impactScale;
+
+	private int[][] documentsPostings;
+	private int[][] segmentsImpacts;
+	private int[][] segmentsEnds;
+
+	/**
+	 * Cria o ndice a partir dos impactos reais dos postings
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param impactsPostings
+	 *            impacto de cada posting de cada termo, na ordem dos postings
+	 *            do ndice invertido
+	 * @param bits
+	 *            bits da quantizao, de 1 a 15, para que o produto de dois
+	 *            impactos caiba em um int
+	 */
+	public ImpactOrderedIndex(InvertedIndex invertedIndex,
+			double[][] impactsPostings, int bits) {
+		if (bits < 1 || bits > 15) {
+			throw new IllegalArgumentException("Quantizao invlida: " + bits
+					+ " bits");
+		}
+		maximumImpact = (1 << bits) - 1;
+
+		// A quantizao  linear, do zero at o maior impacto do ndice
+		double largestImpact = 0;
+		for (double[] impacts : impactsPostings) {
+			for (double impact : impacts) {
+				largestImpact = Math.max(largestImpact, impact);
+			}
+		}
+		impactScale = largestImpact > 0 ? largestImpact / maximumImpact : 1;
+
+		int termsTotal = invertedIndex.getTermsTotal();
+		documentsPostings = new int[termsTotal][];
+		segmentsImpacts = new int[termsTotal][];
+		segmentsEnds = new int[termsTotal][];
+		for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+			createPostings(termIndex, invertedIndex.getDocuments(termIndex),
+					impactsPostings[termIndex]);
+		}
+	}
+
+	/**
+	 * Ordena os postings do termo por impacto quantizado decrescente e, no
+	 * empate, por documento. Postings de impacto zero so descartados.
+	 */
+	private void createPostings(int termIndex, IntBuffer documents,
+			double[] impacts) {
+		long[] keys = new long[impacts.length];
+		int size = 0;
+		for (int postingIndex = 0; postingIndex < impacts.length; postingIndex++) {
+			int impact = quantize(impacts[postingIndex]);
+			if (impact > 0) {
+				keys[size++] = ((long) (maximumImpact - impact) << 32)
+						| documents.get(postingIndex);
+			}
+		}
+		Arrays.sort(keys, 0, size);
+
+		int[] sortedDocuments = new int[size];
+		int[] impactsOfSegments = new int[Math.min(size, maximumImpact)];
+		int[] endsOfSegments = new int[impactsOfSegments.length];
+		int segmentsSize = 0;
+		for (int position = 0; position < size; position++) {
+			int impact = maximumImpact - (int) (keys[position] >>> 32);
+			sortedDocuments[position] = (int) keys[position];
+			if (segmentsSize == 0
+					|| impactsOfSegments[segmentsSize - 1] != impact) {
+				impactsOfSegments[segmentsSize++] = impact;
+			}
+			endsOfSegments[segmentsSize - 1] = position + 1;
+		}
+
+		documentsPostings[termIndex] = sortedDocuments;
+		segmentsImpacts[termIndex] = Arrays.copyOf(impactsOfSegments,
+				segmentsSize);
+		segmentsEnds[termIndex] = Arrays.copyOf(endsOfSegments, segmentsSize);
+	}
+
+	private int quantize(double impact) {
+		if ((impact > 0) == false) {
+			return 0;
+		}
+		return Math.max(1,
+				Math.min(maximumImpact, (int) Math.round(impact / impactScale)));
+	}
+
+	/**
+	 * Obtm o maior impacto quantizado possvel
+	 *
+	 * @return 2^bits - 1
+	 */
+	public int getMaximumImpact() {
+		return maximumImpact;
+	}
+
+	/**
+	 * Obtm o valor real de uma unidade de impacto quantizado
+	 *
+	 * @return o fator que converte impactos quantizados em impactos reais
+	 */
+	public double getImpactScale() {
+		return impactScale;
+	}
+
+	/**
+	 * Obtm os documentos do termo, por impacto decrescente. O array retornado
+	 * no deve ser alterado.
+	 *
+	 * @param termIndex
+	 *            ndice do termo
+	 * @return os ndices dos documentos
+	 */
+	public int[] getDocuments(int termIndex) {
+		return documentsPostings[termIndex];
+	}
+
+	public int getSegmentsTotal(int termIndex) {
+		return segmentsImpacts[termIndex].length;
+	}
+
+	/**
+	 * Obtm o impacto quantizado dos postings do segmento
+	 *
+	 * @param termIndex
+	 *            ndice do termo
+	 * @param segmentIndex
+	 *            ndice do segmento, em ordem decrescente de impacto
+	 * @return o impacto do segmento
+	 */
+	public int getSegmentImpact(int termIndex, int segmentIndex) {
+		return segmentsImpacts[termIndex][segmentIndex];
+	}
+
+	/**
+	 * Obtm a posio do primeiro posting do segmento em
+	 * {@link #getDocuments(int)}
+	 */
+	public int getSegmentStart(int termIndex, int segmentIndex) {
+		return segmentIndex > 0 ? segmentsEnds[termIndex][segmentIndex - 1] : 0;
+	}
+
+	/**
+	 * Obtm a posio seguinte ao ltimo posting do segmento em
+	 * {@link #getDocuments(int)}
+	 */
+	public int getSegmentEnd(int termIndex, int segmentIndex) {
+		return segmentsEnds[termIndex][segmentIndex];
+	}
+}
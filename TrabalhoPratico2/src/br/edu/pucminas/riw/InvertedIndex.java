@@ -0,0 +1,271 @@
+package br.edu.pucminas.riw;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * ndice invertido: para cada termo, a lista ordenada de documentos em que ele
+ * ocorre e a frequncia do termo em cada um deles. O consumo de memria cresce
+ * com o nmero de postings, e no com termos x documentos. O tamanho de cada
+ * documento, em termos, tambm  guardado.
+ *
+ * Cada posting guarda ainda as posies do termo no documento, codificadas
+ * como diferenas entre posies consecutivas em bytes de tamanho varivel,
+ * para as consultas por frase e por proximidade.
+ *
+ * O vocabulrio fica em um {@link TermDictionary}, que guarda os termos
+ * ordenados e codificados por prefixo, e permite percorr-los por intervalo ou
+ * por prefixo.
+ *
+ * Os postings so lidos de buffers por posio, para que o ndice lido de um
+ * arquivo use diretamente as sees mapeadas em memria, sem copi-las; o
+ * ndice criado na indexao usa buffers sobre os seus arrays. No ndice
+ * gravado com uma codificao, os documentos e as frequncias de um termo
+ * ficam codificados no mapeamento e so decodificados a cada leitura.
+ */
+public class InvertedIndex implements CollectionStatistics {
+	private TermDictionary termDictionary;
+	// Nulos quando os postings esto codificados
+	private IntBuffer[] documentsPostings;
+	private IntBuffer[] frequenciesPostings;
+	// Nulo quando os postings no esto codificados
+	private EncodedPostings[] encodedPostings;
+	private ByteBuffer[] positionsPostings;
+	private IntBuffer[] positionsOffsetsPostings;
+	private int[] documentLengths;
+	private int documentsTotal;
+	private double averageDocumentLength;
+
+	InvertedIndex(TermDictionary termDictionary, int[][] documentsPostings,
+			int[][] frequenciesPostings, byte[][] positionsPostings,
+			int[][] positionsOffsetsPostings, int[] documentLengths) {
+		this(termDictionary, wrap(documentsPostings),
+				wrap(frequenciesPostings), wrap(positionsPostings),
+				wrap(positionsOffsetsPostings), documentLengths);
+	}
+
+	/**
+	 * Cria o ndice sobre os postings de cada termo, lidos por posio
+	 */
+	InvertedIndex(TermDictionary termDictionary,
+			IntBuffer[] documentsPostings, IntBuffer[] frequenciesPostings,
+			ByteBuffer[] positionsPostings,
+			IntBuffer[] positionsOffsetsPostings, int[] documentLengths) {
+		this(termDictionary, positionsPostings, positionsOffsetsPostings,
+				documentLengths);
+		this.documentsPostings = documentsPostings;
+		this.frequenciesPostings = frequenciesPostings;
+	}
+
+	/**
+	 * Cria o ndice sobre os documentos e as frequncias codificados de cada
+	 * termo
+	 */
+	InvertedIndex(TermDictionary termDictionary,
+			EncodedPostings[] encodedPostings, ByteBuffer[] positionsPostings,
+			IntBuffer[] positionsOffsetsPostings, int[] documentLengths) {
+		this(termDictionary, positionsPostings, positionsOffsetsPostings,
+				documentLengths);
+		this.encodedPostings = encodedPostings;
+	}
+
+	private InvertedIndex(TermDictionary termDictionary,
+			ByteBuffer[] positionsPostings,
+			IntBuffer[] positionsOffsetsPostings, int[] documentLengths) {
+		this.termDictionary = termDictionary;
+		this.positionsPostings = positionsPostings;
+		this.positionsOffsetsPostings = positionsOffsetsPostings;
+		this.documentLengths = documentLengths;
+		this.documentsTotal = documentLengths.length;
+
+		long lengthsTotal = 0;
+		for (int length : documentLengths) {
+			lengthsTotal += length;
+		}
+		averageDocumentLength = documentsTotal > 0 ? ((double) lengthsTotal)
+				/ documentsTotal : 0;
+	}
+
+	@Override
+	public int getDocumentsTotal() {
+		return documentsTotal;
+	}
+
+	public int getTermsTotal() {
+		return termDictionary.size();
+	}
+
+	public TermDictionary getTermDictionary() {
+		return termDictionary;
+	}
+
+	/**
+	 * Obtm o ndice do termo no vocabulrio
+	 *
+	 * @param term
+	 *            o termo
+	 * @return o ndice do termo, ou -1 caso o termo no exista no vocabulrio
+	 */
+	public int getTermIndex(String term) {
+		return termDictionary.getTermIndex(term);
+	}
+
+	public String getTerm(int termIndex) {
+		return termDictionary.getTerm(termIndex);
+	}
+
+	/**
+	 * Obtm a quantidade de documentos em que o termo ocorre
+	 *
+	 * @param termIndex
+	 *            ndice do termo
+	 * @return a frequncia de documentos do termo
+	 */
+	public int getDocumentFrequency(int termIndex) {
+		return encodedPostings != null ? encodedPostings[termIndex].size()
+				: documentsPostings[termIndex].limit();
+	}
+
+	@Override
+	public int getDocumentFrequency(String term) {
+		int termIndex = getTermIndex(term);
+		return termIndex < 0 ? 0 : getDocumentFrequency(termIndex);
+	}
+
+	/**
+	 * Obtm os ndices dos documentos em que o termo ocorre, em ordem
+	 * crescente. O buffer retornado  compartilhado entre as threads e deve
+	 * ser lido apenas por posio, com {@link IntBuffer#get(int)}; com os
+	 * postings codificados, ele  decodificado a cada chamada.
+	 *
+	 * @param termIndex
+	 *            ndice do termo
+	 * @return os ndices dos documentos
+	 */
+	public IntBuffer getDocuments(int termIndex) {
+		return encodedPostings != null ? decode(termIndex, false)
+				: documentsPostings[termIndex];
+	}
+
+	/**
+	 * Obtm as frequncias do termo em cada documento, na mesma ordem de
+	 * {@link #getDocuments(int)}, e lidas da mesma forma.
+	 *
+	 * @param termIndex
+	 *            ndice do termo
+	 * @return as frequncias do termo
+	 */
+	public IntBuffer getFrequencies(int termIndex) {
+		return encodedPostings != null ? decode(termIndex, true)
+				: frequenciesPostings[termIndex];
+	}
+
+	/**
+	 * Decodifica os documentos ou as frequncias codificados de um termo
+	 */
+	private IntBuffer decode(int termIndex, boolean frequencies) {
+		EncodedPostings postings = encodedPostings[termIndex];
+		int[] values = new int[postings.size()];
+		PostingsIterator iterator = postings.iterator();
+		for (int postingIndex = 0; postingIndex < values.length; postingIndex++) {
+			int document = iterator.nextDocument();
+			values[postingIndex] = frequencies ? iterator.getFrequency()
+					: document;
+		}
+		return IntBuffer.wrap(values);
+	}
+
+	/**
+	 * Obtm as posies do termo em um documento
+	 *
+	 * @param termIndex
+	 *            ndice do termo
+	 * @param postingIndex
+	 *            posio do documento nos postings do termo
+	 * @param positions
+	 *            buffer de destino, com espao para a frequncia do termo no
+	 *            documento
+	 * @return a quantidade de posies, que  a frequncia do termo no
+	 *         documento
+	 */
+	public int getPositions(int termIndex, int postingIndex, int[] positions) {
+		IntBuffer positionsOffsets = positionsOffsetsPostings[termIndex];
+		int end = postingIndex + 1 < positionsOffsets.limit() ? positionsOffsets
+				.get(postingIndex + 1) : positionsPostings[termIndex].limit();
+		return Postings.readPositions(positionsPostings[termIndex],
+				positionsOffsets.get(postingIndex), end, positions);
+	}
+
+	/**
+	 * Obtm as posies codificadas do termo, para a gravao do ndice
+	 *
+	 * @param termIndex
+	 *            ndice do termo
+	 * @return as posies de todos os postings, em bytes de tamanho varivel
+	 */
+	ByteBuffer getPositionsPostings(int termIndex) {
+		return positionsPostings[termIndex];
+	}
+
+	/**
+	 * Obtm o incio das posies de cada posting do termo, para a gravao do
+	 * ndice
+	 *
+	 * @param termIndex
+	 *            ndice do termo
+	 * @return a posio, em bytes, das posies de cada posting
+	 */
+	IntBuffer getPositionsOffsets(int termIndex) {
+		return positionsOffsetsPostings[termIndex];
+	}
+
+	/**
+	 * Obtm o tamanho do documento
+	 *
+	 * @param documentIndex
+	 *            ndice do documento
+	 * @return a quantidade de termos do documento analisado
+	 */
+	public int getDocumentLength(int documentIndex) {
+		return documentLengths[documentIndex];
+	}
+
+	/**
+	 * Obtm o tamanho mdio dos documentos
+	 *
+	 * @return a mdia da quantidade de termos por documento
+	 */
+	@Override
+	public double getAverageDocumentLength() {
+		return averageDocumentLength;
+	}
+
+	/**
+	 * Obtm a quantidade total de postings do ndice
+	 *
+	 * @return a quantidade de pares (documento, frequncia)
+	 */
+	public long getPostingsTotal() {
+		long postingsTotal = 0;
+		for (IntBuffer positionsOffsets : positionsOffsetsPostings) {
+			postingsTotal += positionsOffsets.limit();
+		}
+		return postingsTotal;
+	}
+
+	private static IntBuffer[] wrap(int[][] arrays) {
+		IntBuffer[] buffers = new IntBuffer[arrays.length];
+		for (int index = 0; index < arrays.length; index++) {
+			buffers[index] = IntBuffer.wrap(arrays[index]);
+		}
+		return buffers;
+	}
+
+	private static ByteBuffer[] wrap(byte[][] arrays) {
+		ByteBuffer[] buffers = new ByteBuffer[arrays.length];
+		for (int index = 0; index < arrays.length; index++) {
+			buffers[index] = ByteBuffer.wrap(arrays[index]);
+		}
+		return buffers;
+	}
+}
@@ -0,0 +1,191 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Constri um {@link InvertedIndex} a partir dos termos de cada documento. Os
+ * documentos devem ser adicionados em ordem, e os termos recebem ndices na
+ * ordem em que aparecem pela primeira vez.
+ *
+ * As posies de cada posting so gravadas  medida que chegam, em bytes de
+ * tamanho varivel: a primeira posio do termo no documento e, em seguida,
+ * as diferenas entre posies consecutivas.
+ */
+public class InvertedIndexBuilder {
+	private static final int INITIAL_POSTINGS_SIZE = 4;
+
+	// Espao mximo de um nmero em bytes de tamanho varivel
+	private static final int MAXIMUM_VARIABLE_BYTE_SIZE = 5;
+
+	private Map<String, Integer> termsIndexMap = new HashMap<String, Integer>();
+	private List<String> termsList = new ArrayList<String>();
+	private int[][] documentsPostings = new int[1024][];
+	private int[][] frequenciesPostings = new int[1024][];
+	private int[] postingsSizes = new int[1024];
+	private byte[][] positionsPostings = new byte[1024][];
+	private int[][] positionsOffsetsPostings = new int[1024][];
+	private int[] positionsSizes = new int[1024];
+	private int[] lastPositions = new int[1024];
+	private int[] documentLengths = new int[1024];
+	private int documentsTotal;
+
+	/**
+	 * Adiciona um documento ao ndice, com os termos em posies consecutivas
+	 *
+	 * @param documentIndex
+	 *            ndice do documento, que deve ser o prximo na sequncia
+	 * @param terms
+	 *            termos do documento, cuja quantidade  o tamanho do documento
+	 */
+	public void addDocument(int documentIndex, List<String> terms) {
+		addDocument(documentIndex, terms, null);
+	}
+
+	/**
+	 * Adiciona um documento ao ndice
+	 *
+	 * @param documentIndex
+	 *            ndice do documento, que deve ser o prximo na sequncia
+	 * @param terms
+	 *            termos do documento, cuja quantidade  o tamanho do documento
+	 * @param positions
+	 *            posio de cada termo no documento, em ordem crescente, ou
+	 *            null para termos em posies consecutivas
+	 */
+	public void addDocument(int documentIndex, List<String> terms,
+			int[] positions) {
+		if (documentIndex != documentsTotal) {
+			throw new IllegalArgumentException("Documento " + documentIndex
+					+ " fora de ordem, esperado " + documentsTotal);
+		}
+
+		if (documentIndex == documentLengths.length) {
+			documentLengths = Arrays.copyOf(documentLengths, documentIndex * 2);
+		}
+		documentLengths[documentIndex] = terms.size();
+
+		int termPosition = 0;
+		for (String term : terms) {
+			Integer termIndex = termsIndexMap.get(term);
+			if (termIndex == null) {
+				termIndex = addTerm(term);
+			}
+			addPosting(termIndex, documentIndex,
+					positions == null ? termPosition : positions[termPosition]);
+			termPosition++;
+		}
+
+		documentsTotal++;
+	}
+
+	/**
+	 * Adiciona um novo termo ao vocabulrio
+	 *
+	 * @param term
+	 *            o termo
+	 * @return o ndice do termo
+	 */
+	private int addTerm(String term) {
+		int termIndex = termsList.size();
+		if (termIndex == postingsSizes.length) {
+			int newLength = termIndex * 2;
+			documentsPostings = Arrays.copyOf(documentsPostings, newLength);
+			frequenciesPostings = Arrays.copyOf(frequenciesPostings, newLength);
+			postingsSizes = Arrays.copyOf(postingsSizes, newLength);
+			positionsPostings = Arrays.copyOf(positionsPostings, newLength);
+			positionsOffsetsPostings = Arrays.copyOf(positionsOffsetsPostings,
+					newLength);
+			positionsSizes = Arrays.copyOf(positionsSizes, newLength);
+			lastPositions = Arrays.copyOf(lastPositions, newLength);
+		}
+		documentsPostings[termIndex] = new int[INITIAL_POSTINGS_SIZE];
+		frequenciesPostings[termIndex] = new int[INITIAL_POSTINGS_SIZE];
+		positionsPostings[termIndex] = new byte[INITIAL_POSTINGS_SIZE
+				* MAXIMUM_VARIABLE_BYTE_SIZE];
+		positionsOffsetsPostings[termIndex] = new int[INITIAL_POSTINGS_SIZE];
+
+		termsList.add(term);
+		termsIndexMap.put(term, termIndex);
+		return termIndex;
+	}
+
+	/**
+	 * Registra uma ocorrncia do termo no documento
+	 *
+	 * @param termIndex
+	 *            ndice do termo
+	 * @param documentIndex
+	 *            ndice do documento
+	 * @param position
+	 *            posio do termo no documento
+	 */
+	private void addPosting(int termIndex, int documentIndex, int position) {
+		int size = postingsSizes[termIndex];
+		int[] documents = documentsPostings[termIndex];
+
+		if (positionsSizes[termIndex] + MAXIMUM_VARIABLE_BYTE_SIZE > positionsPostings[termIndex].length) {
+			positionsPostings[termIndex] = Arrays.copyOf(
+					positionsPostings[termIndex],
+					positionsPostings[termIndex].length * 2);
+		}
+
+		// Os documentos chegam em ordem, ento basta olhar o ltimo posting
+		if (size > 0 && documents[size - 1] == documentIndex) {
+			frequenciesPostings[termIndex][size - 1]++;
+			positionsSizes[termIndex] = Postings.writeVariableByte(
+					positionsPostings[termIndex], positionsSizes[termIndex],
+					position - lastPositions[termIndex]);
+			lastPositions[termIndex] = position;
+			return;
+		}
+
+		if (size == documents.length) {
+			documentsPostings[termIndex] = documents = Arrays.copyOf(documents,
+					size * 2);
+			frequenciesPostings[termIndex] = Arrays.copyOf(
+					frequenciesPostings[termIndex], size * 2);
+			positionsOffsetsPostings[termIndex] = Arrays.copyOf(
+					positionsOffsetsPostings[termIndex], size * 2);
+		}
+		documents[size] = documentIndex;
+		frequenciesPostings[termIndex][size] = 1;
+		positionsOffsetsPostings[termIndex][size] = positionsSizes[termIndex];
+		positionsSizes[termIndex] = Postings.writeVariableByte(
+				positionsPostings[termIndex], positionsSizes[termIndex],
+				position);
+		lastPositions[termIndex] = position;
+		postingsSizes[termIndex] = size + 1;
+	}
+
+	/**
+	 * Finaliza a construo, ajustando os postings aos seus tamanhos finais
+	 *
+	 * @return o ndice invertido
+	 */
+	public InvertedIndex build() {
+		int termsTotal = termsList.size();
+		int[][] documents = new int[termsTotal][];
+		int[][] frequencies = new int[termsTotal][];
+		byte[][] positions = new byte[termsTotal][];
+		int[][] positionsOffsets = new int[termsTotal][];
+		for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+			int size = postingsSizes[termIndex];
+			documents[termIndex] = Arrays.copyOf(documentsPostings[termIndex],
+					size);
+			frequencies[termIndex] = Arrays.copyOf(
+					frequenciesPostings[termIndex], size);
+			positions[termIndex] = Arrays.copyOf(positionsPostings[termIndex],
+					positionsSizes[termIndex]);
+			positionsOffsets[termIndex] = Arrays.copyOf(
+					positionsOffsetsPostings[termIndex], size);
+		}
+
+		return new InvertedIndex(new TermDictionary(termsList), documents,
+				frequencies, positions, positionsOffsets, Arrays.copyOf(
+						documentLengths, documentsTotal));
+	}
+}
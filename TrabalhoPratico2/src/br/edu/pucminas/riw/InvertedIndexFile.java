@@ -0,0 +1,387 @@
+package br.edu.pucminas.riw;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Arquivo binrio do ndice invertido, que permite responder consultas sem
+ * reprocessar os documentos. O arquivo guarda, nesta ordem:
+ *
+ * <pre>
+ * cabealho   := assinatura verso idioma codificao arquivoDeDocumentos
+ *                tamanhoDoArquivoDeDocumentos totalDeDocumentos totalDeTermos
+ *                codificaoDosPostings
+ * documentos  := tamanhos[totalDeDocumentos] posiesDasLinhas[totalDeDocumentos]
+ *                tamanhosDasLinhas[totalDeDocumentos]
+ * dicionrio  := totalDeTermos tamanhoDoMaiorTermo tamanhoDosBlocos
+ *                blocos[tamanhoDosBlocos] incioDosBlocos[totalDeBlocos]
+ *                termosEmOrdem[totalDeTermos]
+ * postings    := tamanhos[totalDeTermos] bytesDePosies[totalDeTermos]
+ *                (documentos[totalDePostings] frequncias[totalDePostings]
+ *                | postingsCodificados[totalDeTermos])
+ *                incioDasPosies[totalDePostings] posies[totalDeBytesDePosies]
+ * </pre>
+ *
+ * Os nmeros so big-endian e os textos, o tamanho seguido dos bytes em UTF-8.
+ * O dicionrio  o de {@link TermDictionary}, com os termos ordenados e
+ * codificados por prefixo em blocos, o que o torna lido de uma vez, sem criar
+ * uma string por termo.
+ * Os postings de todos os termos ficam lado a lado em cada seo, para que
+ * sejam lidos em bloco. Os documentos e as frequncias so gravados com a
+ * codificao escolhida na gravao ({@link PostingsCodecType}): sem
+ * codificao, como um int cada, ou como os postings codificados de cada
+ * termo, gravados por {@link EncodedPostings#write(DataOutputStream)} e
+ * decodificados na leitura com um {@link PostingsIterator}. As posies no
+ * dependem da codificao.
+ * A leitura mapeia o arquivo em memria, e o ndice l os postings de cada
+ * termo por vises das sees mapeadas, sem copi-los para o heap; os
+ * postings codificados tambm ficam no mapeamento e so decodificados a cada
+ * leitura. Assim, processos de consulta sobre o mesmo arquivo compartilham as
+ * pginas dos postings no cache do sistema operacional. Os pesos e as normas
+ * dependem do modelo de ordenao escolhido e so recalculados a partir dos
+ * postings na criao dos modelos.
+ */
+public class InvertedIndexFile {
+	public static final int VERSION = 4;
+
+	// "RIWI"
+	private static final int SIGNATURE = 0x52495749;
+	private static final Charset TEXT_CHARSET = Charset.forName("UTF-8");
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private Language language;
+	private String encoding;
+	private String corpusFileName;
+	private long corpusFileSize;
+	private PostingsCodecType codecType;
+	private long[] lineOffsets;
+	private int[] lineLengths;
+	private InvertedIndex invertedIndex;
+
+	/**
+	 * L o ndice do arquivo
+	 *
+	 * @param fileName
+	 *            nome do arquivo do ndice
+	 * @throws IOException
+	 *             caso o arquivo no seja um ndice ou seja de outra verso
+	 */
+	public InvertedIndexFile(String fileName) throws IOException {
+		MappedByteBuffer buffer;
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Arquivo de ndice maior que "
+						+ Integer.MAX_VALUE + " bytes: " + fileName);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		} finally {
+			file.close();
+		}
+
+		if (buffer.limit() < 8 || buffer.getInt() != SIGNATURE) {
+			throw new IOException("Arquivo de ndice invlido: " + fileName);
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new IOException("Verso " + version
+					+ " do ndice no suportada: " + fileName);
+		}
+
+		language = Language.fromName(readText(buffer));
+		if (language == null) {
+			throw new IOException("Idioma do ndice no suportado: "
+					+ fileName);
+		}
+		encoding = readText(buffer);
+		corpusFileName = readText(buffer);
+		corpusFileSize = buffer.getLong();
+		int documentsTotal = buffer.getInt();
+		int termsTotal = buffer.getInt();
+		codecType = PostingsCodecType.fromName(readText(buffer));
+		if (codecType == null) {
+			throw new IOException(
+					"Codificao dos postings do ndice no suportada: "
+							+ fileName);
+		}
+
+		int[] documentLengths = readInts(buffer, documentsTotal);
+		lineOffsets = new long[documentsTotal];
+		buffer.asLongBuffer().get(lineOffsets);
+		buffer.position(buffer.position() + documentsTotal * 8);
+		lineLengths = readInts(buffer, documentsTotal);
+
+		TermDictionary termDictionary = TermDictionary.read(buffer);
+		if (termDictionary.size() != termsTotal) {
+			throw new IOException("Dicionrio do ndice invlido: " + fileName);
+		}
+
+		int[] postingsSizes = readInts(buffer, termsTotal);
+		int[] positionsSizes = readInts(buffer, termsTotal);
+		int postingsTotal = 0;
+		int positionsTotal = 0;
+		for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+			postingsTotal += postingsSizes[termIndex];
+			positionsTotal += positionsSizes[termIndex];
+		}
+		// Os postings de cada termo so vises das sees mapeadas
+		PostingsCodec codec = codecType.createCodec();
+		if (codec == null) {
+			IntBuffer[] documentsPostings = getViews(
+					getSection(buffer, postingsTotal * 4).asIntBuffer(),
+					postingsSizes);
+			IntBuffer[] frequenciesPostings = getViews(
+					getSection(buffer, postingsTotal * 4).asIntBuffer(),
+					postingsSizes);
+			IntBuffer[] positionsOffsetsPostings = getViews(
+					getSection(buffer, postingsTotal * 4).asIntBuffer(),
+					postingsSizes);
+			ByteBuffer[] positionsPostings = getViews(
+					getSection(buffer, positionsTotal), positionsSizes);
+			invertedIndex = new InvertedIndex(termDictionary,
+					documentsPostings, frequenciesPostings, positionsPostings,
+					positionsOffsetsPostings, documentLengths);
+		} else {
+			EncodedPostings[] encodedPostings = new EncodedPostings[termsTotal];
+			for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+				encodedPostings[termIndex] = codec.read(buffer);
+				if (encodedPostings[termIndex].size() != postingsSizes[termIndex]) {
+					throw new IOException("Postings do ndice invlidos: "
+							+ fileName);
+				}
+			}
+			IntBuffer[] positionsOffsetsPostings = getViews(
+					getSection(buffer, postingsTotal * 4).asIntBuffer(),
+					postingsSizes);
+			ByteBuffer[] positionsPostings = getViews(
+					getSection(buffer, positionsTotal), positionsSizes);
+			invertedIndex = new InvertedIndex(termDictionary, encodedPostings,
+					positionsPostings, positionsOffsetsPostings,
+					documentLengths);
+		}
+	}
+
+	/**
+	 * Grava o ndice em um arquivo temporrio, que depois substitui o arquivo
+	 * de destino, para que processos de consulta nunca leiam um ndice pela
+	 * metade
+	 *
+	 * @param fileName
+	 *            nome do arquivo do ndice
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param codecType
+	 *            codificao dos documentos e das frequncias no arquivo
+	 * @param language
+	 *            idioma da anlise dos documentos, que deve ser o mesmo das
+	 *            consultas
+	 * @param encoding
+	 *            codificao do arquivo de documentos
+	 * @param corpusFileName
+	 *            nome do arquivo de documentos
+	 * @param corpus
+	 *            o arquivo de documentos, com a posio de cada documento
+	 * @throws IOException
+	 */
+	public static void write(String fileName, InvertedIndex invertedIndex,
+			PostingsCodecType codecType, Language language, String encoding,
+			String corpusFileName, MappedCorpus corpus) throws IOException {
+		File temporaryFile = new File(fileName + TEMPORARY_SUFFIX);
+		DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temporaryFile),
+						1 << 16));
+		try {
+			int documentsTotal = invertedIndex.getDocumentsTotal();
+			int termsTotal = invertedIndex.getTermsTotal();
+			output.writeInt(SIGNATURE);
+			output.writeInt(VERSION);
+			writeText(output, language.getName());
+			writeText(output, encoding);
+			writeText(output, new File(corpusFileName).getAbsolutePath());
+			output.writeLong(new File(corpusFileName).length());
+			output.writeInt(documentsTotal);
+			output.writeInt(termsTotal);
+			writeText(output, codecType.getName());
+
+			for (int documentIndex = 0; documentIndex < documentsTotal; documentIndex++) {
+				output.writeInt(invertedIndex.getDocumentLength(documentIndex));
+			}
+			for (int documentIndex = 0; documentIndex < documentsTotal; documentIndex++) {
+				output.writeLong(corpus.getDocumentOffset(documentIndex));
+			}
+			for (int documentIndex = 0; documentIndex < documentsTotal; documentIndex++) {
+				output.writeInt(corpus.getDocumentSize(documentIndex));
+			}
+
+			invertedIndex.getTermDictionary().write(output);
+
+			for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+				output.writeInt(invertedIndex.getDocumentFrequency(termIndex));
+			}
+			for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+				output.writeInt(invertedIndex.getPositionsPostings(termIndex)
+						.limit());
+			}
+			PostingsCodec codec = codecType.createCodec();
+			if (codec == null) {
+				for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+					writeInts(output, invertedIndex.getDocuments(termIndex));
+				}
+				for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+					writeInts(output, invertedIndex.getFrequencies(termIndex));
+				}
+			} else {
+				for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+					codec.encode(
+							Postings.toArray(invertedIndex
+									.getDocuments(termIndex)),
+							Postings.toArray(invertedIndex
+									.getFrequencies(termIndex))).write(output);
+				}
+			}
+			for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+				writeInts(output, invertedIndex.getPositionsOffsets(termIndex));
+			}
+			for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+				ByteBuffer positions = invertedIndex
+						.getPositionsPostings(termIndex);
+				for (int index = 0; index < positions.limit(); index++) {
+					output.write(positions.get(index));
+				}
+			}
+		} finally {
+			output.close();
+		}
+
+		Files.move(temporaryFile.toPath(), new File(fileName).toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public InvertedIndex getInvertedIndex() {
+		return invertedIndex;
+	}
+
+	public PostingsCodecType getCodecType() {
+		return codecType;
+	}
+
+	public Language getLanguage() {
+		return language;
+	}
+
+	public String getEncoding() {
+		return encoding;
+	}
+
+	public String getCorpusFileName() {
+		return corpusFileName;
+	}
+
+	/**
+	 * Mapeia o arquivo de documentos do ndice, com as posies dos
+	 * documentos guardadas no ndice
+	 *
+	 * @return o arquivo de documentos mapeado
+	 * @throws IOException
+	 *             caso o arquivo de documentos tenha sido alterado depois da
+	 *             criao do ndice
+	 */
+	public MappedCorpus openCorpus() throws IOException {
+		if (new File(corpusFileName).length() != corpusFileSize) {
+			throw new IOException(
+					"Arquivo de documentos alterado desde a criao do ndice: "
+							+ corpusFileName);
+		}
+		return new MappedCorpus(corpusFileName, Charset.forName(encoding),
+				lineOffsets, lineLengths);
+	}
+
+	private static int[] readInts(MappedByteBuffer buffer, int size) {
+		int[] values = new int[size];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + size * 4);
+		return values;
+	}
+
+	/**
+	 * Divide uma seo em uma viso por termo
+	 *
+	 * @param section
+	 *            a seo, com os valores de todos os termos lado a lado
+	 * @param sizes
+	 *            quantidade de valores de cada termo
+	 * @return a viso de cada termo, a partir do seu incio
+	 */
+	private static IntBuffer[] getViews(IntBuffer section, int[] sizes) {
+		IntBuffer[] views = new IntBuffer[sizes.length];
+		int start = 0;
+		for (int termIndex = 0; termIndex < sizes.length; termIndex++) {
+			section.limit(start + sizes[termIndex]).position(start);
+			views[termIndex] = section.slice();
+			start += sizes[termIndex];
+		}
+		return views;
+	}
+
+	private static ByteBuffer[] getViews(ByteBuffer section, int[] sizes) {
+		ByteBuffer[] views = new ByteBuffer[sizes.length];
+		int start = 0;
+		for (int termIndex = 0; termIndex < sizes.length; termIndex++) {
+			section.limit(start + sizes[termIndex]).position(start);
+			views[termIndex] = section.slice();
+			start += sizes[termIndex];
+		}
+		return views;
+	}
+
+	/**
+	 * Obtm uma viso do prximo trecho do arquivo, com a posio do arquivo
+	 * logo aps o trecho
+	 *
+	 * @param buffer
+	 *            o arquivo mapeado
+	 * @param size
+	 *            tamanho do trecho, em bytes
+	 * @return a viso do trecho, a partir do seu incio
+	 */
+	private static ByteBuffer getSection(MappedByteBuffer buffer, int size) {
+		ByteBuffer section = buffer.slice();
+		section.limit(size);
+		buffer.position(buffer.position() + size);
+		return section;
+	}
+
+	private static String readText(MappedByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, TEXT_CHARSET);
+	}
+
+	private static void writeInts(DataOutputStream output, IntBuffer values)
+			throws IOException {
+		for (int index = 0; index < values.limit(); index++) {
+			output.writeInt(values.get(index));
+		}
+	}
+
+	private static void writeText(DataOutputStream output, String text)
+			throws IOException {
+		byte[] bytes = text.getBytes(TEXT_CHARSET);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+}
@@ -0,0 +1,105 @@
+package br.edu.pucminas.riw;
+
+import org.tartarus.snowball.SnowballStemmer;
+import org.tartarus.snowball.ext.danishStemmer;
+import org.tartarus.snowball.ext.dutchStemmer;
+import org.tartarus.snowball.ext.englishStemmer;
+import org.tartarus.snowball.ext.finnishStemmer;
+import org.tartarus.snowball.ext.frenchStemmer;
+import org.tartarus.snowball.ext.germanStemmer;
+import org.tartarus.snowball.ext.hungarianStemmer;
+import org.tartarus.snowball.ext.italianStemmer;
+import org.tartarus.snowball.ext.norwegianStemmer;
+import org.tartarus.snowball.ext.portugueseStemmer;
+import org.tartarus.snowball.ext.romanianStemmer;
+import org.tartarus.snowball.ext.spanishStemmer;
+import org.tartarus.snowball.ext.swedishStemmer;
+import org.tartarus.snowball.ext.turkishStemmer;
+
+/**
+ * Idiomas suportados, cada um com o seu stemmer Snowball e o seu arquivo de
+ * stopwords. S h idiomas de alfabeto latino, pois o tokenizador descarta os
+ * caracteres fora de [a-zA-Z] depois de remover os acentos.
+ */
+public enum Language {
+	DANISH("danish"), DUTCH("dutch"), ENGLISH("english", "stopwords.txt"), FINNISH(
+			"finnish"), FRENCH("french"), GERMAN("german"), HUNGARIAN(
+			"hungarian"), ITALIAN("italian"), NORWEGIAN("norwegian"), PORTUGUESE(
+			"portuguese"), ROMANIAN("romanian"), SPANISH("spanish"), SWEDISH(
+			"swedish"), TURKISH("turkish");
+
+	private String name;
+	private String stopwordsFileName;
+
+	private Language(String name) {
+		this(name, "stopwords-" + name + ".txt");
+	}
+
+	private Language(String name, String stopwordsFileName) {
+		this.name = name;
+		this.stopwordsFileName = stopwordsFileName;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getStopwordsFileName() {
+		return stopwordsFileName;
+	}
+
+	/**
+	 * Cria um novo stemmer para o idioma. Como o SnowballProgram guarda
+	 * estado, cada thread deve ter o seu.
+	 *
+	 * @return o stemmer
+	 */
+	public SnowballStemmer createStemmer() {
+		switch (this) {
+		case DANISH:
+			return new danishStemmer();
+		case DUTCH:
+			return new dutchStemmer();
+		case FINNISH:
+			return new finnishStemmer();
+		case FRENCH:
+			return new frenchStemmer();
+		case GERMAN:
+			return new germanStemmer();
+		case HUNGARIAN:
+			return new hungarianStemmer();
+		case ITALIAN:
+			return new italianStemmer();
+		case NORWEGIAN:
+			return new norwegianStemmer();
+		case PORTUGUESE:
+			return new portugueseStemmer();
+		case ROMANIAN:
+			return new romanianStemmer();
+		case SPANISH:
+			return new spanishStemmer();
+		case SWEDISH:
+			return new swedishStemmer();
+		case TURKISH:
+			return new turkishStemmer();
+		default:
+			return new englishStemmer();
+		}
+	}
+
+	/**
+	 * Obtm o idioma pelo nome
+	 *
+	 * @param name
+	 *            nome do idioma, como "english" ou "portuguese"
+	 * @return o idioma, ou null caso no exista
+	 */
+	public static Language fromName(String name) {
+		for (Language language : values()) {
+			if (language.name.equals(name)) {
+				return language;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,225 @@
+package br.edu.pucminas.riw;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Arquivo de documentos mapeado em memria, com um documento por linha. Apenas
+ * a posio de cada linha  mantida no heap; o contedo  decodificado sob
+ * demanda, o que permite percorrer arquivos maiores que a memria disponvel.
+ *
+ * A codificao deve ser compatvel com ASCII nas quebras de linha (UTF-8,
+ * ISO-8859-1 etc.).
+ */
+public class MappedCorpus {
+	private static final int MAX_REGION_SIZE = 1 << 30;
+
+	private Charset charset;
+	private List<MappedByteBuffer> regionsList = new ArrayList<MappedByteBuffer>();
+	private long[] regionOffsets = new long[4];
+	private long[] lineOffsets = new long[1024];
+	private int[] lineLengths = new int[1024];
+	private int documentsTotal;
+
+	public MappedCorpus(String fileName, Charset charset) throws IOException {
+		byte[] lineFeed = "\n".getBytes(charset);
+		if (lineFeed.length != 1 || lineFeed[0] != '\n') {
+			throw new IOException("Codificao no suportada: " + charset);
+		}
+		this.charset = charset;
+
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			long fileSize = channel.size();
+			long regionOffset = 0;
+			while (regionOffset < fileSize) {
+				long regionSize = Math.min(MAX_REGION_SIZE, fileSize
+						- regionOffset);
+				MappedByteBuffer region = channel.map(
+						FileChannel.MapMode.READ_ONLY, regionOffset, regionSize);
+				regionOffset = scanRegion(region, regionOffset,
+						regionOffset + regionSize == fileSize);
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Mapeia o arquivo com as posies das linhas j conhecidas, como as
+	 * guardadas em um {@link InvertedIndexFile}, sem percorrer o contedo
+	 *
+	 * @param fileName
+	 *            nome do arquivo
+	 * @param charset
+	 *            codificao do arquivo
+	 * @param lineOffsets
+	 *            posio, em bytes, do incio de cada linha
+	 * @param lineLengths
+	 *            tamanho, em bytes, de cada linha
+	 * @throws IOException
+	 */
+	public MappedCorpus(String fileName, Charset charset, long[] lineOffsets,
+			int[] lineLengths) throws IOException {
+		this.charset = charset;
+		this.lineOffsets = lineOffsets;
+		this.lineLengths = lineLengths;
+		this.documentsTotal = lineOffsets.length;
+
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			int lineIndex = 0;
+			while (lineIndex < documentsTotal) {
+				// As linhas de uma regio so consecutivas e cabem inteiras
+				// nela
+				long regionOffset = lineOffsets[lineIndex];
+				long regionEnd = regionOffset;
+				while (lineIndex < documentsTotal
+						&& lineOffsets[lineIndex] + lineLengths[lineIndex]
+								- regionOffset <= MAX_REGION_SIZE) {
+					regionEnd = lineOffsets[lineIndex] + lineLengths[lineIndex];
+					lineIndex++;
+				}
+				addRegion(channel.map(FileChannel.MapMode.READ_ONLY,
+						regionOffset, regionEnd - regionOffset), regionOffset);
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Registra as linhas completas de uma regio mapeada
+	 *
+	 * @param region
+	 *            a regio mapeada
+	 * @param regionOffset
+	 *            posio da regio no arquivo
+	 * @param lastRegion
+	 *            indica se a regio vai at o fim do arquivo
+	 * @return a posio no arquivo onde a prxima regio deve comear
+	 * @throws IOException
+	 */
+	private long scanRegion(MappedByteBuffer region, long regionOffset,
+			boolean lastRegion) throws IOException {
+		addRegion(region, regionOffset);
+
+		// Fora da ltima regio, o ltimo byte fica para a prxima, para no
+		// separar um "\r\n"
+		int regionSize = region.limit();
+		int scanLimit = lastRegion ? regionSize : regionSize - 1;
+		int lineStart = 0;
+		for (int position = 0; position < scanLimit; position++) {
+			byte value = region.get(position);
+			if (value == '\n' || value == '\r') {
+				addLine(regionOffset + lineStart, position - lineStart);
+				if (value == '\r' && position + 1 < regionSize
+						&& region.get(position + 1) == '\n') {
+					position++;
+				}
+				lineStart = position + 1;
+			}
+		}
+
+		if (lastRegion) {
+			if (lineStart < regionSize) {
+				addLine(regionOffset + lineStart, regionSize - lineStart);
+			}
+			return regionOffset + regionSize;
+		}
+
+		// A linha incompleta  relida no incio da prxima regio
+		if (lineStart == 0) {
+			throw new IOException("Linha maior que " + MAX_REGION_SIZE
+					+ " bytes na posio " + regionOffset);
+		}
+		return regionOffset + lineStart;
+	}
+
+	private void addRegion(MappedByteBuffer region, long regionOffset) {
+		int regionIndex = regionsList.size();
+		if (regionIndex == regionOffsets.length) {
+			regionOffsets = Arrays.copyOf(regionOffsets, regionIndex * 2);
+		}
+		regionsList.add(region);
+		regionOffsets[regionIndex] = regionOffset;
+	}
+
+	private void addLine(long lineOffset, int lineLength) {
+		if (documentsTotal == lineOffsets.length) {
+			lineOffsets = Arrays.copyOf(lineOffsets, documentsTotal * 2);
+			lineLengths = Arrays.copyOf(lineLengths, documentsTotal * 2);
+		}
+		lineOffsets[documentsTotal] = lineOffset;
+		lineLengths[documentsTotal] = lineLength;
+		documentsTotal++;
+	}
+
+	public int getDocumentsTotal() {
+		return documentsTotal;
+	}
+
+	/**
+	 * Obtm a posio do documento no arquivo
+	 *
+	 * @param documentIndex
+	 *            ndice do documento
+	 * @return a posio, em bytes, do incio da linha do documento
+	 */
+	public long getDocumentOffset(int documentIndex) {
+		return lineOffsets[documentIndex];
+	}
+
+	/**
+	 * Obtm o tamanho da linha do documento no arquivo
+	 *
+	 * @param documentIndex
+	 *            ndice do documento
+	 * @return o tamanho, em bytes, da linha, sem a quebra de linha
+	 */
+	public int getDocumentSize(int documentIndex) {
+		return lineLengths[documentIndex];
+	}
+
+	/**
+	 * Decodifica o contedo de um documento
+	 *
+	 * @param documentIndex
+	 *            ndice do documento, que corresponde  linha do arquivo
+	 * @return o contedo do documento, sem espaos nas extremidades
+	 */
+	public String getContent(int documentIndex) {
+		long lineOffset = lineOffsets[documentIndex];
+		int regionIndex = Arrays.binarySearch(regionOffsets, 0,
+				regionsList.size(), lineOffset);
+		if (regionIndex < 0) {
+			regionIndex = -regionIndex - 2;
+		}
+
+		ByteBuffer line = regionsList.get(regionIndex).duplicate();
+		int lineStart = (int) (lineOffset - regionOffsets[regionIndex]);
+		line.limit(lineStart + lineLengths[documentIndex]);
+		line.position(lineStart);
+		return charset.decode(line).toString().trim();
+	}
+
+	/**
+	 * L um documento do arquivo
+	 *
+	 * @param documentIndex
+	 *            ndice do documento
+	 * @return o documento
+	 */
+	public Document readDocument(int documentIndex) {
+		return new Document(getContent(documentIndex), documentIndex);
+	}
+}
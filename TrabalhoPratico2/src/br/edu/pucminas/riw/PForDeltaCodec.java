@@ -0,0 +1,235 @@
+package br.edu.pucminas.riw;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Codificao PForDelta em blocos: as diferenas entre documentos
+ * consecutivos de um bloco, e as frequncias menos 1, so empacotadas com uma
+ * largura fixa de bits, escolhida para que no mximo 10% dos valores no
+ * caibam nela. Os valores que no cabem so excees: os seus bits baixos
+ * ficam no empacotamento e os altos, junto com a sua posio no bloco, em uma
+ * lista aps ele.
+ *
+ * Com a largura fixa, o desempacotamento de um bloco  um lao sem desvios
+ * dependentes dos dados, que o compilador JIT consegue desenrolar; as excees
+ * so corrigidas depois, em um segundo lao curto.
+ *
+ * Cada sequncia empacotada comea com uma palavra de cabealho, com a
+ * largura nos 8 bits baixos e a quantidade de excees nos seguintes, e cada
+ * exceo ocupa uma palavra, com a posio nos 7 bits baixos e a parte alta do
+ * valor nos demais.
+ */
+public class PForDeltaCodec implements PostingsCodec {
+	private static final int POSITION_BITS = 7;
+	private static final int POSITION_MASK = (1 << POSITION_BITS) - 1;
+	private static final int WIDTH_MASK = 0xFF;
+	private static final int EXCEPTIONS_SHIFT = 8;
+
+	// Frao mxima de excees em um bloco
+	private static final double MAXIMUM_EXCEPTIONS_RATIO = 0.1;
+
+	@Override
+	public String getName() {
+		return "pfordelta";
+	}
+
+	@Override
+	public EncodedPostings encode(int[] documents, int[] frequencies) {
+		return new PForDeltaPostings(documents, frequencies);
+	}
+
+	@Override
+	public EncodedPostings read(ByteBuffer buffer) {
+		return new PForDeltaPostings(buffer);
+	}
+
+	private static class PForDeltaPostings extends EncodedPostings {
+		private IntBuffer words;
+		private int[] blocksOffsets;
+
+		public PForDeltaPostings(int[] documents, int[] frequencies) {
+			super(documents);
+			blocksOffsets = new int[getBlocksTotal(documents.length)];
+			// Pior caso: cabealho, 32 bits por valor e todas as excees
+			int[] words = new int[blocksOffsets.length * 2
+					* (1 + 2 * PostingsIterator.BLOCK_SIZE)];
+			int[] values = new int[PostingsIterator.BLOCK_SIZE];
+			int offset = 0;
+			for (int blockIndex = 0; blockIndex < blocksOffsets.length; blockIndex++) {
+				int start = blockIndex * PostingsIterator.BLOCK_SIZE;
+				int blockSize = Math.min(PostingsIterator.BLOCK_SIZE,
+						documents.length - start);
+				blocksOffsets[blockIndex] = offset;
+
+				int lastDocument = getBaseDocument(blockIndex);
+				for (int position = 0; position < blockSize; position++) {
+					values[position] = documents[start + position] - lastDocument;
+					lastDocument = documents[start + position];
+				}
+				offset = pack(values, blockSize, words, offset);
+
+				for (int position = 0; position < blockSize; position++) {
+					values[position] = frequencies[start + position] - 1;
+				}
+				offset = pack(values, blockSize, words, offset);
+			}
+			this.words = IntBuffer.wrap(Arrays.copyOf(words, offset));
+		}
+
+		public PForDeltaPostings(ByteBuffer buffer) {
+			super(buffer);
+			words = getInts(buffer, buffer.getInt());
+			blocksOffsets = readInts(buffer, getBlocksTotal(size()));
+		}
+
+		@Override
+		protected void writeData(DataOutputStream output) throws IOException {
+			output.writeInt(words.limit());
+			writeInts(output, words);
+			writeInts(output, blocksOffsets);
+		}
+
+		@Override
+		public PostingsIterator iterator() {
+			return new PostingsIterator(size(), getLastDocuments()) {
+				@Override
+				protected void decodeBlock(int blockIndex, int blockSize,
+						int[] documents, int[] frequencies) {
+					int offset = unpack(words, blocksOffsets[blockIndex],
+							documents, blockSize);
+					unpack(words, offset, frequencies, blockSize);
+
+					int document = getBaseDocument(blockIndex);
+					for (int position = 0; position < blockSize; position++) {
+						document += documents[position];
+						documents[position] = document;
+						frequencies[position]++;
+					}
+				}
+			};
+		}
+
+		@Override
+		protected long getDataSizeInBytes() {
+			return words.limit() * 4L + blocksOffsets.length * 4L;
+		}
+	}
+
+	/**
+	 * Empacota os valores de um bloco
+	 *
+	 * @param values
+	 *            os valores, no negativos
+	 * @param size
+	 *            quantidade de valores
+	 * @param words
+	 *            destino do empacotamento
+	 * @param offset
+	 *            posio inicial do empacotamento no destino
+	 * @return a posio seguinte ao empacotamento no destino
+	 */
+	private static int pack(int[] values, int size, int[] words, int offset) {
+		int width = chooseWidth(values, size);
+		long mask = (1L << width) - 1;
+
+		int header = offset++;
+		int exceptionsTotal = 0;
+		long bitsBuffer = 0;
+		int bitsTotal = 0;
+		for (int position = 0; position < size; position++) {
+			bitsBuffer |= (values[position] & mask) << bitsTotal;
+			bitsTotal += width;
+			if (bitsTotal >= 32) {
+				words[offset++] = (int) bitsBuffer;
+				bitsBuffer >>>= 32;
+				bitsTotal -= 32;
+			}
+		}
+		if (bitsTotal > 0) {
+			words[offset++] = (int) bitsBuffer;
+		}
+
+		for (int position = 0; position < size; position++) {
+			if ((values[position] >>> width) != 0) {
+				words[offset++] = ((values[position] >>> width) << POSITION_BITS)
+						| position;
+				exceptionsTotal++;
+			}
+		}
+		words[header] = width | (exceptionsTotal << EXCEPTIONS_SHIFT);
+		return offset;
+	}
+
+	/**
+	 * Desempacota os valores de um bloco
+	 *
+	 * @param words
+	 *            o empacotamento
+	 * @param offset
+	 *            posio inicial do empacotamento
+	 * @param values
+	 *            destino dos valores
+	 * @param size
+	 *            quantidade de valores
+	 * @return a posio seguinte ao empacotamento
+	 */
+	private static int unpack(IntBuffer words, int offset, int[] values,
+			int size) {
+		int header = words.get(offset++);
+		int width = header & WIDTH_MASK;
+		int exceptionsTotal = header >>> EXCEPTIONS_SHIFT;
+
+		if (width == 0) {
+			Arrays.fill(values, 0, size, 0);
+		} else {
+			long mask = (1L << width) - 1;
+			for (int position = 0, bit = 0; position < size; position++, bit += width) {
+				int word = offset + (bit >>> 5);
+				// As duas palavras que podem conter o valor, sem desvio
+				long bits = (words.get(word) & 0xFFFFFFFFL)
+						| ((long) words.get(Math.min(word + 1,
+								words.limit() - 1)) << 32);
+				values[position] = (int) ((bits >>> (bit & 31)) & mask);
+			}
+			offset += (size * width + 31) >>> 5;
+		}
+
+		for (int exception = 0; exception < exceptionsTotal; exception++) {
+			int word = words.get(offset++);
+			values[word & POSITION_MASK] |= (word >>> POSITION_BITS) << width;
+		}
+		return offset;
+	}
+
+	/**
+	 * Escolhe a menor largura de bits em que cabem todos os valores, exceto no
+	 * mximo 10% deles. A parte alta das excees precisa caber em uma palavra
+	 * com a sua posio.
+	 */
+	private static int chooseWidth(int[] values, int size) {
+		int[] widthsTotals = new int[33];
+		for (int position = 0; position < size; position++) {
+			widthsTotals[32 - Integer.numberOfLeadingZeros(values[position])]++;
+		}
+
+		int maximumWidth = 32;
+		while (maximumWidth > 0 && widthsTotals[maximumWidth] == 0) {
+			maximumWidth--;
+		}
+		int minimumWidth = Math.max(0, maximumWidth - (32 - POSITION_BITS));
+
+		int maximumExceptions = (int) (size * MAXIMUM_EXCEPTIONS_RATIO);
+		int width = maximumWidth;
+		int exceptionsTotal = 0;
+		while (width > minimumWidth
+				&& exceptionsTotal + widthsTotals[width] <= maximumExceptions) {
+			exceptionsTotal += widthsTotals[width];
+			width--;
+		}
+		return width;
+	}
+}
@@ -0,0 +1,195 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Avaliao paralela de uma consulta do modelo vetorial: o espao de
+ * documentos  dividido em intervalos, avaliados em um pool fork/join, e os
+ * resultados dos intervalos so juntados. A similaridade de cada documento 
+ * calculada da mesma forma que na avaliao serial, e o resultado  o mesmo.
+ */
+public class PartitionedQueryEvaluator {
+	private static final int MINIMUM_RANGE_SIZE = 16384;
+
+	// Pool compartilhado por todos os modelos; as suas threads so daemon
+	private static final ForkJoinPool POOL = new ForkJoinPool();
+
+	private TermAtATimeScorer scorer;
+	private DocumentAtATimeScorer topKScorer;
+	private int documentsTotal;
+	private int rangeSize;
+
+	/**
+	 * Cria o avaliador
+	 *
+	 * @param documentsTotal
+	 *            quantidade de documentos da coleo
+	 * @param scorer
+	 *            motor de pontuao termo a termo, sem limite de acumuladores
+	 * @param topKScorer
+	 *            motor de pontuao das consultas top-k, ou null para avali-las
+	 *            termo a termo
+	 */
+	public PartitionedQueryEvaluator(int documentsTotal,
+			TermAtATimeScorer scorer, DocumentAtATimeScorer topKScorer) {
+		this.documentsTotal = documentsTotal;
+		this.scorer = scorer;
+		this.topKScorer = topKScorer;
+
+		// Alguns intervalos por thread, para equilibrar a carga
+		rangeSize = Math.max(MINIMUM_RANGE_SIZE,
+				documentsTotal / (POOL.getParallelism() * 4) + 1);
+	}
+
+	/**
+	 * Obtm os documentos com similaridade positiva
+	 *
+	 * @param query
+	 *            a consulta
+	 * @return os ndices dos documentos, em ordem crescente
+	 */
+	public List<Integer> processQuery(QueryVector query) {
+		return POOL.invoke(new MatchingTask(query, 0, documentsTotal));
+	}
+
+	/**
+	 * Obtm os documentos mais similares
+	 *
+	 * @param query
+	 *            a consulta
+	 * @param treshold
+	 *            quantidade de documentos mais relevantes a serem retornados
+	 * @param minimalRelevance
+	 *            similaridade mnima dos documentos relevantes
+	 * @return os documentos retornados, por similaridade decrescente, e o
+	 *         conjunto de documentos relevantes
+	 */
+	public RelevanceSearchReturn processQueryWithRelevance(QueryVector query,
+			int treshold, double minimalRelevance) {
+		return POOL.invoke(
+				new TopKTask(query, treshold, minimalRelevance, 0,
+						documentsTotal)).getResults();
+	}
+
+	/**
+	 * Tarefa sobre um intervalo de documentos, dividido ao meio at que tenha
+	 * o tamanho de um intervalo
+	 */
+	private abstract class RangeTask<T> extends RecursiveTask<T> {
+		private static final long serialVersionUID = 1L;
+
+		protected QueryVector query;
+		protected int startDocument;
+		protected int endDocument;
+
+		public RangeTask(QueryVector query, int startDocument, int endDocument) {
+			this.query = query;
+			this.startDocument = startDocument;
+			this.endDocument = endDocument;
+		}
+
+		@Override
+		protected T compute() {
+			if (endDocument - startDocument <= rangeSize) {
+				return computeRange();
+			}
+
+			int middleDocument = (startDocument + endDocument) >>> 1;
+			RangeTask<T> left = createTask(startDocument, middleDocument);
+			left.fork();
+			T right = createTask(middleDocument, endDocument).compute();
+			return merge(left.join(), right);
+		}
+
+		protected abstract RangeTask<T> createTask(int startDocument,
+				int endDocument);
+
+		protected abstract T computeRange();
+
+		protected abstract T merge(T left, T right);
+	}
+
+	private class MatchingTask extends RangeTask<List<Integer>> {
+		private static final long serialVersionUID = 1L;
+
+		public MatchingTask(QueryVector query, int startDocument,
+				int endDocument) {
+			super(query, startDocument, endDocument);
+		}
+
+		@Override
+		protected RangeTask<List<Integer>> createTask(int startDocument,
+				int endDocument) {
+			return new MatchingTask(query, startDocument, endDocument);
+		}
+
+		@Override
+		protected List<Integer> computeRange() {
+			ScoreAccumulators accumulators = scorer.score(query,
+					startDocument, endDocument);
+			List<Integer> resultsList = new ArrayList<Integer>();
+			for (int position = 0; position < accumulators.size(); position++) {
+				if (accumulators.getScore(position) > 0) {
+					resultsList.add(accumulators.getDocument(position));
+				}
+			}
+			return resultsList;
+		}
+
+		@Override
+		protected List<Integer> merge(List<Integer> left, List<Integer> right) {
+			left.addAll(right);
+			return left;
+		}
+	}
+
+	private class TopKTask extends RangeTask<TopKCollector> {
+		private static final long serialVersionUID = 1L;
+
+		private int treshold;
+		private double minimalRelevance;
+
+		public TopKTask(QueryVector query, int treshold,
+				double minimalRelevance, int startDocument, int endDocument) {
+			super(query, startDocument, endDocument);
+			this.treshold = treshold;
+			this.minimalRelevance = minimalRelevance;
+		}
+
+		@Override
+		protected RangeTask<TopKCollector> createTask(int startDocument,
+				int endDocument) {
+			return new TopKTask(query, treshold, minimalRelevance,
+					startDocument, endDocument);
+		}
+
+		@Override
+		protected TopKCollector computeRange() {
+			// Os coletores dos intervalos so juntados depois, ento cada
+			// intervalo tem o seu
+			TopKCollector collector = new TopKCollector();
+			collector.reset(treshold, minimalRelevance);
+			if (topKScorer != null) {
+				topKScorer.collect(query, startDocument, endDocument, collector);
+				return collector;
+			}
+
+			ScoreAccumulators accumulators = scorer.score(query,
+					startDocument, endDocument);
+			for (int position = 0; position < accumulators.size(); position++) {
+				collector.collect(accumulators.getDocument(position),
+						accumulators.getScore(position));
+			}
+			return collector;
+		}
+
+		@Override
+		protected TopKCollector merge(TopKCollector left, TopKCollector right) {
+			left.merge(right);
+			return left;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package br.edu.pucminas.riw;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Operaes sobre listas de postings ordenadas e sobre a codificao das
+ * posies dos termos.
+ */
+public final class Postings {
+
+	private Postings() {
+	}
+
+	/**
+	 * Busca galopante: avana em saltos que dobram de tamanho e termina com
+	 * uma busca binria, com custo proporcional ao logaritmo da distncia
+	 * percorrida
+	 *
+	 * @param documents
+	 *            documentos, em ordem crescente
+	 * @param from
+	 *            posio inicial da busca
+	 * @param target
+	 *            documento procurado
+	 * @return a primeira posio, a partir de from, com documento maior ou
+	 *         igual ao procurado, ou documents.length se no houver
+	 */
+	public static int advance(int[] documents, int from, int target) {
+		return advance(documents, from, documents.length, target);
+	}
+
+	/**
+	 * Busca galopante em um trecho do array
+	 *
+	 * @param documents
+	 *            documentos, em ordem crescente at a posio final
+	 * @param from
+	 *            posio inicial da busca
+	 * @param to
+	 *            posio final, exclusiva, da busca
+	 * @param target
+	 *            documento procurado
+	 * @return a primeira posio, entre from e to, com documento maior ou
+	 *         igual ao procurado, ou to se no houver
+	 */
+	public static int advance(int[] documents, int from, int to, int target) {
+		int low = from;
+		int high = from;
+		int step = 1;
+		while (high < to && documents[high] < target) {
+			low = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		high = Math.min(high, to);
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (documents[middle] < target) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Busca galopante em postings lidos por posio de um buffer, como os
+	 * mapeados do arquivo do ndice
+	 *
+	 * @param documents
+	 *            documentos, em ordem crescente
+	 * @param from
+	 *            posio inicial da busca
+	 * @param target
+	 *            documento procurado
+	 * @return a primeira posio, a partir de from, com documento maior ou
+	 *         igual ao procurado, ou o tamanho do buffer se no houver
+	 */
+	public static int advance(IntBuffer documents, int from, int target) {
+		return advance(documents, from, documents.limit(), target);
+	}
+
+	/**
+	 * Busca galopante em um trecho do buffer
+	 *
+	 * @param documents
+	 *            documentos, em ordem crescente at a posio final
+	 * @param from
+	 *            posio inicial da busca
+	 * @param to
+	 *            posio final, exclusiva, da busca
+	 * @param target
+	 *            documento procurado
+	 * @return a primeira posio, entre from e to, com documento maior ou
+	 *         igual ao procurado, ou to se no houver
+	 */
+	public static int advance(IntBuffer documents, int from, int to,
+			int target) {
+		int low = from;
+		int high = from;
+		int step = 1;
+		while (high < to && documents.get(high) < target) {
+			low = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		high = Math.min(high, to);
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (documents.get(middle) < target) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Obtm os valores de um buffer de postings em um array, para as
+	 * codificaes, que percorrem os postings em arrays
+	 *
+	 * @param values
+	 *            os valores, lidos por posio
+	 * @return o array do buffer, se o buffer for um array inteiro, ou uma
+	 *         cpia dos valores
+	 */
+	public static int[] toArray(IntBuffer values) {
+		if (values.hasArray() && values.arrayOffset() == 0
+				&& values.array().length == values.limit()) {
+			return values.array();
+		}
+		int[] array = new int[values.limit()];
+		for (int index = 0; index < array.length; index++) {
+			array[index] = values.get(index);
+		}
+		return array;
+	}
+
+	/**
+	 * Escreve o nmero em bytes de tamanho varivel: 7 bits por byte, do menos
+	 * para o mais significativo, com o bit mais alto ligado em todos os bytes
+	 * menos o ltimo
+	 *
+	 * @param bytes
+	 *            buffer de destino, que deve ter ao menos 5 bytes livres
+	 * @param offset
+	 *            posio de escrita no buffer
+	 * @param number
+	 *            o nmero, no negativo
+	 * @return a posio seguinte ao ltimo byte escrito
+	 */
+	public static int writeVariableByte(byte[] bytes, int offset, int number) {
+		while ((number & ~0x7F) != 0) {
+			bytes[offset++] = (byte) ((number & 0x7F) | 0x80);
+			number >>>= 7;
+		}
+		bytes[offset++] = (byte) number;
+		return offset;
+	}
+
+	/**
+	 * Decodifica as posies de um posting, guardadas como a primeira posio
+	 * seguida das diferenas entre posies consecutivas
+	 *
+	 * @param bytes
+	 *            posies codificadas por {@link #writeVariableByte}
+	 * @param offset
+	 *            incio das posies do posting
+	 * @param end
+	 *            fim, exclusivo, das posies do posting
+	 * @param positions
+	 *            buffer de destino, com espao para a frequncia do termo no
+	 *            documento
+	 * @return a quantidade de posies do posting
+	 */
+	public static int readPositions(ByteBuffer bytes, int offset, int end,
+			int[] positions) {
+		int position = 0;
+		int index = 0;
+		while (offset < end) {
+			int delta = 0;
+			int shift = 0;
+			byte value;
+			do {
+				value = bytes.get(offset++);
+				delta |= (value & 0x7F) << shift;
+				shift += 7;
+			} while (value < 0);
+			position += delta;
+			positions[index++] = position;
+		}
+		return index;
+	}
+}
@@ -0,0 +1,40 @@
+package br.edu.pucminas.riw;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codificao compacta dos postings (documentos e frequncias) de um termo
+ */
+public interface PostingsCodec {
+
+	/**
+	 * Obtm o nome da codificao, usado nos relatrios e no arquivo do
+	 * ndice
+	 *
+	 * @return o nome
+	 */
+	String getName();
+
+	/**
+	 * Codifica os postings de um termo
+	 *
+	 * @param documents
+	 *            os documentos, em ordem crescente
+	 * @param frequencies
+	 *            a frequncia do termo em cada documento, maior que zero
+	 * @return os postings codificados
+	 */
+	EncodedPostings encode(int[] documents, int[] frequencies);
+
+	/**
+	 * L os postings de um termo gravados por
+	 * {@link EncodedPostings#write(java.io.DataOutputStream)} com esta
+	 * codificao
+	 *
+	 * @param buffer
+	 *            o buffer, posicionado no incio dos postings; a posio avana
+	 *            at o fim deles
+	 * @return os postings codificados
+	 */
+	EncodedPostings read(ByteBuffer buffer);
+}
@@ -0,0 +1,196 @@
+package br.edu.pucminas.riw;
+
+import java.util.Locale;
+
+/**
+ * Relatrio comparativo das codificaes de postings sobre um ndice: o
+ * tamanho dos postings codificados e a vazo de decodificao, percorrendo
+ * todos os postings e intersectando cada termo com o termo mais frequente
+ * por saltos. A referncia  o ndice em memria, com um int por documento e
+ * outro por frequncia.
+ *
+ * Cada medida  a melhor de algumas rodadas, depois de uma rodada de
+ * aquecimento, e cada rodada repete a passada sobre o ndice at completar um
+ * tempo mnimo.
+ */
+public class PostingsCodecReport {
+	private static final int MEASUREMENT_ROUNDS = 5;
+	private static final long MINIMUM_ROUND_TIME = 50 * 1000000L;
+
+	private StringBuilder report = new StringBuilder();
+
+	// Evita que o compilador JIT descarte as decodificaes
+	private long checksum;
+
+	/**
+	 * Codifica os postings do ndice com cada codificao e mede o tamanho e
+	 * a vazo de cada uma
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param codecs
+	 *            as codificaes
+	 * @throws IllegalStateException
+	 *             caso alguma codificao no reproduza os postings do ndice
+	 */
+	public PostingsCodecReport(InvertedIndex invertedIndex,
+			PostingsCodec[] codecs) {
+		int termsTotal = invertedIndex.getTermsTotal();
+		long postingsTotal = 0;
+		int longestTerm = 0;
+		for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+			postingsTotal += invertedIndex.getDocumentFrequency(termIndex);
+			if (invertedIndex.getDocumentFrequency(termIndex) > invertedIndex
+					.getDocumentFrequency(longestTerm)) {
+				longestTerm = termIndex;
+			}
+		}
+
+		report.append(String.format(Locale.ROOT,
+				"%d termos, %d postings; intersees com o termo \"%s\" (%d postings)%n",
+				termsTotal, postingsTotal, invertedIndex.getTerm(longestTerm),
+				invertedIndex.getDocumentFrequency(longestTerm)));
+		report.append(String.format(Locale.ROOT, "%-10s %12s %14s %18s %18s%n",
+				"codec", "bytes", "bits/posting", "decodificao", "intersees"));
+		report.append(String.format(Locale.ROOT, "%-10s %12d %14.2f %18s %18s%n",
+				"int[]", postingsTotal * 8, 64.0, "-", "-"));
+
+		for (PostingsCodec codec : codecs) {
+			EncodedPostings[] encodedPostings = new EncodedPostings[termsTotal];
+			long sizeInBytes = 0;
+			for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+				encodedPostings[termIndex] = codec.encode(
+						Postings.toArray(invertedIndex.getDocuments(termIndex)),
+						Postings.toArray(invertedIndex
+								.getFrequencies(termIndex)));
+				sizeInBytes += encodedPostings[termIndex].getSizeInBytes();
+				verify(codec, invertedIndex, termIndex,
+						encodedPostings[termIndex]);
+			}
+
+			double decodeRate = measure(encodedPostings, -1) / 1e6;
+			double intersectRate = measure(encodedPostings, longestTerm) / 1e6;
+			report.append(String.format(Locale.ROOT,
+					"%-10s %12d %14.2f %13.1f M/s %13.1f M/s%n",
+					codec.getName(), sizeInBytes, sizeInBytes * 8.0
+							/ postingsTotal, decodeRate, intersectRate));
+		}
+	}
+
+	/**
+	 * Obtm o relatrio, uma linha por codificao
+	 *
+	 * @return o relatrio
+	 */
+	public String getReport() {
+		return report.toString();
+	}
+
+	/**
+	 * Mede a vazo de uma passada sobre o ndice
+	 *
+	 * @param encodedPostings
+	 *            os postings codificados de cada termo
+	 * @param longestTerm
+	 *            termo intersectado com os demais, ou -1 para percorrer todos
+	 *            os postings
+	 * @return os postings processados por segundo na melhor rodada
+	 */
+	private double measure(EncodedPostings[] encodedPostings, int longestTerm) {
+		double bestRate = 0;
+		for (int round = 0; round <= MEASUREMENT_ROUNDS; round++) {
+			long postingsTotal = 0;
+			long start = System.nanoTime();
+			long elapsed;
+			do {
+				postingsTotal += longestTerm < 0 ? decodeAll(encodedPostings)
+						: intersectAll(encodedPostings, longestTerm);
+				elapsed = System.nanoTime() - start;
+			} while (elapsed < MINIMUM_ROUND_TIME);
+
+			// A primeira rodada  o aquecimento
+			if (round > 0) {
+				bestRate = Math.max(bestRate, postingsTotal * 1e9 / elapsed);
+			}
+		}
+		return bestRate;
+	}
+
+	private long decodeAll(EncodedPostings[] encodedPostings) {
+		long postingsTotal = 0;
+		for (EncodedPostings postings : encodedPostings) {
+			PostingsIterator iterator = postings.iterator();
+			while (iterator.nextDocument() != PostingsIterator.NO_MORE_DOCUMENTS) {
+				checksum += iterator.getDocument() + iterator.getFrequency();
+			}
+			postingsTotal += postings.size();
+		}
+		return postingsTotal;
+	}
+
+	/**
+	 * Intersecta cada termo com o termo mais frequente, avanando o iterador
+	 * que est atrs at o documento do outro
+	 *
+	 * @return a soma dos tamanhos dos postings intersectados
+	 */
+	private long intersectAll(EncodedPostings[] encodedPostings, int longestTerm) {
+		long postingsTotal = 0;
+		for (int termIndex = 0; termIndex < encodedPostings.length; termIndex++) {
+			if (termIndex == longestTerm) {
+				continue;
+			}
+			PostingsIterator iterator = encodedPostings[termIndex].iterator();
+			PostingsIterator longestIterator = encodedPostings[longestTerm]
+					.iterator();
+			int document = iterator.nextDocument();
+			while (document != PostingsIterator.NO_MORE_DOCUMENTS) {
+				int longestDocument = longestIterator.advance(document);
+				if (longestDocument == document) {
+					checksum += document + iterator.getFrequency()
+							+ longestIterator.getFrequency();
+					document = iterator.nextDocument();
+				} else {
+					document = iterator.advance(longestDocument);
+				}
+			}
+			postingsTotal += encodedPostings[termIndex].size()
+					+ encodedPostings[longestTerm].size();
+		}
+		return postingsTotal;
+	}
+
+	/**
+	 * Confere se os postings decodificados, sequencialmente e por saltos, so
+	 * os do ndice
+	 */
+	private void verify(PostingsCodec codec, InvertedIndex invertedIndex,
+			int termIndex, EncodedPostings encodedPostings) {
+		int[] documents = Postings.toArray(invertedIndex
+				.getDocuments(termIndex));
+		int[] frequencies = Postings.toArray(invertedIndex
+				.getFrequencies(termIndex));
+		PostingsIterator iterator = encodedPostings.iterator();
+		boolean valid = true;
+		for (int postingIndex = 0; postingIndex < documents.length; postingIndex++) {
+			valid &= iterator.nextDocument() == documents[postingIndex]
+					&& iterator.getFrequency() == frequencies[postingIndex];
+		}
+		valid &= iterator.nextDocument() == PostingsIterator.NO_MORE_DOCUMENTS;
+
+		// Saltos para o sucessor de cada documento de 7 em 7 postings
+		iterator = encodedPostings.iterator();
+		for (int postingIndex = 0; valid && postingIndex < documents.length; postingIndex += 7) {
+			int target = documents[postingIndex] + 1;
+			int expected = postingIndex + 1 < documents.length ? documents[postingIndex + 1]
+					: PostingsIterator.NO_MORE_DOCUMENTS;
+			valid &= iterator.advance(target) == expected;
+		}
+
+		if (valid == false) {
+			throw new IllegalStateException("Codificao " + codec.getName()
+					+ " no reproduz os postings do termo "
+					+ invertedIndex.getTerm(termIndex));
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package br.edu.pucminas.riw;
+
+/**
+ * Codificaes de postings disponveis para o arquivo do ndice e para o
+ * relatrio comparativo. Na codificao "raw", os postings so gravados como
+ * um int por documento e outro por frequncia, e lidos sem decodificao.
+ */
+public enum PostingsCodecType {
+	RAW("raw"), VARIABLE_BYTE("vbyte"), PFOR_DELTA("pfordelta"), ELIAS_FANO(
+			"eliasfano");
+
+	private String name;
+
+	private PostingsCodecType(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Cria a codificao
+	 *
+	 * @return a codificao, ou null para os postings sem codificao
+	 */
+	public PostingsCodec createCodec() {
+		switch (this) {
+		case VARIABLE_BYTE:
+			return new VariableByteCodec();
+		case PFOR_DELTA:
+			return new PForDeltaCodec();
+		case ELIAS_FANO:
+			return new EliasFanoCodec();
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Obtm a codificao pelo nome
+	 *
+	 * @param name
+	 *            nome da codificao, como "raw" ou "pfordelta"
+	 * @return a codificao, ou null caso no exista
+	 */
+	public static PostingsCodecType fromName(String name) {
+		for (PostingsCodecType codecType : values()) {
+			if (codecType.name.equals(name)) {
+				return codecType;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,134 @@
+package br.edu.pucminas.riw;
+
+/**
+ * Iterador sobre postings codificados por um {@link PostingsCodec}. Os
+ * postings so decodificados em blocos de {@link #BLOCK_SIZE} documentos, e a
+ * tabela com o ltimo documento de cada bloco permite saltar os blocos que no
+ * interessam sem decodific-los.
+ */
+public abstract class PostingsIterator {
+	public static final int NO_MORE_DOCUMENTS = Integer.MAX_VALUE;
+	public static final int BLOCK_SIZE = 128;
+
+	private int size;
+	private int[] lastDocuments;
+	private int blocksTotal;
+	private int blockIndex = -1;
+	private int blockSize;
+	private int position = -1;
+	private int document = -1;
+
+	// Bloco corrente decodificado; os postings de um nico bloco curto no
+	// precisam de um buffer do tamanho de um bloco
+	private int[] documents;
+	private int[] frequencies;
+
+	/**
+	 * Cria o iterador, posicionado antes do primeiro documento
+	 *
+	 * @param size
+	 *            quantidade de postings
+	 * @param lastDocuments
+	 *            ltimo documento de cada bloco
+	 */
+	protected PostingsIterator(int size, int[] lastDocuments) {
+		this.size = size;
+		this.lastDocuments = lastDocuments;
+		this.blocksTotal = lastDocuments.length;
+		documents = new int[Math.min(BLOCK_SIZE, size)];
+		frequencies = new int[documents.length];
+	}
+
+	/**
+	 * Obtm o documento corrente
+	 *
+	 * @return o documento, -1 antes do primeiro ou {@link #NO_MORE_DOCUMENTS}
+	 *         depois do ltimo
+	 */
+	public int getDocument() {
+		return document;
+	}
+
+	/**
+	 * Obtm a frequncia do termo no documento corrente
+	 *
+	 * @return a frequncia
+	 */
+	public int getFrequency() {
+		return frequencies[position];
+	}
+
+	/**
+	 * Avana para o prximo documento
+	 *
+	 * @return o documento, ou {@link #NO_MORE_DOCUMENTS} se no houver
+	 */
+	public int nextDocument() {
+		if (document == NO_MORE_DOCUMENTS) {
+			return document;
+		}
+		if (++position == blockSize) {
+			if (blockIndex + 1 == blocksTotal) {
+				return document = NO_MORE_DOCUMENTS;
+			}
+			loadBlock(blockIndex + 1);
+		}
+		return document = documents[position];
+	}
+
+	/**
+	 * Avana para o primeiro documento maior ou igual ao procurado; o
+	 * iterador no volta, e o documento corrente  mantido se j for maior ou
+	 * igual. Os blocos so escolhidos por busca galopante na tabela de
+	 * ltimos documentos, e o documento, no bloco decodificado.
+	 *
+	 * @param target
+	 *            o documento procurado
+	 * @return o documento, ou {@link #NO_MORE_DOCUMENTS} se no houver
+	 */
+	public int advance(int target) {
+		if (document >= target) {
+			return document;
+		}
+		if (blockIndex < 0 || lastDocuments[blockIndex] < target) {
+			int nextBlock = Postings.advance(lastDocuments,
+					Math.max(blockIndex, 0), target);
+			if (nextBlock == blocksTotal) {
+				return document = NO_MORE_DOCUMENTS;
+			}
+			loadBlock(nextBlock);
+		}
+		position = Postings.advance(documents, Math.max(position, 0),
+				blockSize, target);
+		return document = documents[position];
+	}
+
+	/**
+	 * Quantidade total de postings
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void loadBlock(int blockIndex) {
+		this.blockIndex = blockIndex;
+		blockSize = Math.min(BLOCK_SIZE, size - blockIndex * BLOCK_SIZE);
+		decodeBlock(blockIndex, blockSize, documents, frequencies);
+		position = 0;
+	}
+
+	/**
+	 * Decodifica um bloco de postings
+	 *
+	 * @param blockIndex
+	 *            ndice do bloco
+	 * @param blockSize
+	 *            quantidade de postings do bloco
+	 * @param documents
+	 *            buffer de destino dos documentos
+	 * @param frequencies
+	 *            buffer de destino das frequncias
+	 */
+	protected abstract void decodeBlock(int blockIndex, int blockSize,
+			int[] documents, int[] frequencies);
+}
@@ -1,5 +1,7 @@
 package br.edu.pucminas.riw;
 
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Classe de entrada do sistema, que chama os componentes de processamento e
@@ -11,18 +13,60 @@ public class Processor {
 	private static final String PARAM_ENCODING = "-e=";
 	private static final String PARAM_FILENAME = "-f=";
 	private static final String PARAM_QUERIESFILE = "-q=";
+	private static final String PARAM_LANGUAGE = "-l=";
+	private static final String PARAM_STEMCACHEFILE = "-c=";
+	private static final String PARAM_STEMCACHESIZE = "-s=";
+	private static final String PARAM_STEMCACHEPOLICY = "-p=";
+	private static final String PARAM_RANKINGMODEL = "-m=";
+	private static final String PARAM_RESULTCACHESIZE = "-r=";
+	private static final String PARAM_INDEXFILE = "-i=";
+	private static final String PARAM_POSTINGSCODEC = "-k=";
+	private static final String PARAM_APPENDFILES = "-a=";
+	private static final String APPENDFILES_SEPARATOR = ",";
+	private static final String PARAM_UPDATEFILE = "-u=";
+	private static final String PARAM_DELETEDDOCUMENTS = "-x=";
+	private static final String DELETEDDOCUMENTS_SEPARATOR = ",";
+	private static final String COMMAND_INDEX = "index";
+	private static final String COMMAND_SEARCH = "search";
+	private static final String COMMAND_CODECS = "codecs";
 	private static final String PARAM_DEBUG = "-d";
 	private static final String PARAM_HELP = "-h";
-	private static final String MESSAGE_USAGE = "Uso: Processor (-f=nomeDoArquivo) (-q=nomeDoArquivo) (-e=codificacao) (-d) (-h)";
+	private static final String MESSAGE_USAGE = "Uso: Processor (index|search|codecs) (-i=nomeDoArquivo) (-k=codec) (-f=nomeDoArquivo) (-a=nomesDosArquivos) (-u=nomeDoArquivo) (-x=indices) (-q=nomeDoArquivo) (-e=codificacao) (-l=idioma) (-c=nomeDoArquivo) (-s=tamanho) (-p=politica) (-m=modelo) (-r=tamanho) (-d) (-h)";
 	private static final String MESSAGE_INVALID_ARGUMENTS = "Argumentos invalidos. " + MESSAGE_USAGE;
 	private static final String MESSAGE_REPEATED_ARGUMENTS = "Argumentos no podem ser repetidos. " + MESSAGE_USAGE;
 	private static final String DEFAULT_DOCS_FILE = "docs.txt";
 	private static final String DEFAULT_ENCODING = "UTF-8";
 	private static final String DEFAULT_QUERIES_FILE = "queries.txt";
+	private static final Language DEFAULT_LANGUAGE = Language.ENGLISH;
+	private static final int DEFAULT_STEM_CACHE_SIZE = 65536;
+	private static final StemCache.EvictionPolicy DEFAULT_STEM_CACHE_EVICTION_POLICY = StemCache.EvictionPolicy.LRU;
+	private static final RankingModel DEFAULT_RANKING_MODEL = RankingModel.VECTORIAL;
+	private static final int DEFAULT_RESULT_CACHE_SIZE = 1024;
+	private static final String DEFAULT_INDEX_FILE = "index.bin";
+	private static final PostingsCodecType DEFAULT_POSTINGS_CODEC = PostingsCodecType.RAW;
 	
 	private String docsFileName = DEFAULT_DOCS_FILE;
 	private String queriesFileName = DEFAULT_QUERIES_FILE;
 	private String encoding = DEFAULT_ENCODING;
+	private Language language = DEFAULT_LANGUAGE;
+	private boolean languageDefined = false;
+	private String stemCacheFileName = null;
+	private int stemCacheSize = DEFAULT_STEM_CACHE_SIZE;
+	private boolean stemCacheSizeDefined = false;
+	private StemCache.EvictionPolicy stemCacheEvictionPolicy = DEFAULT_STEM_CACHE_EVICTION_POLICY;
+	private boolean stemCacheEvictionPolicyDefined = false;
+	private RankingModel rankingModel = DEFAULT_RANKING_MODEL;
+	private boolean rankingModelDefined = false;
+	private int resultCacheSize = DEFAULT_RESULT_CACHE_SIZE;
+	private boolean resultCacheSizeDefined = false;
+	private String command = null;
+	private String indexFileName = DEFAULT_INDEX_FILE;
+	private PostingsCodecType postingsCodecType = DEFAULT_POSTINGS_CODEC;
+	private boolean postingsCodecTypeDefined = false;
+	private String[] appendFileNames = new String[0];
+	private boolean appendFileNamesDefined = false;
+	private String updateFileName = null;
+	private List<Integer> deletedDocumentsList = null;
 	private boolean debugMode = false;
 
 	/**
@@ -36,6 +80,75 @@ public class Processor {
 			if (argument.equals(PARAM_HELP)) {
 				throw new IllegalStateException(MESSAGE_USAGE);
 			}
+			else if (argument.equals(COMMAND_INDEX) || argument.equals(COMMAND_SEARCH) || argument.equals(COMMAND_CODECS)) {
+				if (command != null) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				command = argument;
+			}
+			else if (argument.startsWith(PARAM_INDEXFILE)) {
+				if (indexFileName.equals(DEFAULT_INDEX_FILE) == false) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				indexFileName = argument.replace(PARAM_INDEXFILE, "");
+				
+				if (indexFileName.length() == 0) {
+					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+				}
+			}
+			else if (argument.startsWith(PARAM_POSTINGSCODEC)) {
+				if (postingsCodecTypeDefined == true) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				postingsCodecType = PostingsCodecType.fromName(argument.replace(PARAM_POSTINGSCODEC, ""));
+				postingsCodecTypeDefined = true;
+				
+				if (postingsCodecType == null) {
+					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+				}
+			}
+			else if (argument.startsWith(PARAM_APPENDFILES)) {
+				if (appendFileNamesDefined == true) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				appendFileNames = argument.replace(PARAM_APPENDFILES, "").split(APPENDFILES_SEPARATOR);
+				appendFileNamesDefined = true;
+				
+				for (String appendFileName : appendFileNames) {
+					if (appendFileName.length() == 0) {
+						throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+					}
+				}
+			}
+			else if (argument.startsWith(PARAM_UPDATEFILE)) {
+				if (updateFileName != null) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				updateFileName = argument.replace(PARAM_UPDATEFILE, "");
+				
+				if (updateFileName.length() == 0) {
+					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+				}
+			}
+			else if (argument.startsWith(PARAM_DELETEDDOCUMENTS)) {
+				if (deletedDocumentsList != null) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				deletedDocumentsList = new ArrayList<Integer>();
+				for (String documentIndex : argument.replace(PARAM_DELETEDDOCUMENTS, "").split(DELETEDDOCUMENTS_SEPARATOR)) {
+					try {
+						deletedDocumentsList.add(Integer.parseInt(documentIndex));
+					} catch (NumberFormatException e) {
+						throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+					}
+				}
+			}
 			else if (argument.equals(PARAM_DEBUG)) {
 				if (debugMode == true) {
 					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
@@ -76,10 +189,107 @@ public class Processor {
 					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
 				}
 			}
+			else if (argument.startsWith(PARAM_LANGUAGE)) {
+				if (languageDefined == true) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				language = Language.fromName(argument.replace(PARAM_LANGUAGE, ""));
+				languageDefined = true;
+				
+				if (language == null) {
+					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+				}
+			}
+			else if (argument.startsWith(PARAM_STEMCACHEFILE)) {
+				if (stemCacheFileName != null) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				stemCacheFileName = argument.replace(PARAM_STEMCACHEFILE, "");
+				
+				if (stemCacheFileName.length() == 0) {
+					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+				}
+			}
+			else if (argument.startsWith(PARAM_STEMCACHESIZE)) {
+				if (stemCacheSizeDefined == true) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				try {
+					stemCacheSize = Integer.parseInt(argument.replace(PARAM_STEMCACHESIZE, ""));
+				} catch (NumberFormatException e) {
+					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+				}
+				stemCacheSizeDefined = true;
+				
+				if (stemCacheSize <= 0) {
+					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+				}
+			}
+			else if (argument.startsWith(PARAM_STEMCACHEPOLICY)) {
+				if (stemCacheEvictionPolicyDefined == true) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				stemCacheEvictionPolicy = StemCache.EvictionPolicy.fromName(argument.replace(PARAM_STEMCACHEPOLICY, ""));
+				stemCacheEvictionPolicyDefined = true;
+				
+				if (stemCacheEvictionPolicy == null) {
+					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+				}
+			}
+			else if (argument.startsWith(PARAM_RANKINGMODEL)) {
+				if (rankingModelDefined == true) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				rankingModel = RankingModel.fromName(argument.replace(PARAM_RANKINGMODEL, ""));
+				rankingModelDefined = true;
+				
+				if (rankingModel == null) {
+					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+				}
+			}
+			else if (argument.startsWith(PARAM_RESULTCACHESIZE)) {
+				if (resultCacheSizeDefined == true) {
+					throw new IllegalStateException(MESSAGE_REPEATED_ARGUMENTS);
+				}
+				
+				try {
+					resultCacheSize = Integer.parseInt(argument.replace(PARAM_RESULTCACHESIZE, ""));
+				} catch (NumberFormatException e) {
+					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+				}
+				resultCacheSizeDefined = true;
+				
+				if (resultCacheSize < 0) {
+					throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+				}
+			}
 			else {
 				throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
 			}
 		}
+		
+		// Na busca, os documentos e o idioma so os do ndice
+		if (COMMAND_SEARCH.equals(command)
+				&& (docsFileName.equals(DEFAULT_DOCS_FILE) == false || languageDefined == true)) {
+			throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+		}
+		
+		// A codificao dos postings s vale para a gravao do ndice
+		if (postingsCodecTypeDefined == true && COMMAND_INDEX.equals(command) == false) {
+			throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+		}
+		
+		// Os documentos acrescentados, atualizados e excludos s valem para
+		// as consultas
+		if ((appendFileNamesDefined == true || updateFileName != null || deletedDocumentsList != null)
+				&& (COMMAND_INDEX.equals(command) || COMMAND_CODECS.equals(command))) {
+			throw new IllegalStateException(MESSAGE_INVALID_ARGUMENTS);
+		}
 	}
 	
 	public String getDocsFileName() {
@@ -94,12 +304,99 @@ public class Processor {
 		return encoding;
 	}
 	
+	public Language getLanguage() {
+		return language;
+	}
+	
+	public String getStemCacheFileName() {
+		return stemCacheFileName;
+	}
+	
+	public int getStemCacheSize() {
+		return stemCacheSize;
+	}
+	
+	public StemCache.EvictionPolicy getStemCacheEvictionPolicy() {
+		return stemCacheEvictionPolicy;
+	}
+	
+	public RankingModel getRankingModel() {
+		return rankingModel;
+	}
+	
+	public int getResultCacheSize() {
+		return resultCacheSize;
+	}
+	
+	public String getCommand() {
+		return command;
+	}
+	
+	public String getIndexFileName() {
+		return indexFileName;
+	}
+	
+	public PostingsCodecType getPostingsCodecType() {
+		return postingsCodecType;
+	}
+	
+	public String[] getAppendFileNames() {
+		return appendFileNames;
+	}
+	
+	public String getUpdateFileName() {
+		return updateFileName;
+	}
+	
+	public List<Integer> getDeletedDocumentsList() {
+		return deletedDocumentsList;
+	}
+	
 	public boolean isDebugMode() {
 		return debugMode;
 	}
 
 	/**
-	 * Este mtodo pode receber 4 parmetros da linha de comando:
+	 * Este mtodo pode receber um comando e 15 parmetros da linha de comando:
+	 * index			- Se for passado este comando, processar os documentos e
+	 * 			 		  gravar o ndice no arquivo do parmetro -i, sem
+	 * 			 		  processar as consultas.
+	 * search			- Se for passado este comando, ler o ndice do arquivo do
+	 * 			 		  parmetro -i, sem reprocessar os documentos, e processar
+	 * 			 		  as consultas. Os documentos e o idioma so os do ndice,
+	 * 			 		  e os parmetros -f e -l no so aceitos.
+	 * codecs			- Se for passado este comando, processar os documentos e
+	 * 			 		  comparar o tamanho e a vazo de decodificao dos
+	 * 			 		  postings em cada codificao (vbyte, pfordelta,
+	 * 			 		  eliasfano), sem processar as consultas.
+	 *           		  Caso nenhum comando seja fornecido, processar os
+	 *           		  documentos e as consultas sem gravar o ndice.
+	 * -i=nomeDoArquivo - Se for passado este argumento, ser o caminho do arquivo
+	 * 			 		  do ndice dos comandos index e search.
+	 *           		  Caso no seja fornecido, utilizar o arquivo que estiver
+	 *            		  definido na constante DEFAULT_INDEX_FILE.
+	 * -k=codec			- Se for passado este argumento, ser a codificao dos
+	 * 			 		  postings no arquivo do ndice (raw, vbyte, pfordelta,
+	 * 			 		  eliasfano). A busca l a codificao do prprio ndice,
+	 * 			 		  e o argumento s  aceito pelo comando index.
+	 *           		  Caso no seja fornecido, utilizar a codificao que
+	 *            		  estiver definida na constante DEFAULT_POSTINGS_CODEC.
+	 * -a=nomesDosArquivos - Se for passado este argumento, os documentos de cada
+	 * 			 		  arquivo da lista, separada por vrgulas, sero
+	 * 			 		  acrescentados ao ndice antes das consultas, cada
+	 * 			 		  arquivo em um novo segmento, sem reprocessar os
+	 * 			 		  documentos j indexados. No  aceito pelos comandos
+	 * 			 		  index e codecs.
+	 * -u=nomeDoArquivo - Se for passado este argumento, os documentos do arquivo,
+	 * 			 		  em que cada linha tem o ndice de um documento j
+	 * 			 		  indexado e o seu novo contedo, separados por espao,
+	 * 			 		  substituiro os documentos antigos antes das consultas,
+	 * 			 		  depois dos acrescentados pelo parmetro -a. No 
+	 * 			 		  aceito pelos comandos index e codecs.
+	 * -x=ndices		- Se for passado este argumento, os documentos da lista de
+	 * 			 		  ndices, separada por vrgulas, sero excludos do
+	 * 			 		  ndice antes das consultas, depois das atualizaes.
+	 * 			 		  No  aceito pelos comandos index e codecs.
 	 * -d    			- Se for passado este argumento, imprimir as stack
 	 *            		  traces de eventuais excees que ocorrerem. 
 	 * -f=nomeDoArquivo - Se for passado este argumento, ser o caminho do arquivo
@@ -107,13 +404,40 @@ public class Processor {
 	 *           		  Caso no seja fornecido, processar o arquivo que estiver
 	 *            		  definido na constante DEFAULT_DOCS_FILE.
 	 * -q=nomeDoArquivo - Se for passado este argumento, ser o caminho do arquivo
-	 * 			 		  de consultas a ser processado.
+	 * 			 		  de consultas a ser processado. No modelo booleano, as
+	 * 			 		  consultas aceitam os operadores AND, OR, NOT e parnteses,
+	 * 			 		  frases entre aspas e proximidade ("termos"~distncia).
 	 *           		  Caso no seja fornecido, processar o arquivo que estiver
 	 *            		  definido na constante DEFAULT_QUERIES_FILE.
 	 * -e=codificao 	- Se for passado este argumento, ser o encoding do arquivo
 	 * 			  		  a ser processado.
 	 *           		  Caso no seja fornecido, utilizar o encoding que estiver
 	 *            		  definido na constante DEFAULT_ENCODING.
+	 * -l=idioma 		- Se for passado este argumento, ser o idioma dos
+	 * 			  		  documentos, que define o stemmer e o arquivo de stopwords
+	 * 			  		  (english, portuguese, spanish...).
+	 *           		  Caso no seja fornecido, utilizar o idioma que estiver
+	 *            		  definido na constante DEFAULT_LANGUAGE.
+	 * -c=nomeDoArquivo - Se for passado este argumento, ser o caminho do arquivo
+	 * 			 		  onde o vocabulrio do cache de radicais  salvo ao final,
+	 * 			 		  e de onde  lido no incio da prxima execuo.
+	 * -s=tamanho 		- Se for passado este argumento, ser a quantidade mxima
+	 * 			  		  de radicais guardados no cache de radicais.
+	 *           		  Caso no seja fornecido, utilizar o tamanho que estiver
+	 *            		  definido na constante DEFAULT_STEM_CACHE_SIZE.
+	 * -p=poltica 		- Se for passado este argumento, ser a poltica de
+	 * 			  		  descarte do cache de radicais (lru, fifo).
+	 *           		  Caso no seja fornecido, utilizar a poltica que estiver
+	 *            		  definida na constante DEFAULT_STEM_CACHE_EVICTION_POLICY.
+	 * -m=modelo 		- Se for passado este argumento, ser o modelo usado nas
+	 * 			  		  consultas com ordenao por relevncia (vectorial, bm25).
+	 *           		  Caso no seja fornecido, utilizar o modelo que estiver
+	 *            		  definido na constante DEFAULT_RANKING_MODEL.
+	 * -r=tamanho 		- Se for passado este argumento, ser a quantidade mxima
+	 * 			  		  de resultados de consultas guardados em cache; 0 desliga
+	 * 			  		  o cache.
+	 *           		  Caso no seja fornecido, utilizar o tamanho que estiver
+	 *            		  definido na constante DEFAULT_RESULT_CACHE_SIZE.
 	 * -h               - Se for passado este argumento, exibir a usagem do aplicativo.
 	 * @param args array de argumentos
 	 */
@@ -122,9 +446,34 @@ public class Processor {
 		try {
 			processor = new Processor(args);
 			
-			DocumentsProcessor documentProcessor = new DocumentsProcessor(processor.getDocsFileName(), processor.getEncoding());
+			DocumentsProcessor documentProcessor;
+			if (COMMAND_SEARCH.equals(processor.getCommand())) {
+				documentProcessor = new DocumentsProcessor(processor.getIndexFileName(), processor.getStemCacheFileName(), processor.getStemCacheSize(), processor.getStemCacheEvictionPolicy(), processor.getRankingModel(), processor.getResultCacheSize());
+			}
+			else {
+				documentProcessor = new DocumentsProcessor(processor.getDocsFileName(), processor.getEncoding(), processor.getLanguage(), processor.getStemCacheFileName(), processor.getStemCacheSize(), processor.getStemCacheEvictionPolicy(), processor.getRankingModel(), processor.getResultCacheSize());
+			}
+			
+			if (COMMAND_INDEX.equals(processor.getCommand())) {
+				documentProcessor.saveIndex(processor.getIndexFileName(), processor.getPostingsCodecType());
+			}
+			else if (COMMAND_CODECS.equals(processor.getCommand())) {
+				documentProcessor.reportPostingsCodecs();
+			}
+			else {
+				for (String appendFileName : processor.getAppendFileNames()) {
+					documentProcessor.appendDocuments(appendFileName, processor.getEncoding());
+				}
+				if (processor.getUpdateFileName() != null) {
+					documentProcessor.updateDocuments(processor.getUpdateFileName(), processor.getEncoding());
+				}
+				if (processor.getDeletedDocumentsList() != null) {
+					documentProcessor.deleteDocuments(processor.getDeletedDocumentsList());
+				}
+				documentProcessor.processQueries(processor.getQueriesFileName(), processor.getEncoding());
+			}
 			
-			documentProcessor.processQueries(processor.getQueriesFileName(), processor.getEncoding());
+			documentProcessor.saveStemCache();
 		} 
 		catch (IllegalStateException e) {
 			System.out.println(e.getMessage());
@@ -0,0 +1,222 @@
+package br.edu.pucminas.riw;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Motor de pontuao de lotes de consultas: os postings de cada termo so
+ * percorridos uma nica vez para todas as consultas do lote que o contm, e as
+ * pontuaes de todas as consultas so acumuladas juntas, em uma matriz
+ * documentos x consultas guardada por linhas. A coleo  percorrida em
+ * intervalos de documentos, com um cursor nos postings de cada termo, para que
+ * a matriz de um intervalo caiba no cache do processador.
+ *
+ * Os termos so percorridos em ordem crescente de ndice, e a pontuao de
+ * cada consulta  exatamente a mesma da avaliao termo a termo individual.
+ */
+public class QueryBatchScorer {
+	private static final int MAXIMUM_BATCH_SIZE = 64;
+
+	// Tamanho da matriz de pontuaes de um intervalo: 256 KB
+	private static final int RANGE_SCORES_SIZE = 1 << 15;
+
+	// Recebe as pontuaes positivas de cada consulta do lote, em ordem
+	// crescente de documento
+	private interface ScoreHandler {
+		void score(int query, int document, double score);
+	}
+
+	private InvertedIndex invertedIndex;
+	private double[][] weightsPostings;
+	private double[] documentNorms;
+
+	/**
+	 * Cria o motor de pontuao
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param weightsPostings
+	 *            peso de cada termo em cada documento, na ordem dos postings
+	 * @param documentNorms
+	 *            norma do vetor de cada documento, para a normalizao pelo
+	 *            cosseno, ou null para pontuaes sem normalizao
+	 */
+	public QueryBatchScorer(InvertedIndex invertedIndex,
+			double[][] weightsPostings, double[] documentNorms) {
+		this.invertedIndex = invertedIndex;
+		this.weightsPostings = weightsPostings;
+		this.documentNorms = documentNorms;
+	}
+
+	/**
+	 * Obtm os documentos com pontuao positiva de cada consulta
+	 *
+	 * @param queries
+	 *            as consultas
+	 * @return os ndices dos documentos de cada consulta, em ordem crescente
+	 */
+	public List<List<Integer>> processQueries(QueryVector[] queries) {
+		final List<List<Integer>> resultsLists = new ArrayList<List<Integer>>(
+				queries.length);
+		for (int query = 0; query < queries.length; query++) {
+			resultsLists.add(new ArrayList<Integer>());
+		}
+
+		for (int batchStart = 0; batchStart < queries.length; batchStart += MAXIMUM_BATCH_SIZE) {
+			int batchEnd = Math.min(batchStart + MAXIMUM_BATCH_SIZE,
+					queries.length);
+			scoreBatch(queries, batchStart, batchEnd, new ScoreHandler() {
+				@Override
+				public void score(int query, int document, double score) {
+					resultsLists.get(query).add(document);
+				}
+			});
+		}
+		return resultsLists;
+	}
+
+	/**
+	 * Obtm os documentos mais bem pontuados de cada consulta
+	 *
+	 * @param queries
+	 *            as consultas
+	 * @param treshold
+	 *            quantidade de documentos mais relevantes a serem retornados
+	 * @param minimalRelevance
+	 *            pontuao mnima dos documentos relevantes
+	 * @return os documentos retornados e os relevantes de cada consulta
+	 */
+	public List<RelevanceSearchReturn> processQueriesWithRelevance(
+			QueryVector[] queries, int treshold, double minimalRelevance) {
+		List<RelevanceSearchReturn> returnsList = new ArrayList<RelevanceSearchReturn>(
+				queries.length);
+
+		// Um coletor por consulta do lote, reaproveitado entre os lotes
+		final TopKCollector[] collectors = new TopKCollector[Math.min(
+				MAXIMUM_BATCH_SIZE, queries.length)];
+		for (int query = 0; query < collectors.length; query++) {
+			collectors[query] = new TopKCollector();
+		}
+
+		for (int batchStart = 0; batchStart < queries.length; batchStart += MAXIMUM_BATCH_SIZE) {
+			final int batchEnd = Math.min(batchStart + MAXIMUM_BATCH_SIZE,
+					queries.length);
+			for (int query = batchStart; query < batchEnd; query++) {
+				collectors[query - batchStart].reset(treshold,
+						minimalRelevance);
+			}
+
+			final int collectorsStart = batchStart;
+			scoreBatch(queries, batchStart, batchEnd, new ScoreHandler() {
+				@Override
+				public void score(int query, int document, double score) {
+					collectors[query - collectorsStart].collect(document,
+							score);
+				}
+			});
+
+			for (int query = batchStart; query < batchEnd; query++) {
+				returnsList.add(collectors[query - batchStart].getResults());
+			}
+		}
+		return returnsList;
+	}
+
+	private void scoreBatch(QueryVector[] queries, int batchStart,
+			int batchEnd, ScoreHandler handler) {
+		int width = batchEnd - batchStart;
+
+		// Pares (termo, consulta) do lote, ordenados por termo: cada chave tem
+		// o termo nos 32 bits altos e a posio do par nos baixos
+		int pairsTotal = 0;
+		for (int query = batchStart; query < batchEnd; query++) {
+			pairsTotal += queries[query].size();
+		}
+		long[] order = new long[pairsTotal];
+		int[] queriesPairs = new int[pairsTotal];
+		double[] weightsPairs = new double[pairsTotal];
+		int pair = 0;
+		for (int query = batchStart; query < batchEnd; query++) {
+			QueryVector queryVector = queries[query];
+			for (int position = 0; position < queryVector.size(); position++) {
+				order[pair] = ((long) queryVector.getTermIndex(position) << 32)
+						| pair;
+				queriesPairs[pair] = query - batchStart;
+				weightsPairs[pair++] = queryVector.getWeight(position);
+			}
+		}
+		Arrays.sort(order);
+
+		// Agrupa os pares por termo, j com a consulta e o peso de cada par
+		int[] pairsQueries = new int[pairsTotal];
+		double[] pairsWeights = new double[pairsTotal];
+		int[] groupsTerms = new int[pairsTotal];
+		int[] groupsEnds = new int[pairsTotal];
+		int groupsTotal = 0;
+		for (int position = 0; position < pairsTotal; position++) {
+			int termIndex = (int) (order[position] >>> 32);
+			pair = (int) order[position];
+			pairsQueries[position] = queriesPairs[pair];
+			pairsWeights[position] = weightsPairs[pair];
+			if (groupsTotal == 0 || groupsTerms[groupsTotal - 1] != termIndex) {
+				groupsTerms[groupsTotal++] = termIndex;
+			}
+			groupsEnds[groupsTotal - 1] = position + 1;
+		}
+		IntBuffer[] groupsDocuments = new IntBuffer[groupsTotal];
+		for (int group = 0; group < groupsTotal; group++) {
+			groupsDocuments[group] = invertedIndex
+					.getDocuments(groupsTerms[group]);
+		}
+
+		int documentsTotal = invertedIndex.getDocumentsTotal();
+		int rangeSize = Math.max(1, RANGE_SCORES_SIZE / width);
+		double[] scores = new double[rangeSize * width];
+		// Consultas com pontuao em cada documento do intervalo, um bit por
+		// consulta
+		long[] rowsQueries = new long[rangeSize];
+		int[] cursors = new int[groupsTotal];
+		for (int rangeStart = 0; rangeStart < documentsTotal; rangeStart += rangeSize) {
+			int rangeEnd = Math.min(rangeStart + rangeSize, documentsTotal);
+
+			for (int group = 0; group < groupsTotal; group++) {
+				IntBuffer documents = groupsDocuments[group];
+				double[] weights = weightsPostings[groupsTerms[group]];
+				int groupStart = group > 0 ? groupsEnds[group - 1] : 0;
+				int groupEnd = groupsEnds[group];
+				int postingIndex = cursors[group];
+				for (; postingIndex < weights.length
+						&& documents.get(postingIndex) < rangeEnd; postingIndex++) {
+					int row = documents.get(postingIndex) - rangeStart;
+					double weight = weights[postingIndex];
+					for (int position = groupStart; position < groupEnd; position++) {
+						scores[row * width + pairsQueries[position]] += weight
+								* pairsWeights[position];
+						rowsQueries[row] |= 1L << pairsQueries[position];
+					}
+				}
+				cursors[group] = postingIndex;
+			}
+
+			for (int row = 0; row < rangeEnd - rangeStart; row++) {
+				int documentIndex = rangeStart + row;
+				for (long rowQueries = rowsQueries[row]; rowQueries != 0; rowQueries &= rowQueries - 1) {
+					int query = Long.numberOfTrailingZeros(rowQueries);
+					double score = scores[row * width + query];
+					scores[row * width + query] = 0;
+					if (documentNorms != null) {
+						score = score
+								/ (documentNorms[documentIndex] * queries[batchStart
+										+ query].getNorm());
+					}
+					if (score > 0) {
+						handler.score(batchStart + query, documentIndex, score);
+					}
+				}
+				rowsQueries[row] = 0;
+			}
+		}
+	}
+}
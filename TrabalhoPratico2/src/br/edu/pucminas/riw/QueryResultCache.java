@@ -0,0 +1,238 @@
+package br.edu.pucminas.riw;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache limitado de resultados de consultas, com descarte pela entrada usada h
+ * mais tempo e prazo de validade das entradas.
+ *
+ * Com a poltica TinyLFU, a frequncia recente de cada chave  estimada por um
+ * sketch count-min de contadores de 4 bits, que so divididos por 2
+ * periodicamente, e uma nova entrada s toma o lugar da usada h mais tempo se
+ * for mais frequente que ela; assim consultas vistas uma nica vez no
+ * expulsam as que se repetem.
+ *
+ * @param <V>
+ *            tipo dos resultados
+ */
+public class QueryResultCache<V> {
+
+	/**
+	 * Poltica de descarte de entradas
+	 */
+	public enum EvictionPolicy {
+		/** Descarta a entrada usada h mais tempo */
+		LRU,
+		/**
+		 * Descarta a entrada usada h mais tempo, mas s admite uma nova
+		 * entrada se ela for mais frequente que a descartada
+		 */
+		TINY_LFU
+	}
+
+	private int maximumSize;
+	private long timeToLive;
+	private EvictionPolicy evictionPolicy;
+	private FrequencySketch frequencySketch;
+
+	// Em ordem de acesso: a entrada usada h mais tempo  a primeira
+	private LinkedHashMap<String, Entry<V>> entriesMap;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Cria o cache
+	 *
+	 * @param maximumSize
+	 *            quantidade mxima de entradas
+	 * @param timeToLiveMillis
+	 *            validade das entradas, em milissegundos, ou 0 para entradas
+	 *            sem prazo de validade
+	 * @param evictionPolicy
+	 *            poltica de descarte de entradas
+	 */
+	public QueryResultCache(int maximumSize, long timeToLiveMillis,
+			EvictionPolicy evictionPolicy) {
+		this.maximumSize = Math.max(1, maximumSize);
+		this.timeToLive = timeToLiveMillis * 1000000L;
+		this.evictionPolicy = evictionPolicy;
+		if (evictionPolicy == EvictionPolicy.TINY_LFU) {
+			frequencySketch = new FrequencySketch(this.maximumSize);
+		}
+		entriesMap = new LinkedHashMap<String, Entry<V>>(16, 0.75f, true);
+	}
+
+	/**
+	 * Obtm o resultado guardado para a chave
+	 *
+	 * @param key
+	 *            a chave da consulta
+	 * @return o resultado, ou null se a chave no estiver no cache ou se a sua
+	 *         entrada tiver vencido
+	 */
+	public synchronized V get(String key) {
+		if (frequencySketch != null) {
+			frequencySketch.increment(key);
+		}
+
+		Entry<V> entry = entriesMap.get(key);
+		if (entry != null && timeToLive > 0
+				&& System.nanoTime() - entry.creationTime > timeToLive) {
+			entriesMap.remove(key);
+			entry = null;
+		}
+
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Guarda o resultado da chave, descartando uma entrada se o cache estiver
+	 * cheio. Com a poltica TinyLFU, o resultado no  guardado se a chave for
+	 * menos frequente que a entrada a ser descartada.
+	 *
+	 * @param key
+	 *            a chave da consulta
+	 * @param value
+	 *            o resultado
+	 */
+	public synchronized void put(String key, V value) {
+		if (entriesMap.containsKey(key) == false
+				&& entriesMap.size() >= maximumSize) {
+			Iterator<Map.Entry<String, Entry<V>>> iterator = entriesMap
+					.entrySet().iterator();
+			String eldestKey = iterator.next().getKey();
+			if (frequencySketch != null
+					&& frequencySketch.frequency(key) <= frequencySketch
+							.frequency(eldestKey)) {
+				return;
+			}
+			iterator.remove();
+			evictions++;
+		}
+
+		entriesMap.put(key, new Entry<V>(value, System.nanoTime()));
+	}
+
+	/**
+	 * Descarta todas as entradas, como quando o ndice  alterado. As mtricas
+	 * e as frequncias estimadas so mantidas.
+	 */
+	public synchronized void invalidate() {
+		entriesMap.clear();
+	}
+
+	public synchronized int size() {
+		return entriesMap.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Obtm a taxa de acertos do cache
+	 *
+	 * @return a frao de consultas respondidas pelo cache
+	 */
+	public synchronized double getHitRatio() {
+		long requests = hits + misses;
+		return requests == 0 ? 0 : ((double) hits) / requests;
+	}
+
+	public EvictionPolicy getEvictionPolicy() {
+		return evictionPolicy;
+	}
+
+	private static class Entry<V> {
+		private V value;
+		private long creationTime;
+
+		public Entry(V value, long creationTime) {
+			this.value = value;
+			this.creationTime = creationTime;
+		}
+	}
+
+	/**
+	 * Sketch count-min com 4 linhas de contadores de 4 bits, 16 contadores por
+	 * long. Quando a quantidade de incrementos chega a 10 vezes o tamanho do
+	 * cache, todos os contadores so divididos por 2, para que a frequncia
+	 * reflita o uso recente.
+	 */
+	private static class FrequencySketch {
+		private static final int DEPTH = 4;
+		private static final long[] SEEDS = { 0x97cb3127L, 0xab7d3e25L,
+				0x6f2b9c8dL, 0xc2b2ae35L };
+		private static final long RESET_MASK = 0x7777777777777777L;
+
+		private long[] table;
+		private int countersMask;
+		private int incrementsTotal;
+		private int sampleSize;
+
+		public FrequencySketch(int maximumSize) {
+			int countersTotal = 64;
+			while (countersTotal < maximumSize * 4) {
+				countersTotal <<= 1;
+			}
+			table = new long[countersTotal / 16];
+			countersMask = countersTotal - 1;
+			sampleSize = 10 * maximumSize;
+		}
+
+		public void increment(String key) {
+			int hash = key.hashCode();
+			boolean incremented = false;
+			for (int row = 0; row < DEPTH; row++) {
+				int counter = counterIndex(hash, row);
+				int shift = (counter & 15) << 2;
+				long value = (table[counter >>> 4] >>> shift) & 15L;
+				if (value < 15) {
+					table[counter >>> 4] += 1L << shift;
+					incremented = true;
+				}
+			}
+
+			if (incremented && ++incrementsTotal == sampleSize) {
+				for (int index = 0; index < table.length; index++) {
+					table[index] = (table[index] >>> 1) & RESET_MASK;
+				}
+				incrementsTotal /= 2;
+			}
+		}
+
+		public int frequency(String key) {
+			int hash = key.hashCode();
+			int frequency = 15;
+			for (int row = 0; row < DEPTH; row++) {
+				int counter = counterIndex(hash, row);
+				int value = (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 15L);
+				frequency = Math.min(frequency, value);
+			}
+			return frequency;
+		}
+
+		private int counterIndex(int hash, int row) {
+			long mixed = (hash + SEEDS[row]) * SEEDS[row];
+			mixed ^= mixed >>> 32;
+			return (int) mixed & countersMask;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package br.edu.pucminas.riw;
+
+/**
+ * Consulta no modelo vetorial, representada de forma esparsa: apenas os termos
+ * da consulta com peso diferente de zero, em ordem crescente de ndice, e a
+ * norma do vetor.
+ */
+public class QueryVector {
+	private int[] termIndexes;
+	private double[] weights;
+	private double norm;
+
+	public QueryVector(int[] termIndexes, double[] weights) {
+		this(termIndexes, weights, 0);
+	}
+
+	/**
+	 * Cria a consulta com termos que, embora faam parte da norma, no tm
+	 * postings a percorrer, como os termos ausentes de um segmento do ndice
+	 *
+	 * @param termIndexes
+	 *            ndices dos termos, em ordem crescente
+	 * @param weights
+	 *            pesos dos termos
+	 * @param absentWeightsSquares
+	 *            soma dos quadrados dos pesos dos demais termos
+	 */
+	public QueryVector(int[] termIndexes, double[] weights,
+			double absentWeightsSquares) {
+		this.termIndexes = termIndexes;
+		this.weights = weights;
+
+		double norm = 0;
+		for (double weight : weights) {
+			norm += Math.pow(weight, 2);
+		}
+		this.norm = Math.sqrt(norm + absentWeightsSquares);
+	}
+
+	public int size() {
+		return termIndexes.length;
+	}
+
+	public int getTermIndex(int position) {
+		return termIndexes[position];
+	}
+
+	public double getWeight(int position) {
+		return weights[position];
+	}
+
+	public double getNorm() {
+		return norm;
+	}
+}
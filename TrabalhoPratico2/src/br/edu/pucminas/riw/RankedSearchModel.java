@@ -0,0 +1,22 @@
+package br.edu.pucminas.riw;
+
+import java.util.List;
+
+/**
+ * Modelo de busca com ordenao por relevncia, cujas pontuaes podem ser
+ * coletadas diretamente, como na juno dos resultados de vrios segmentos de
+ * um ndice
+ */
+public interface RankedSearchModel extends SearchModel {
+
+	/**
+	 * Coleta os documentos com pontuao positiva na consulta
+	 *
+	 * @param queryTerms
+	 *            termos da consulta
+	 * @param collector
+	 *            o coletor, j preparado para a consulta; os documentos so
+	 *            os ndices locais do modelo
+	 */
+	public void collect(List<String> queryTerms, TopKCollector collector);
+}
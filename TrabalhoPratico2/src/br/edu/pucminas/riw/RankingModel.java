@@ -0,0 +1,88 @@
+package br.edu.pucminas.riw;
+
+/**
+ * Modelos de busca com ordenao por relevncia disponveis, usados nas
+ * consultas com relevncia e no clculo de preciso e revocao.
+ *
+ * Cada modelo tem a sua relevncia mnima, que define o conjunto de
+ * documentos relevantes no clculo da revocao, pois as pontuaes esto em
+ * escalas diferentes: o cosseno do modelo vetorial fica entre 0 e 1, e a
+ * pontuao do BM25  uma soma de IDFs ponderados, sem limite superior.
+ */
+public enum RankingModel {
+	VECTORIAL("vectorial", "vetorial", 0.05), BM25("bm25", "BM25", 4.0);
+
+	private String name;
+	private String description;
+	private double minimalRelevance;
+
+	private RankingModel(String name, String description,
+			double minimalRelevance) {
+		this.name = name;
+		this.description = description;
+		this.minimalRelevance = minimalRelevance;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Obtm a pontuao mnima de um documento relevante para o modelo
+	 *
+	 * @return a relevncia mnima
+	 */
+	public double getMinimalRelevance() {
+		return minimalRelevance;
+	}
+
+	/**
+	 * Cria o modelo de busca sobre o ndice
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @return o modelo de busca
+	 */
+	public RankedSearchModel createModel(InvertedIndex invertedIndex) {
+		return createModel(invertedIndex, invertedIndex);
+	}
+
+	/**
+	 * Cria o modelo de busca sobre um segmento de um ndice
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido do segmento
+	 * @param statistics
+	 *            as estatsticas de toda a coleo
+	 * @return o modelo de busca
+	 */
+	public RankedSearchModel createModel(InvertedIndex invertedIndex,
+			CollectionStatistics statistics) {
+		switch (this) {
+		case BM25:
+			return new BM25Model(invertedIndex, statistics);
+		default:
+			return new VectorialModel(invertedIndex, statistics);
+		}
+	}
+
+	/**
+	 * Obtm o modelo pelo nome
+	 *
+	 * @param name
+	 *            nome do modelo, como "vectorial" ou "bm25"
+	 * @return o modelo, ou null caso no exista
+	 */
+	public static RankingModel fromName(String name) {
+		for (RankingModel rankingModel : values()) {
+			if (rankingModel.name.equals(name)) {
+				return rankingModel;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,100 @@
+package br.edu.pucminas.riw;
+
+import java.util.Arrays;
+
+/**
+ * Acumuladores de pontuao de uma consulta: guarda a pontuao parcial de
+ * cada documento j tocado pelos postings. Os vetores tm o tamanho da coleo
+ * e so reaproveitados de uma consulta para a outra, limpando apenas as
+ * posies usadas.
+ */
+public class ScoreAccumulators {
+	private double[] scores;
+	private boolean[] present;
+	private int[] documents;
+	private int size;
+
+	public ScoreAccumulators(int documentsTotal) {
+		scores = new double[documentsTotal];
+		present = new boolean[documentsTotal];
+		documents = new int[documentsTotal];
+	}
+
+	/**
+	 * Descarta os acumuladores da consulta anterior
+	 */
+	void clear() {
+		for (int position = 0; position < size; position++) {
+			int documentIndex = documents[position];
+			scores[documentIndex] = 0;
+			present[documentIndex] = false;
+		}
+		size = 0;
+	}
+
+	boolean contains(int documentIndex) {
+		return present[documentIndex];
+	}
+
+	/**
+	 * Soma a contribuio ao acumulador do documento, criando-o se preciso
+	 */
+	void add(int documentIndex, double contribution) {
+		if (present[documentIndex] == false) {
+			present[documentIndex] = true;
+			documents[size++] = documentIndex;
+		}
+		scores[documentIndex] += contribution;
+	}
+
+	/**
+	 * Divide cada pontuao pelo produto das normas do documento e da
+	 * consulta e ordena os documentos de forma crescente
+	 */
+	void normalize(double[] documentNorms, double queryNorm) {
+		for (int position = 0; position < size; position++) {
+			int documentIndex = documents[position];
+			scores[documentIndex] = scores[documentIndex]
+					/ (documentNorms[documentIndex] * queryNorm);
+		}
+		sort();
+	}
+
+	/**
+	 * Ordena os documentos de forma crescente
+	 */
+	void sort() {
+		Arrays.sort(documents, 0, size);
+	}
+
+	/**
+	 * Obtm a quantidade de acumuladores
+	 *
+	 * @return a quantidade de documentos com acumulador
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Obtm o documento do acumulador
+	 *
+	 * @param position
+	 *            posio do acumulador, em ordem crescente de documento
+	 * @return o ndice do documento
+	 */
+	public int getDocument(int position) {
+		return documents[position];
+	}
+
+	/**
+	 * Obtm a pontuao do acumulador
+	 *
+	 * @param position
+	 *            posio do acumulador, em ordem crescente de documento
+	 * @return a pontuao do documento
+	 */
+	public double getScore(int position) {
+		return scores[documents[position]];
+	}
+}
@@ -0,0 +1,135 @@
+package br.edu.pucminas.riw;
+
+import java.util.Arrays;
+
+/**
+ * Motor de pontuao impacto a impacto (score-at-a-time) sobre um
+ * {@link ImpactOrderedIndex}: os segmentos de todos os termos da consulta so
+ * percorridos em ordem decrescente de contribuio, que  o produto do impacto
+ * do segmento pelo peso quantizado do termo na consulta. A avaliao pode ser
+ * interrompida a qualquer momento, pois os postings mais importantes j foram
+ * somados; um oramento de postings por consulta torna o seu custo previsvel,
+ * em troca de similaridades aproximadas.
+ */
+public class ScoreAtATimeScorer {
+	private InvertedIndex invertedIndex;
+	private ImpactOrderedIndex impactOrderedIndex;
+	private int postingsBudget;
+
+	private ThreadLocal<ScoreAccumulators> accumulators = new ThreadLocal<ScoreAccumulators>() {
+		@Override
+		protected ScoreAccumulators initialValue() {
+			return new ScoreAccumulators(invertedIndex.getDocumentsTotal());
+		}
+	};
+
+	private ThreadLocal<TopKCollector> collectors = new ThreadLocal<TopKCollector>() {
+		@Override
+		protected TopKCollector initialValue() {
+			return new TopKCollector();
+		}
+	};
+
+	/**
+	 * Cria o motor de pontuao
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param impactOrderedIndex
+	 *            o ndice ordenado por impacto
+	 * @param postingsBudget
+	 *            quantidade mxima de postings percorridos por consulta
+	 */
+	public ScoreAtATimeScorer(InvertedIndex invertedIndex,
+			ImpactOrderedIndex impactOrderedIndex, int postingsBudget) {
+		this.invertedIndex = invertedIndex;
+		this.impactOrderedIndex = impactOrderedIndex;
+		this.postingsBudget = postingsBudget;
+	}
+
+	/**
+	 * Obtm os documentos mais similares  consulta
+	 *
+	 * @param query
+	 *            a consulta
+	 * @param treshold
+	 *            quantidade de documentos mais relevantes a serem retornados
+	 * @param minimalRelevance
+	 *            similaridade mnima dos documentos relevantes
+	 * @return os documentos retornados, por similaridade decrescente, e o
+	 *         conjunto de documentos relevantes
+	 */
+	public RelevanceSearchReturn score(QueryVector query, int treshold,
+			double minimalRelevance) {
+		int maximumImpact = impactOrderedIndex.getMaximumImpact();
+
+		// Os pesos da consulta so quantizados com relao ao maior deles
+		double largestWeight = 0;
+		for (int position = 0; position < query.size(); position++) {
+			largestWeight = Math.max(largestWeight, query.getWeight(position));
+		}
+		double weightScale = largestWeight > 0 ? largestWeight / maximumImpact
+				: 1;
+
+		int segmentsTotal = 0;
+		for (int position = 0; position < query.size(); position++) {
+			segmentsTotal += impactOrderedIndex.getSegmentsTotal(query
+					.getTermIndex(position));
+		}
+		// Cada segmento  uma chave com a contribuio negada nos 32 bits altos,
+		// de modo que a ordem crescente das chaves  a decrescente das
+		// contribuies
+		int[] segmentsTerms = new int[segmentsTotal];
+		int[] segmentsIndexes = new int[segmentsTotal];
+		long[] order = new long[segmentsTotal];
+		int segment = 0;
+		for (int position = 0; position < query.size(); position++) {
+			int termIndex = query.getTermIndex(position);
+			int queryImpact = Math.max(1, (int) Math.round(query
+					.getWeight(position) / weightScale));
+			for (int segmentIndex = 0; segmentIndex < impactOrderedIndex
+					.getSegmentsTotal(termIndex); segmentIndex++) {
+				segmentsTerms[segment] = termIndex;
+				segmentsIndexes[segment] = segmentIndex;
+				int contribution = queryImpact
+						* impactOrderedIndex.getSegmentImpact(termIndex,
+								segmentIndex);
+				order[segment] = ((long) -contribution << 32) | segment;
+				segment++;
+			}
+		}
+		Arrays.sort(order);
+
+		ScoreAccumulators accumulators = this.accumulators.get();
+		accumulators.clear();
+		int remaining = postingsBudget;
+		for (int position = 0; position < segmentsTotal && remaining > 0; position++) {
+			segment = (int) order[position];
+			int contribution = (int) -(order[position] >> 32);
+			int termIndex = segmentsTerms[segment];
+			int segmentIndex = segmentsIndexes[segment];
+			int[] documents = impactOrderedIndex.getDocuments(termIndex);
+			int start = impactOrderedIndex.getSegmentStart(termIndex,
+					segmentIndex);
+			int end = start
+					+ Math.min(impactOrderedIndex.getSegmentEnd(termIndex,
+							segmentIndex) - start, remaining);
+			for (int postingIndex = start; postingIndex < end; postingIndex++) {
+				accumulators.add(documents[postingIndex], contribution);
+			}
+			remaining -= end - start;
+		}
+		accumulators.sort();
+
+		// Converte as pontuaes inteiras de volta em similaridades
+		double similarityScale = impactOrderedIndex.getImpactScale()
+				* weightScale / query.getNorm();
+		TopKCollector collector = collectors.get();
+		collector.reset(treshold, minimalRelevance);
+		for (int position = 0; position < accumulators.size(); position++) {
+			collector.collect(accumulators.getDocument(position),
+					accumulators.getScore(position) * similarityScale);
+		}
+		return collector.getResults();
+	}
+}
@@ -31,4 +31,32 @@ public interface SearchModel {
 	public RelevanceSearchReturn processQueryWithRelevance(
 			List<String> queryTerms, int treshold, double minimalRelevance);
 
+	/**
+	 * Processa um lote de queries e retorna todos os documentos resultados de
+	 * cada uma
+	 * 
+	 * @param queriesTerms
+	 *            lista de termos de cada query
+	 * @return lista de ndices dos documentos de cada query, na ordem das
+	 *         queries
+	 */
+	public List<List<Integer>> processQueries(List<List<String>> queriesTerms);
+
+	/**
+	 * Processa um lote de queries e retorna os documentos resultados mais
+	 * relevantes de cada uma
+	 * 
+	 * @param queriesTerms
+	 *            lista de termos de cada query
+	 * @param treshold
+	 *            limite de documentos mais relevantes a serem retornados
+	 * @param minimalRelevance
+	 *            limiar da mtrica de ordenao quanto  relevncia mnima
+	 * @return objetos contendo listas de ndices dos documentos retornados e
+	 *         relevantes de cada query, na ordem das queries
+	 */
+	public List<RelevanceSearchReturn> processQueriesWithRelevance(
+			List<List<String>> queriesTerms, int treshold,
+			double minimalRelevance);
+
 }
@@ -0,0 +1,193 @@
+package br.edu.pucminas.riw;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Segmento imutvel de um {@link SegmentedIndex}: um ndice invertido com
+ * alguns documentos da coleo. Os documentos do ndice invertido do segmento
+ * so numerados a partir de 0, e cada um tem tambm o seu identificador na
+ * coleo, que no muda com as junes de segmentos.
+ *
+ * A nica parte mutvel do segmento  o mapa de bits dos documentos
+ * excludos: excluir um documento apenas marca o seu bit, e o documento s
+ * deixa de existir fisicamente quando o segmento  juntado a outros. O mapa 
+ * criado na primeira excluso, e as excluses so feitas pelo
+ * {@link SegmentedIndex}, com a sua trava.
+ */
+public class Segment {
+	private InvertedIndex invertedIndex;
+	private int[] documentIds;
+	private long postingsTotal;
+	private boolean localDocumentIds;
+
+	// Identificadores em ordem crescente e o ndice local de cada um, para a
+	// busca do documento a ser excludo
+	private int[] sortedDocumentIds;
+	private int[] sortedLocalIndexes;
+
+	private volatile long[] deletedDocuments;
+	private volatile int deletedTotal;
+
+	/**
+	 * Cria o segmento
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido do segmento
+	 * @param documentIds
+	 *            identificador, na coleo, de cada documento do ndice
+	 *            invertido; os identificadores so distintos
+	 */
+	public Segment(InvertedIndex invertedIndex, int[] documentIds) {
+		this.invertedIndex = invertedIndex;
+		this.documentIds = documentIds;
+		this.postingsTotal = invertedIndex.getPostingsTotal();
+
+		localDocumentIds = true;
+		for (int documentIndex = 0; documentIndex < documentIds.length; documentIndex++) {
+			if (documentIds[documentIndex] != documentIndex) {
+				localDocumentIds = false;
+				break;
+			}
+		}
+
+		long[] pairs = new long[documentIds.length];
+		for (int documentIndex = 0; documentIndex < documentIds.length; documentIndex++) {
+			pairs[documentIndex] = ((long) documentIds[documentIndex]) << 32
+					| documentIndex;
+		}
+		Arrays.sort(pairs);
+		sortedDocumentIds = new int[pairs.length];
+		sortedLocalIndexes = new int[pairs.length];
+		for (int position = 0; position < pairs.length; position++) {
+			sortedDocumentIds[position] = (int) (pairs[position] >>> 32);
+			sortedLocalIndexes[position] = (int) pairs[position];
+		}
+	}
+
+	public InvertedIndex getInvertedIndex() {
+		return invertedIndex;
+	}
+
+	public int getDocumentsTotal() {
+		return invertedIndex.getDocumentsTotal();
+	}
+
+	/**
+	 * Obtm o identificador na coleo de um documento do segmento
+	 *
+	 * @param documentIndex
+	 *            ndice local do documento
+	 * @return o identificador do documento
+	 */
+	public int getDocumentId(int documentIndex) {
+		return documentIds[documentIndex];
+	}
+
+	/**
+	 * Obtm os identificadores na coleo dos documentos do segmento
+	 *
+	 * @return o vetor de identificadores, por ndice local; no deve ser
+	 *         alterado
+	 */
+	public int[] getDocumentIds() {
+		return documentIds;
+	}
+
+	/**
+	 * Acrescenta a uma lista os identificadores dos documentos no excludos
+	 * dentre os indicados
+	 *
+	 * @param documentIdsList
+	 *            a lista de identificadores
+	 * @param documentIndexes
+	 *            ndices locais dos documentos
+	 */
+	public void addDocumentIds(List<Integer> documentIdsList,
+			List<Integer> documentIndexes) {
+		for (int documentIndex : documentIndexes) {
+			if (isDeleted(documentIndex) == false) {
+				documentIdsList.add(documentIds[documentIndex]);
+			}
+		}
+	}
+
+	/**
+	 * Indica se o identificador de cada documento  o seu prprio ndice
+	 * local, caso em que os resultados do segmento dispensam traduo
+	 */
+	public boolean hasLocalDocumentIds() {
+		return localDocumentIds;
+	}
+
+	/**
+	 * Obtm o ndice local de um documento
+	 *
+	 * @param documentId
+	 *            identificador do documento na coleo
+	 * @return o ndice local do documento, ou -1 se ele no est no segmento
+	 */
+	public int getDocumentIndex(int documentId) {
+		int position = Arrays.binarySearch(sortedDocumentIds, documentId);
+		return position >= 0 ? sortedLocalIndexes[position] : -1;
+	}
+
+	/**
+	 * Obtm o tamanho do segmento, usado pela poltica de juno
+	 *
+	 * @return a quantidade de postings do segmento
+	 */
+	public long getPostingsTotal() {
+		return postingsTotal;
+	}
+
+	/**
+	 * Indica se um documento do segmento foi excludo
+	 *
+	 * @param documentIndex
+	 *            ndice local do documento
+	 */
+	public boolean isDeleted(int documentIndex) {
+		long[] deletedDocuments = this.deletedDocuments;
+		return deletedDocuments != null
+				&& (deletedDocuments[documentIndex >>> 6] & 1L << documentIndex) != 0;
+	}
+
+	public boolean hasDeletions() {
+		return deletedTotal > 0;
+	}
+
+	public int getDeletedTotal() {
+		return deletedTotal;
+	}
+
+	/**
+	 * Obtm o mapa de bits dos documentos excludos, com um bit por ndice
+	 * local
+	 *
+	 * @return o mapa, ou null se nenhum documento foi excludo; o mapa
+	 *         continua a mudar com as excluses posteriores
+	 */
+	public long[] getDeletedDocuments() {
+		return deletedDocuments;
+	}
+
+	/**
+	 * Marca um documento do segmento como excludo, em tempo constante
+	 *
+	 * @param documentIndex
+	 *            ndice local do documento
+	 * @return true se o documento ainda no estava excludo
+	 */
+	boolean delete(int documentIndex) {
+		if (isDeleted(documentIndex)) {
+			return false;
+		}
+		if (deletedDocuments == null) {
+			deletedDocuments = new long[(getDocumentsTotal() + 63) >>> 6];
+		}
+		deletedDocuments[documentIndex >>> 6] |= 1L << documentIndex;
+		deletedTotal++;
+		return true;
+	}
+}
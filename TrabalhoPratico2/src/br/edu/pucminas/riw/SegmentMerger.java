@@ -0,0 +1,253 @@
+package br.edu.pucminas.riw;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Juno de segmentos em um nico segmento, feita pelo construtor. Os
+ * documentos do segmento resultante so os dos segmentos juntados, na ordem
+ * dos segmentos, e os postings de cada termo so apenas concatenados, com os
+ * documentos renumerados; o custo  linear no tamanho dos segmentos juntados.
+ *
+ * Os documentos excludos so removidos fisicamente na juno: os seus
+ * postings no so copiados, e os termos que s apareciam neles deixam de
+ * existir. A juno informa o quanto foi removido de cada termo, para que as
+ * estatsticas da coleo sejam corrigidas.
+ *
+ * Os termos recebem ndices na ordem em que aparecem nos segmentos, que  a
+ * mesma ordem de um ndice construdo de uma vez sobre todos os documentos.
+ */
+public class SegmentMerger {
+	private Segment segment;
+	private int[][] documentIndexes;
+	private Map<String, Integer> removedDocumentFrequencies = new HashMap<String, Integer>();
+	private int removedDocumentsTotal;
+	private long removedLengthsTotal;
+
+	/**
+	 * Junta os segmentos
+	 *
+	 * @param segments
+	 *            os segmentos
+	 * @param deletedDocuments
+	 *            o mapa de bits dos documentos excludos de cada segmento, ou
+	 *            null para um segmento sem excluses; os mapas no devem mudar
+	 *            durante a juno
+	 */
+	public SegmentMerger(List<Segment> segments, long[][] deletedDocuments) {
+		// Novo ndice local de cada documento de cada segmento, ou -1 se ele
+		// foi excludo
+		documentIndexes = new int[segments.size()][];
+		int documentsTotal = 0;
+		for (int segmentIndex = 0; segmentIndex < segments.size(); segmentIndex++) {
+			long[] deleted = deletedDocuments[segmentIndex];
+			int[] indexes = new int[segments.get(segmentIndex)
+					.getDocumentsTotal()];
+			for (int documentIndex = 0; documentIndex < indexes.length; documentIndex++) {
+				indexes[documentIndex] = isDeleted(deleted, documentIndex) ? -1
+						: documentsTotal++;
+			}
+			documentIndexes[segmentIndex] = indexes;
+		}
+
+		Map<String, Integer> termsIndexMap = new HashMap<String, Integer>();
+		List<String> termsList = new ArrayList<String>();
+
+		// ndice, no segmento resultante, de cada termo de cada segmento, e os
+		// tamanhos finais dos postings
+		int[][] termsMappings = new int[segments.size()][];
+		int[] postingsSizes = new int[16];
+		int[] positionsSizes = new int[16];
+		for (int segmentIndex = 0; segmentIndex < segments.size(); segmentIndex++) {
+			InvertedIndex invertedIndex = segments.get(segmentIndex)
+					.getInvertedIndex();
+			int[] indexes = documentIndexes[segmentIndex];
+			boolean hasDeletions = deletedDocuments[segmentIndex] != null;
+			int[] termsMapping = new int[invertedIndex.getTermsTotal()];
+			for (int termIndex = 0; termIndex < termsMapping.length; termIndex++) {
+				String term = invertedIndex.getTerm(termIndex);
+				IntBuffer documents = invertedIndex.getDocuments(termIndex);
+				int keptTotal = documents.limit();
+				int keptPositions = invertedIndex.getPositionsPostings(termIndex)
+						.limit();
+				if (hasDeletions) {
+					keptTotal = 0;
+					keptPositions = 0;
+					IntBuffer positionsOffsets = invertedIndex
+							.getPositionsOffsets(termIndex);
+					for (int postingIndex = 0; postingIndex < documents.limit(); postingIndex++) {
+						if (indexes[documents.get(postingIndex)] >= 0) {
+							keptTotal++;
+							keptPositions += getPositionsEnd(invertedIndex,
+									termIndex, positionsOffsets, postingIndex)
+									- positionsOffsets.get(postingIndex);
+						}
+					}
+					if (keptTotal < documents.limit()) {
+						Integer removed = removedDocumentFrequencies.get(term);
+						removedDocumentFrequencies.put(term,
+								(removed == null ? 0 : removed)
+										+ documents.limit() - keptTotal);
+					}
+				}
+				if (keptTotal == 0) {
+					termsMapping[termIndex] = -1;
+					continue;
+				}
+
+				Integer mergedTermIndex = termsIndexMap.get(term);
+				if (mergedTermIndex == null) {
+					mergedTermIndex = termsList.size();
+					termsIndexMap.put(term, mergedTermIndex);
+					termsList.add(term);
+					if (mergedTermIndex == postingsSizes.length) {
+						postingsSizes = Arrays.copyOf(postingsSizes,
+								mergedTermIndex * 2);
+						positionsSizes = Arrays.copyOf(positionsSizes,
+								mergedTermIndex * 2);
+					}
+				}
+				termsMapping[termIndex] = mergedTermIndex;
+				postingsSizes[mergedTermIndex] += keptTotal;
+				positionsSizes[mergedTermIndex] += keptPositions;
+			}
+			termsMappings[segmentIndex] = termsMapping;
+		}
+
+		int termsTotal = termsList.size();
+		int[][] documentsPostings = new int[termsTotal][];
+		int[][] frequenciesPostings = new int[termsTotal][];
+		byte[][] positionsPostings = new byte[termsTotal][];
+		int[][] positionsOffsetsPostings = new int[termsTotal][];
+		for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+			documentsPostings[termIndex] = new int[postingsSizes[termIndex]];
+			frequenciesPostings[termIndex] = new int[postingsSizes[termIndex]];
+			positionsPostings[termIndex] = new byte[positionsSizes[termIndex]];
+			positionsOffsetsPostings[termIndex] = new int[postingsSizes[termIndex]];
+		}
+
+		// Os tamanhos passam a ser as posies de escrita de cada termo
+		Arrays.fill(postingsSizes, 0);
+		Arrays.fill(positionsSizes, 0);
+		int[] documentLengths = new int[documentsTotal];
+		int[] documentIds = new int[documentsTotal];
+		for (int segmentIndex = 0; segmentIndex < segments.size(); segmentIndex++) {
+			Segment source = segments.get(segmentIndex);
+			InvertedIndex invertedIndex = source.getInvertedIndex();
+			int[] indexes = documentIndexes[segmentIndex];
+			int[] termsMapping = termsMappings[segmentIndex];
+			for (int termIndex = 0; termIndex < termsMapping.length; termIndex++) {
+				int mergedTermIndex = termsMapping[termIndex];
+				if (mergedTermIndex < 0) {
+					continue;
+				}
+				IntBuffer documents = invertedIndex.getDocuments(termIndex);
+				IntBuffer frequencies = invertedIndex.getFrequencies(termIndex);
+				IntBuffer positionsOffsets = invertedIndex
+						.getPositionsOffsets(termIndex);
+				ByteBuffer positions = invertedIndex
+						.getPositionsPostings(termIndex);
+				int[] mergedDocuments = documentsPostings[mergedTermIndex];
+				int[] mergedFrequencies = frequenciesPostings[mergedTermIndex];
+				int[] mergedPositionsOffsets = positionsOffsetsPostings[mergedTermIndex];
+				byte[] mergedPositions = positionsPostings[mergedTermIndex];
+				int postingsEnd = postingsSizes[mergedTermIndex];
+				int positionsEnd = positionsSizes[mergedTermIndex];
+				for (int postingIndex = 0; postingIndex < documents.limit(); postingIndex++) {
+					int documentIndex = indexes[documents.get(postingIndex)];
+					if (documentIndex < 0) {
+						continue;
+					}
+					int positionsStart = positionsOffsets.get(postingIndex);
+					int positionsLength = getPositionsEnd(invertedIndex,
+							termIndex, positionsOffsets, postingIndex)
+							- positionsStart;
+					mergedDocuments[postingsEnd] = documentIndex;
+					mergedFrequencies[postingsEnd] = frequencies.get(postingIndex);
+					mergedPositionsOffsets[postingsEnd] = positionsEnd;
+					for (int index = 0; index < positionsLength; index++) {
+						mergedPositions[positionsEnd + index] = positions
+								.get(positionsStart + index);
+					}
+					postingsEnd++;
+					positionsEnd += positionsLength;
+				}
+				postingsSizes[mergedTermIndex] = postingsEnd;
+				positionsSizes[mergedTermIndex] = positionsEnd;
+			}
+
+			for (int documentIndex = 0; documentIndex < indexes.length; documentIndex++) {
+				if (indexes[documentIndex] >= 0) {
+					documentLengths[indexes[documentIndex]] = invertedIndex
+							.getDocumentLength(documentIndex);
+					documentIds[indexes[documentIndex]] = source
+							.getDocumentId(documentIndex);
+				} else {
+					removedDocumentsTotal++;
+					removedLengthsTotal += invertedIndex
+							.getDocumentLength(documentIndex);
+				}
+			}
+		}
+
+		segment = new Segment(new InvertedIndex(new TermDictionary(termsList),
+				documentsPostings, frequenciesPostings, positionsPostings,
+				positionsOffsetsPostings, documentLengths), documentIds);
+	}
+
+	private static boolean isDeleted(long[] deletedDocuments, int documentIndex) {
+		return deletedDocuments != null
+				&& (deletedDocuments[documentIndex >>> 6] & 1L << documentIndex) != 0;
+	}
+
+	/**
+	 * Obtm o fim das posies de um posting, que  o incio das do seguinte
+	 */
+	private static int getPositionsEnd(InvertedIndex invertedIndex,
+			int termIndex, IntBuffer positionsOffsets, int postingIndex) {
+		return postingIndex + 1 < positionsOffsets.limit() ? positionsOffsets
+				.get(postingIndex + 1) : invertedIndex.getPositionsPostings(
+				termIndex).limit();
+	}
+
+	/**
+	 * Obtm o segmento resultante, sem os documentos excludos
+	 */
+	public Segment getSegment() {
+		return segment;
+	}
+
+	/**
+	 * Obtm o novo ndice local dos documentos de um dos segmentos juntados
+	 *
+	 * @param segmentIndex
+	 *            posio do segmento na lista juntada
+	 * @return o novo ndice de cada documento, por ndice local antigo, ou -1
+	 *         para os documentos removidos
+	 */
+	public int[] getDocumentIndexes(int segmentIndex) {
+		return documentIndexes[segmentIndex];
+	}
+
+	/**
+	 * Obtm a quantidade de postings removidos de cada termo
+	 *
+	 * @return os termos com postings removidos e as quantidades
+	 */
+	public Map<String, Integer> getRemovedDocumentFrequencies() {
+		return removedDocumentFrequencies;
+	}
+
+	public int getRemovedDocumentsTotal() {
+		return removedDocumentsTotal;
+	}
+
+	public long getRemovedLengthsTotal() {
+		return removedLengthsTotal;
+	}
+}
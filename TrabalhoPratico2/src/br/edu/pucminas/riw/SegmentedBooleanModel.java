@@ -0,0 +1,67 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modelo booleano sobre um {@link SegmentedIndex}: a consulta  avaliada no
+ * modelo booleano de cada segmento, que no depende das estatsticas da
+ * coleo, e os resultados so juntados, com os documentos traduzidos para os
+ * seus identificadores na coleo e sem os documentos excludos. A negao de
+ * cada segmento se restringe aos seus documentos, e a juno  a negao sobre
+ * toda a coleo.
+ */
+public class SegmentedBooleanModel {
+	private SegmentedIndex segmentedIndex;
+	private Map<Segment, BooleanModel> modelsMap = new HashMap<Segment, BooleanModel>();
+
+	public SegmentedBooleanModel(SegmentedIndex segmentedIndex) {
+		this.segmentedIndex = segmentedIndex;
+	}
+
+	/**
+	 * Processa uma consulta booleana e retorna todos os documentos resultados
+	 *
+	 * @param query
+	 *            a consulta, j analisada
+	 * @return lista de identificadores dos documentos, em ordem crescente
+	 */
+	public List<Integer> processQuery(BooleanQuery query) {
+		List<Segment> segments = segmentedIndex.getSegments();
+		BooleanModel[] models = getModels(segments);
+
+		List<Integer> resultsList = new ArrayList<Integer>();
+		for (int segmentIndex = 0; segmentIndex < models.length; segmentIndex++) {
+			segments.get(segmentIndex).addDocumentIds(resultsList,
+					models[segmentIndex].processQuery(query));
+		}
+		Collections.sort(resultsList);
+		return resultsList;
+	}
+
+	/**
+	 * Obtm o modelo de cada segmento, criando os dos novos segmentos
+	 *
+	 * @param segments
+	 *            os segmentos
+	 * @return os modelos, na ordem dos segmentos
+	 */
+	private synchronized BooleanModel[] getModels(List<Segment> segments) {
+		Map<Segment, BooleanModel> newModelsMap = new HashMap<Segment, BooleanModel>();
+		BooleanModel[] models = new BooleanModel[segments.size()];
+		for (int segmentIndex = 0; segmentIndex < models.length; segmentIndex++) {
+			Segment segment = segments.get(segmentIndex);
+			BooleanModel model = modelsMap.get(segment);
+			if (model == null) {
+				model = new BooleanModel(segment.getInvertedIndex());
+			}
+			newModelsMap.put(segment, model);
+			models[segmentIndex] = model;
+		}
+		modelsMap = newModelsMap;
+		return models;
+	}
+}
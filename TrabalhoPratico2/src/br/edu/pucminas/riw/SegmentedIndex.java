@@ -0,0 +1,317 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * ndice formado por segmentos imutveis. Novos documentos so indexados em um
+ * novo segmento, com custo proporcional a eles, e no  coleo; os segmentos
+ * pequenos so juntados em segundo plano, segundo um {@link TieredMergePolicy}.
+ * Cada documento tem um identificador na coleo, atribudo em sequncia aos
+ * documentos acrescentados, que no muda com as junes.
+ *
+ * Excluir um documento apenas marca o seu bit no mapa de excludos do seu
+ * segmento, em tempo constante; as buscas ignoram os documentos marcados, e
+ * eles so removidos fisicamente quando o seu segmento  juntado. Atualizar um
+ * documento  exclu-lo e acrescent-lo de novo, com o mesmo identificador, em
+ * um novo segmento.
+ *
+ * O ndice mantm as estatsticas de toda a coleo, atualizadas a cada novo
+ * segmento com o custo do seu vocabulrio, e a gerao das estatsticas, que
+ * muda quando elas mudam, para que os modelos de busca saibam quando
+ * recalcular os seus pesos. As estatsticas so corrigidas de forma
+ * preguiosa: os documentos excludos continuam contados at serem removidos
+ * por uma juno, para que uma excluso no obrigue a recalcular os modelos.
+ *
+ * Os segmentos so acrescentados, alterados e consultados pela mesma thread;
+ * s as junes rodam em outra, e a lista de segmentos  trocada inteira, para
+ * que uma busca sempre veja uma lista consistente.
+ */
+public class SegmentedIndex implements CollectionStatistics {
+	private TieredMergePolicy mergePolicy;
+	private ExecutorService mergeExecutor;
+	private volatile List<Segment> segments = Collections.emptyList();
+
+	private Map<String, Integer> documentFrequencies = new HashMap<String, Integer>();
+	private int documentsTotal;
+	private int deletedTotal;
+	private long lengthsTotal;
+	private int nextDocumentId;
+	private volatile int generation;
+	private volatile int mergesTotal;
+
+	/**
+	 * Cria o ndice, sem segmentos
+	 *
+	 * @param mergePolicy
+	 *            a poltica de juno de segmentos
+	 */
+	public SegmentedIndex(TieredMergePolicy mergePolicy) {
+		this.mergePolicy = mergePolicy;
+		mergeExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "segment-merge");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Acrescenta os documentos de um ndice invertido como um novo segmento,
+	 * com identificadores em sequncia depois dos j atribudos, e agenda as
+	 * junes necessrias
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido dos novos documentos, numerados a partir
+	 *            de 0
+	 * @return o novo segmento, ou null se o ndice no tem documentos, caso
+	 *         em que nenhum segmento  criado
+	 */
+	public synchronized Segment addSegment(InvertedIndex invertedIndex) {
+		int[] documentIds = new int[invertedIndex.getDocumentsTotal()];
+		for (int documentIndex = 0; documentIndex < documentIds.length; documentIndex++) {
+			documentIds[documentIndex] = nextDocumentId + documentIndex;
+		}
+		return addSegment(invertedIndex, documentIds);
+	}
+
+	/**
+	 * Acrescenta os documentos de um ndice invertido como um novo segmento,
+	 * com os identificadores indicados, e agenda as junes necessrias. Para
+	 * atualizar documentos, eles devem ser excludos antes.
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido dos novos documentos, numerados a partir
+	 *            de 0
+	 * @param documentIds
+	 *            identificador de cada documento; os identificadores j
+	 *            atribudos no devem estar em uso por documentos no
+	 *            excludos
+	 * @return o novo segmento, ou null se o ndice no tem documentos, caso
+	 *         em que nenhum segmento  criado
+	 */
+	public synchronized Segment addSegment(InvertedIndex invertedIndex,
+			int[] documentIds) {
+		if (invertedIndex.getDocumentsTotal() == 0) {
+			return null;
+		}
+		Segment segment = new Segment(invertedIndex, documentIds);
+
+		for (int termIndex = 0; termIndex < invertedIndex.getTermsTotal(); termIndex++) {
+			String term = invertedIndex.getTerm(termIndex);
+			Integer documentFrequency = documentFrequencies.get(term);
+			documentFrequencies.put(term, (documentFrequency == null ? 0
+					: documentFrequency)
+					+ invertedIndex.getDocumentFrequency(termIndex));
+		}
+		for (int documentIndex = 0; documentIndex < invertedIndex
+				.getDocumentsTotal(); documentIndex++) {
+			lengthsTotal += invertedIndex.getDocumentLength(documentIndex);
+			nextDocumentId = Math.max(nextDocumentId,
+					documentIds[documentIndex] + 1);
+		}
+		documentsTotal += invertedIndex.getDocumentsTotal();
+
+		List<Segment> newSegments = new ArrayList<Segment>(segments);
+		newSegments.add(segment);
+		segments = Collections.unmodifiableList(newSegments);
+		generation++;
+
+		scheduleMerges();
+		return segment;
+	}
+
+	/**
+	 * Exclui um documento, marcando-o no seu segmento; as estatsticas s
+	 * mudam quando o segmento for juntado
+	 *
+	 * @param documentId
+	 *            identificador do documento
+	 * @return true se o documento existia e no estava excludo
+	 */
+	public synchronized boolean deleteDocument(int documentId) {
+		// Um documento atualizado tem cpias excludas em segmentos anteriores
+		for (int segmentIndex = segments.size() - 1; segmentIndex >= 0; segmentIndex--) {
+			Segment segment = segments.get(segmentIndex);
+			int documentIndex = segment.getDocumentIndex(documentId);
+			if (documentIndex < 0 || segment.isDeleted(documentIndex)) {
+				continue;
+			}
+
+			boolean tooManyDeletions = mergePolicy.hasTooManyDeletions(segment);
+			segment.delete(documentIndex);
+			deletedTotal++;
+			if (tooManyDeletions == false
+					&& mergePolicy.hasTooManyDeletions(segment)) {
+				scheduleMerges();
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private void scheduleMerges() {
+		mergeExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				mergeSegments();
+			}
+		});
+	}
+
+	/**
+	 * Junta os segmentos indicados pela poltica, at que ela no indique
+	 * mais nenhum. As excluses feitas durante uma juno so repassadas ao
+	 * segmento resultante na troca dos segmentos.
+	 */
+	private void mergeSegments() {
+		List<Segment> mergedSegments;
+		while ((mergedSegments = mergePolicy.findMerge(segments)) != null) {
+			long[][] deletedDocuments = new long[mergedSegments.size()][];
+			int[] deletedTotals = new int[mergedSegments.size()];
+			synchronized (this) {
+				for (int segmentIndex = 0; segmentIndex < deletedDocuments.length; segmentIndex++) {
+					Segment segment = mergedSegments.get(segmentIndex);
+					long[] deleted = segment.getDeletedDocuments();
+					deletedDocuments[segmentIndex] = deleted == null ? null
+							: deleted.clone();
+					deletedTotals[segmentIndex] = segment.getDeletedTotal();
+				}
+			}
+
+			SegmentMerger merger = new SegmentMerger(mergedSegments,
+					deletedDocuments);
+			Segment segment = merger.getSegment();
+			synchronized (this) {
+				for (int segmentIndex = 0; segmentIndex < deletedDocuments.length; segmentIndex++) {
+					Segment source = mergedSegments.get(segmentIndex);
+					if (source.getDeletedTotal() == deletedTotals[segmentIndex]) {
+						continue;
+					}
+					int[] documentIndexes = merger.getDocumentIndexes(segmentIndex);
+					for (int documentIndex = 0; documentIndex < documentIndexes.length; documentIndex++) {
+						if (documentIndexes[documentIndex] >= 0
+								&& source.isDeleted(documentIndex)) {
+							segment.delete(documentIndexes[documentIndex]);
+						}
+					}
+				}
+
+				List<Segment> newSegments = new ArrayList<Segment>(segments);
+				int start = newSegments.indexOf(mergedSegments.get(0));
+				newSegments.subList(start, start + mergedSegments.size())
+						.clear();
+				if (segment.getDocumentsTotal() > 0) {
+					newSegments.add(start, segment);
+				}
+				segments = Collections.unmodifiableList(newSegments);
+
+				if (merger.getRemovedDocumentsTotal() > 0) {
+					for (Map.Entry<String, Integer> entry : merger
+							.getRemovedDocumentFrequencies().entrySet()) {
+						int documentFrequency = documentFrequencies.get(entry
+								.getKey()) - entry.getValue();
+						if (documentFrequency > 0) {
+							documentFrequencies.put(entry.getKey(),
+									documentFrequency);
+						} else {
+							documentFrequencies.remove(entry.getKey());
+						}
+					}
+					documentsTotal -= merger.getRemovedDocumentsTotal();
+					deletedTotal -= merger.getRemovedDocumentsTotal();
+					lengthsTotal -= merger.getRemovedLengthsTotal();
+					generation++;
+				}
+				mergesTotal++;
+			}
+		}
+	}
+
+	/**
+	 * Aguarda o fim das junes agendadas
+	 */
+	public void waitForMerges() {
+		try {
+			mergeExecutor.submit(new Runnable() {
+				@Override
+				public void run() {
+				}
+			}).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Obtm os segmentos
+	 *
+	 * @return os segmentos, em ordem de criao; a lista no muda com as
+	 *         junes e novos segmentos posteriores
+	 */
+	public List<Segment> getSegments() {
+		return segments;
+	}
+
+	/**
+	 * Obtm a gerao das estatsticas, que muda a cada novo segmento e a
+	 * cada juno que remove documentos excludos
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Obtm o identificador que ser atribudo ao prximo documento
+	 * acrescentado; os identificadores menores j foram atribudos
+	 */
+	public synchronized int getNextDocumentId() {
+		return nextDocumentId;
+	}
+
+	/**
+	 * Quantidade de junes de segmentos j feitas
+	 */
+	public int getMergesTotal() {
+		return mergesTotal;
+	}
+
+	/**
+	 * Quantidade de documentos no excludos
+	 */
+	public synchronized int getLiveDocumentsTotal() {
+		return documentsTotal - deletedTotal;
+	}
+
+	/**
+	 * {@inheritDoc} Os documentos excludos ainda no removidos por uma juno
+	 * so contados.
+	 */
+	@Override
+	public synchronized int getDocumentsTotal() {
+		return documentsTotal;
+	}
+
+	@Override
+	public synchronized int getDocumentFrequency(String term) {
+		Integer documentFrequency = documentFrequencies.get(term);
+		return documentFrequency == null ? 0 : documentFrequency;
+	}
+
+	@Override
+	public synchronized double getAverageDocumentLength() {
+		return documentsTotal > 0 ? ((double) lengthsTotal) / documentsTotal
+				: 0;
+	}
+}
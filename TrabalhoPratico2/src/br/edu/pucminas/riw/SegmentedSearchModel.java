@@ -0,0 +1,197 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modelo de busca com ordenao sobre um {@link SegmentedIndex}: cada segmento
+ * tem o seu modelo, com os pesos calculados a partir das estatsticas de toda
+ * a coleo, e os resultados dos segmentos so juntados com os documentos
+ * traduzidos para os seus identificadores na coleo. Os documentos excludos
+ * de cada segmento so descartados dos resultados, e no caso dos k mais
+ * similares, antes de chegarem ao coletor, para no ocuparem o lugar de
+ * documentos vlidos.
+ *
+ * Quando um novo segmento muda as estatsticas, os modelos de todos os
+ * segmentos so recriados na busca seguinte, para que o IDF e as normas
+ * continuem corretos; a recriao percorre apenas os postings j indexados,
+ * sem reprocessar os documentos. Um segmento resultante de uma juno tem o
+ * seu modelo criado quando aparece pela primeira vez em uma busca.
+ *
+ * Com um nico segmento sem excluses e cujos identificadores so os prprios
+ * ndices locais, as buscas so repassadas diretamente ao seu modelo, com as
+ * mesmas otimizaes de um ndice no segmentado.
+ */
+public class SegmentedSearchModel implements SearchModel {
+	private SegmentedIndex segmentedIndex;
+	private RankingModel rankingModel;
+
+	private Map<Segment, RankedSearchModel> modelsMap = new HashMap<Segment, RankedSearchModel>();
+	private int modelsGeneration = -1;
+
+	private ThreadLocal<TopKCollector> collectors = new ThreadLocal<TopKCollector>() {
+		@Override
+		protected TopKCollector initialValue() {
+			return new TopKCollector();
+		}
+	};
+
+	private ThreadLocal<TopKCollector> segmentCollectors = new ThreadLocal<TopKCollector>() {
+		@Override
+		protected TopKCollector initialValue() {
+			return new TopKCollector();
+		}
+	};
+
+	/**
+	 * Cria o modelo
+	 *
+	 * @param segmentedIndex
+	 *            o ndice segmentado
+	 * @param rankingModel
+	 *            o modelo de ordenao de cada segmento
+	 */
+	public SegmentedSearchModel(SegmentedIndex segmentedIndex,
+			RankingModel rankingModel) {
+		this.segmentedIndex = segmentedIndex;
+		this.rankingModel = rankingModel;
+	}
+
+	@Override
+	public List<Integer> processQuery(List<String> queryTerms) {
+		List<Segment> segments = segmentedIndex.getSegments();
+		RankedSearchModel[] models = getModels(segments);
+		if (isDirect(segments)) {
+			return models[0].processQuery(queryTerms);
+		}
+
+		List<Integer> resultsList = new ArrayList<Integer>();
+		for (int segmentIndex = 0; segmentIndex < models.length; segmentIndex++) {
+			segments.get(segmentIndex).addDocumentIds(resultsList,
+					models[segmentIndex].processQuery(queryTerms));
+		}
+		Collections.sort(resultsList);
+		return resultsList;
+	}
+
+	@Override
+	public RelevanceSearchReturn processQueryWithRelevance(
+			List<String> queryTerms, int treshold, double minimalRelevance) {
+		List<Segment> segments = segmentedIndex.getSegments();
+		RankedSearchModel[] models = getModels(segments);
+		if (isDirect(segments)) {
+			return models[0].processQueryWithRelevance(queryTerms, treshold,
+					minimalRelevance);
+		}
+
+		TopKCollector collector = collectors.get();
+		collector.reset(treshold, minimalRelevance);
+		TopKCollector segmentCollector = segmentCollectors.get();
+		for (int segmentIndex = 0; segmentIndex < models.length; segmentIndex++) {
+			Segment segment = segments.get(segmentIndex);
+			segmentCollector.reset(treshold, minimalRelevance,
+					segment.getDeletedDocuments());
+			models[segmentIndex].collect(queryTerms, segmentCollector);
+			collector.merge(segmentCollector,
+					segment.hasLocalDocumentIds() ? null : segment
+							.getDocumentIds());
+		}
+		return collector.getResults();
+	}
+
+	/**
+	 * Processa um lote de queries, avaliado em lote em cada segmento
+	 */
+	@Override
+	public List<List<Integer>> processQueries(List<List<String>> queriesTerms) {
+		List<Segment> segments = segmentedIndex.getSegments();
+		RankedSearchModel[] models = getModels(segments);
+		if (isDirect(segments)) {
+			return models[0].processQueries(queriesTerms);
+		}
+
+		List<List<Integer>> resultsLists = new ArrayList<List<Integer>>(
+				queriesTerms.size());
+		for (int query = 0; query < queriesTerms.size(); query++) {
+			resultsLists.add(new ArrayList<Integer>());
+		}
+		for (int segmentIndex = 0; segmentIndex < models.length; segmentIndex++) {
+			List<List<Integer>> segmentResultsLists = models[segmentIndex]
+					.processQueries(queriesTerms);
+			for (int query = 0; query < queriesTerms.size(); query++) {
+				segments.get(segmentIndex).addDocumentIds(
+						resultsLists.get(query), segmentResultsLists.get(query));
+			}
+		}
+		for (List<Integer> resultsList : resultsLists) {
+			Collections.sort(resultsList);
+		}
+		return resultsLists;
+	}
+
+	@Override
+	public List<RelevanceSearchReturn> processQueriesWithRelevance(
+			List<List<String>> queriesTerms, int treshold,
+			double minimalRelevance) {
+		List<Segment> segments = segmentedIndex.getSegments();
+		if (isDirect(segments)) {
+			return getModels(segments)[0].processQueriesWithRelevance(
+					queriesTerms, treshold, minimalRelevance);
+		}
+
+		List<RelevanceSearchReturn> returnsList = new ArrayList<RelevanceSearchReturn>(
+				queriesTerms.size());
+		for (List<String> queryTerms : queriesTerms) {
+			returnsList.add(processQueryWithRelevance(queryTerms, treshold,
+					minimalRelevance));
+		}
+		return returnsList;
+	}
+
+	/**
+	 * Indica se as buscas podem ser repassadas diretamente ao modelo do nico
+	 * segmento
+	 */
+	private static boolean isDirect(List<Segment> segments) {
+		if (segments.size() != 1) {
+			return false;
+		}
+		Segment segment = segments.get(0);
+		return segment.hasLocalDocumentIds() && segment.hasDeletions() == false;
+	}
+
+	/**
+	 * Obtm o modelo de cada segmento, recriando todos eles se as estatsticas
+	 * da coleo mudaram desde a sua criao
+	 *
+	 * @param segments
+	 *            os segmentos
+	 * @return os modelos, na ordem dos segmentos
+	 */
+	private synchronized RankedSearchModel[] getModels(List<Segment> segments) {
+		int generation = segmentedIndex.getGeneration();
+		if (generation != modelsGeneration) {
+			modelsMap.clear();
+			modelsGeneration = generation;
+		}
+
+		// Os modelos dos segmentos juntados deixam de ser guardados
+		Map<Segment, RankedSearchModel> newModelsMap = new HashMap<Segment, RankedSearchModel>();
+		RankedSearchModel[] models = new RankedSearchModel[segments.size()];
+		for (int segmentIndex = 0; segmentIndex < models.length; segmentIndex++) {
+			Segment segment = segments.get(segmentIndex);
+			RankedSearchModel model = modelsMap.get(segment);
+			if (model == null) {
+				model = rankingModel.createModel(segment.getInvertedIndex(),
+						segmentedIndex);
+			}
+			newModelsMap.put(segment, model);
+			models[segmentIndex] = model;
+		}
+		modelsMap = newModelsMap;
+		return models;
+	}
+}
@@ -0,0 +1,364 @@
+package br.edu.pucminas.riw;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.tartarus.snowball.SnowballStemmer;
+
+/**
+ * Cache limitado de termo -> radical, compartilhado pelas threads de anlise
+ * de documentos e de consultas. Como o vocabulrio segue a lei de Zipf, poucos
+ * milhares de termos respondem pela maioria das ocorrncias e dispensam o
+ * stemmer.
+ *
+ * A tabela  dividida em segmentos com travas independentes; cada segmento
+ * descarta entradas pela poltica escolhida quando atinge a sua capacidade.
+ */
+public class StemCache {
+	private static final int SEGMENTS_TOTAL = 16;
+	private static final String FILE_ENCODING = "UTF-8";
+	private static final String FILE_SEPARATOR = "\t";
+
+	/**
+	 * Poltica de descarte de entradas
+	 */
+	public enum EvictionPolicy {
+		/** Descarta a entrada usada h mais tempo */
+		LRU("lru"),
+		/** Descarta a entrada inserida h mais tempo */
+		FIFO("fifo");
+
+		private String name;
+
+		private EvictionPolicy(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Obtm a poltica pelo nome
+		 *
+		 * @param name
+		 *            nome da poltica, como "lru" ou "fifo"
+		 * @return a poltica, ou null caso no exista
+		 */
+		public static EvictionPolicy fromName(String name) {
+			for (EvictionPolicy evictionPolicy : values()) {
+				if (evictionPolicy.name.equals(name)) {
+					return evictionPolicy;
+				}
+			}
+			return null;
+		}
+	}
+
+	private Segment[] segments = new Segment[SEGMENTS_TOTAL];
+	private EvictionPolicy evictionPolicy;
+	private AtomicLong hits = new AtomicLong();
+	private AtomicLong misses = new AtomicLong();
+
+	public StemCache(int maximumSize, EvictionPolicy evictionPolicy) {
+		this.evictionPolicy = evictionPolicy;
+		int segmentCapacity = Math.max(1, maximumSize / SEGMENTS_TOTAL);
+		for (int segmentIndex = 0; segmentIndex < SEGMENTS_TOTAL; segmentIndex++) {
+			segments[segmentIndex] = new Segment(segmentCapacity);
+		}
+	}
+
+	/**
+	 * Obtm o radical do termo, consultando o stemmer apenas se o termo no
+	 * estiver no cache
+	 *
+	 * @param term
+	 *            o termo
+	 * @param stemmer
+	 *            o stemmer da thread corrente
+	 * @return o radical do termo
+	 */
+	public String stem(String term, SnowballStemmer stemmer) {
+		char[] buffer = term.toCharArray();
+		return stem(buffer, 0, buffer.length, stemmer);
+	}
+
+	/**
+	 * Obtm o radical do termo contido no trecho do buffer, consultando o
+	 * stemmer apenas se o termo no estiver no cache
+	 *
+	 * @param buffer
+	 *            buffer com o termo
+	 * @param offset
+	 *            incio do termo no buffer
+	 * @param length
+	 *            tamanho do termo
+	 * @param stemmer
+	 *            o stemmer da thread corrente
+	 * @return o radical do termo
+	 */
+	public String stem(char[] buffer, int offset, int length,
+			SnowballStemmer stemmer) {
+		int hash = hash(buffer, offset, length);
+		Segment segment = segments[hash & (SEGMENTS_TOTAL - 1)];
+
+		String stem = segment.get(buffer, offset, length, hash);
+		if (stem != null) {
+			hits.incrementAndGet();
+			return stem;
+		}
+
+		misses.incrementAndGet();
+		stemmer.setCurrent(buffer, offset, length);
+		stemmer.stem();
+		stem = new String(stemmer.getCurrentBuffer(), 0,
+				stemmer.getCurrentLength());
+		segment.put(buffer, offset, length, hash, stem);
+		return stem;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Obtm a taxa de acertos do cache
+	 *
+	 * @return a frao de consultas respondidas pelo cache
+	 */
+	public double getHitRatio() {
+		long hits = this.hits.get();
+		long requests = hits + misses.get();
+		return requests == 0 ? 0 : ((double) hits) / requests;
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Carrega o vocabulrio salvo por {@link #save(String, Language)}, para
+	 * que a execuo comece com o cache aquecido. Arquivos de outro idioma so
+	 * ignorados.
+	 *
+	 * @param fileName
+	 *            nome do arquivo
+	 * @param language
+	 *            o idioma do stemmer
+	 * @return true se o arquivo era do mesmo idioma e foi carregado
+	 * @throws IOException
+	 */
+	public boolean load(String fileName, Language language) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(fileName), FILE_ENCODING));
+		try {
+			if (language.getName().equals(reader.readLine()) == false) {
+				return false;
+			}
+
+			String fileLine = null;
+			while ((fileLine = reader.readLine()) != null) {
+				int separatorIndex = fileLine.indexOf(FILE_SEPARATOR);
+				if (separatorIndex < 0) {
+					continue;
+				}
+				char[] term = fileLine.substring(0, separatorIndex)
+						.toCharArray();
+				int hash = hash(term, 0, term.length);
+				segments[hash & (SEGMENTS_TOTAL - 1)].put(term, 0,
+						term.length, hash,
+						fileLine.substring(separatorIndex + 1));
+			}
+			return true;
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Salva o vocabulrio do cache, do termo menos para o mais recente de cada
+	 * segmento
+	 *
+	 * @param fileName
+	 *            nome do arquivo
+	 * @param language
+	 *            o idioma do stemmer
+	 * @throws IOException
+	 */
+	public void save(String fileName, Language language) throws IOException {
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(fileName), FILE_ENCODING));
+		try {
+			writer.write(language.getName());
+			writer.newLine();
+			for (Segment segment : segments) {
+				segment.write(writer);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static int hash(char[] buffer, int offset, int length) {
+		int hash = 0;
+		for (int index = offset; index < offset + length; index++) {
+			hash = 31 * hash + buffer[index];
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Entrada do cache, presente ao mesmo tempo na lista encadeada do seu
+	 * bucket e na lista de ordem de descarte do segmento
+	 */
+	private static class Entry {
+		private char[] term;
+		private int hash;
+		private String stem;
+		private Entry next;
+		private Entry before;
+		private Entry after;
+	}
+
+	/**
+	 * Segmento do cache, com trava prpria
+	 */
+	private class Segment {
+		private Entry[] buckets;
+		private int capacity;
+		private int size;
+
+		// Lista de ordem de descarte: o mais antigo logo aps o sentinela
+		private Entry head = new Entry();
+
+		public Segment(int capacity) {
+			this.capacity = capacity;
+			int bucketsTotal = 1;
+			while (bucketsTotal < capacity) {
+				bucketsTotal <<= 1;
+			}
+			buckets = new Entry[bucketsTotal];
+			head.before = head;
+			head.after = head;
+		}
+
+		public synchronized int size() {
+			return size;
+		}
+
+		public synchronized String get(char[] buffer, int offset, int length,
+				int hash) {
+			Entry entry = find(buffer, offset, length, hash);
+			if (entry == null) {
+				return null;
+			}
+			if (evictionPolicy == EvictionPolicy.LRU) {
+				unlink(entry);
+				link(entry);
+			}
+			return entry.stem;
+		}
+
+		public synchronized void put(char[] buffer, int offset, int length,
+				int hash, String stem) {
+			// Outra thread pode ter inserido o mesmo termo nesse meio tempo
+			if (find(buffer, offset, length, hash) != null) {
+				return;
+			}
+
+			if (size == capacity) {
+				evict();
+			}
+
+			Entry entry = new Entry();
+			entry.term = new char[length];
+			System.arraycopy(buffer, offset, entry.term, 0, length);
+			entry.hash = hash;
+			entry.stem = stem;
+
+			int bucketIndex = (hash >>> 4) & (buckets.length - 1);
+			entry.next = buckets[bucketIndex];
+			buckets[bucketIndex] = entry;
+			link(entry);
+			size++;
+		}
+
+		public synchronized void write(BufferedWriter writer)
+				throws IOException {
+			for (Entry entry = head.after; entry != head; entry = entry.after) {
+				writer.write(entry.term);
+				writer.write(FILE_SEPARATOR);
+				writer.write(entry.stem);
+				writer.newLine();
+			}
+		}
+
+		private Entry find(char[] buffer, int offset, int length, int hash) {
+			// Os 4 bits menores do hash j escolheram o segmento
+			Entry entry = buckets[(hash >>> 4) & (buckets.length - 1)];
+			for (; entry != null; entry = entry.next) {
+				if (entry.hash == hash && matches(entry.term, buffer, offset,
+						length)) {
+					return entry;
+				}
+			}
+			return null;
+		}
+
+		private void evict() {
+			Entry eldest = head.after;
+			unlink(eldest);
+
+			int bucketIndex = (eldest.hash >>> 4) & (buckets.length - 1);
+			Entry entry = buckets[bucketIndex];
+			if (entry == eldest) {
+				buckets[bucketIndex] = eldest.next;
+			} else {
+				while (entry.next != eldest) {
+					entry = entry.next;
+				}
+				entry.next = eldest.next;
+			}
+			size--;
+		}
+
+		private void link(Entry entry) {
+			entry.before = head.before;
+			entry.after = head;
+			head.before.after = entry;
+			head.before = entry;
+		}
+
+		private void unlink(Entry entry) {
+			entry.before.after = entry.after;
+			entry.after.before = entry.before;
+		}
+
+		private boolean matches(char[] term, char[] buffer, int offset,
+				int length) {
+			if (term.length != length) {
+				return false;
+			}
+			for (int index = 0; index < length; index++) {
+				if (term[index] != buffer[offset + index]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conjunto imutvel de stopwords, em uma tabela hash de endereamento aberto.
+ * A consulta pode ser feita sobre um trecho de um char[], sem criar Strings, e
+ * pode ser compartilhada entre threads.
+ */
+public class StopwordFilter {
+	private char[][] table;
+	private int mask;
+	private int size;
+
+	/**
+	 * Cria o filtro. As stopwords passam pelo mesmo tokenizador dos
+	 * documentos, para que acentos e maisculas sejam tratados da mesma forma.
+	 *
+	 * @param stopwordsList
+	 *            lista de stopwords
+	 */
+	public StopwordFilter(List<String> stopwordsList) {
+		int capacity = 4;
+		while (capacity < stopwordsList.size() * 2) {
+			capacity <<= 1;
+		}
+		table = new char[capacity][];
+		mask = capacity - 1;
+
+		Tokenizer tokenizer = new Tokenizer();
+		List<String> tokensList = new ArrayList<String>();
+		for (String stopword : stopwordsList) {
+			tokensList.clear();
+			tokenizer.tokenize(stopword.trim(), tokensList);
+			for (String token : tokensList) {
+				if (token.length() > 0) {
+					add(token.toCharArray());
+				}
+			}
+		}
+	}
+
+	private void add(char[] stopword) {
+		int slot = hash(stopword, 0, stopword.length) & mask;
+		while (table[slot] != null) {
+			if (equals(table[slot], stopword, 0, stopword.length)) {
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = stopword;
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isStopword(String term) {
+		int hash = 0;
+		for (int index = 0; index < term.length(); index++) {
+			hash = 31 * hash + term.charAt(index);
+		}
+
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		char[] stopword;
+		while ((stopword = table[slot]) != null) {
+			if (equals(stopword, term)) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Verifica se o trecho do buffer  uma stopword
+	 *
+	 * @param buffer
+	 *            buffer com o termo
+	 * @param offset
+	 *            incio do termo no buffer
+	 * @param length
+	 *            tamanho do termo
+	 * @return true se o termo  uma stopword
+	 */
+	public boolean isStopword(char[] buffer, int offset, int length) {
+		int slot = hash(buffer, offset, length) & mask;
+		char[] stopword;
+		while ((stopword = table[slot]) != null) {
+			if (equals(stopword, buffer, offset, length)) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	private static int hash(char[] buffer, int offset, int length) {
+		int hash = 0;
+		for (int index = offset; index < offset + length; index++) {
+			hash = 31 * hash + buffer[index];
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean equals(char[] stopword, String term) {
+		if (stopword.length != term.length()) {
+			return false;
+		}
+		for (int index = 0; index < stopword.length; index++) {
+			if (stopword[index] != term.charAt(index)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean equals(char[] stopword, char[] buffer, int offset,
+			int length) {
+		if (stopword.length != length) {
+			return false;
+		}
+		for (int index = 0; index < length; index++) {
+			if (stopword[index] != buffer[offset + index]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
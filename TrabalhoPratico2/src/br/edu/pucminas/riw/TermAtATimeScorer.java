@@ -0,0 +1,154 @@
+package br.edu.pucminas.riw;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Motor de pontuao termo a termo (term-at-a-time): percorre os postings de
+ * cada termo da consulta e soma as contribuies TF-IDF nos acumuladores dos
+ * documentos, normalizando-as pelo cosseno ao final.
+ *
+ * Sem limite de acumuladores, os termos so percorridos em ordem crescente de
+ * ndice, de modo que a similaridade  exatamente a do produto interno dos
+ * vetores. Com limite, os termos de maior peso na consulta so percorridos
+ * primeiro, e os de baixo peso e alta frequncia de documentos deixam de
+ * criar acumuladores:
+ * <ul>
+ * <li>QUIT: a avaliao termina ao atingir o limite;</li>
+ * <li>CONTINUE: ao atingir o limite, os acumuladores existentes continuam
+ * recebendo contribuies, mas nenhum novo  criado.</li>
+ * </ul>
+ * Nesses casos as similaridades so aproximadas.
+ */
+public class TermAtATimeScorer {
+
+	/**
+	 * Estratgia de limitao de acumuladores
+	 */
+	public enum AccumulatorLimit {
+		NONE, QUIT, CONTINUE
+	}
+
+	private InvertedIndex invertedIndex;
+	private double[][] weightsPostings;
+	private double[] documentNorms;
+	private AccumulatorLimit accumulatorLimit;
+	private int maximumAccumulators;
+
+	// Os acumuladores tm o tamanho da coleo; cada thread reaproveita os seus
+	private ThreadLocal<ScoreAccumulators> accumulators = new ThreadLocal<ScoreAccumulators>() {
+		@Override
+		protected ScoreAccumulators initialValue() {
+			return new ScoreAccumulators(invertedIndex.getDocumentsTotal());
+		}
+	};
+
+	/**
+	 * Cria o motor de pontuao
+	 *
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param weightsPostings
+	 *            pesos TF-IDF de cada termo, na ordem dos postings
+	 * @param documentNorms
+	 *            norma do vetor de cada documento
+	 * @param accumulatorLimit
+	 *            estratgia de limitao de acumuladores
+	 * @param maximumAccumulators
+	 *            quantidade mxima de acumuladores, caso haja limitao
+	 */
+	public TermAtATimeScorer(InvertedIndex invertedIndex,
+			double[][] weightsPostings, double[] documentNorms,
+			AccumulatorLimit accumulatorLimit, int maximumAccumulators) {
+		this.invertedIndex = invertedIndex;
+		this.weightsPostings = weightsPostings;
+		this.documentNorms = documentNorms;
+		this.accumulatorLimit = accumulatorLimit;
+		this.maximumAccumulators = maximumAccumulators;
+	}
+
+	/**
+	 * Calcula a similaridade dos documentos que contm termos da consulta
+	 *
+	 * @param query
+	 *            a consulta
+	 * @return os acumuladores, em ordem crescente de documento; eles pertencem
+	 *          thread corrente e so reaproveitados na prxima consulta
+	 */
+	public ScoreAccumulators score(QueryVector query) {
+		return score(query, 0, invertedIndex.getDocumentsTotal());
+	}
+
+	/**
+	 * Calcula a similaridade dos documentos de um intervalo que contm termos
+	 * da consulta; o limite de acumuladores, se houver, vale para o intervalo
+	 *
+	 * @param query
+	 *            a consulta
+	 * @param startDocument
+	 *            primeiro documento do intervalo
+	 * @param endDocument
+	 *            documento seguinte ao ltimo do intervalo
+	 * @return os acumuladores, em ordem crescente de documento; eles pertencem
+	 *          thread corrente e so reaproveitados na prxima consulta
+	 */
+	public ScoreAccumulators score(QueryVector query, int startDocument,
+			int endDocument) {
+		ScoreAccumulators accumulators = this.accumulators.get();
+		accumulators.clear();
+
+		for (int position : getTermsOrder(query)) {
+			int termIndex = query.getTermIndex(position);
+			double queryWeight = query.getWeight(position);
+			IntBuffer documents = invertedIndex.getDocuments(termIndex);
+			double[] weights = weightsPostings[termIndex];
+			int start = Postings.advance(documents, 0, startDocument);
+			int end = Postings.advance(documents, start, endDocument);
+
+			for (int postingIndex = start; postingIndex < end; postingIndex++) {
+				int documentIndex = documents.get(postingIndex);
+				if (accumulatorLimit != AccumulatorLimit.NONE
+						&& accumulators.size() >= maximumAccumulators
+						&& accumulators.contains(documentIndex) == false) {
+					if (accumulatorLimit == AccumulatorLimit.QUIT) {
+						accumulators.normalize(documentNorms, query.getNorm());
+						return accumulators;
+					}
+					continue;
+				}
+				accumulators.add(documentIndex, weights[postingIndex]
+						* queryWeight);
+			}
+		}
+
+		accumulators.normalize(documentNorms, query.getNorm());
+		return accumulators;
+	}
+
+	/**
+	 * Obtm a ordem em que os termos da consulta so percorridos
+	 *
+	 * @param query
+	 *            a consulta
+	 * @return as posies dos termos na consulta
+	 */
+	private Integer[] getTermsOrder(final QueryVector query) {
+		Integer[] order = new Integer[query.size()];
+		for (int position = 0; position < order.length; position++) {
+			order[position] = position;
+		}
+		if (accumulatorLimit == AccumulatorLimit.NONE) {
+			return order;
+		}
+
+		// Maior peso na consulta primeiro, ou seja, os termos mais raros
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(query.getWeight(o2), query.getWeight(o1));
+			}
+		});
+		return order;
+	}
+}
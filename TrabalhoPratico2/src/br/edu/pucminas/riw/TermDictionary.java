@@ -0,0 +1,411 @@
+package br.edu.pucminas.riw;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Dicionrio imutvel de termos, guardado como um nico vetor de bytes com os
+ * termos em UTF-8 e em ordem crescente de bytes, codificados por prefixo
+ * (front coding): os termos so agrupados em blocos de {@link #BLOCK_SIZE}, o
+ * primeiro termo de cada bloco  guardado inteiro, e cada um dos seguintes
+ * guarda apenas o tamanho do prefixo comum com o anterior e o sufixo. Termos
+ * vizinhos em ordem alfabtica compartilham prefixos longos, e o dicionrio
+ * ocupa poucos bytes por termo, sem um objeto por termo.
+ *
+ * Os termos mantm os ndices com que foram criados; dois vetores guardam o
+ * ndice de cada termo pela sua posio na ordem e a posio de cada ndice.
+ * A busca de um termo  uma busca binria nos primeiros termos dos blocos,
+ * comparados direto nos bytes, seguida da decodificao de no mximo um
+ * bloco. A ordem permite percorrer os termos de um intervalo ou de um
+ * prefixo.
+ */
+public class TermDictionary {
+	public static final int BLOCK_SIZE = 16;
+
+	private static final Charset TERM_CHARSET = Charset.forName("UTF-8");
+
+	private byte[] data;
+	private int[] blockOffsets;
+	private int maximumTermLength;
+	// ndice de cada termo, pela sua posio na ordem, e o inverso
+	private int[] sortedTermIndexes;
+	private int[] termPositions;
+
+	private ThreadLocal<TermsIterator> cursors = new ThreadLocal<TermsIterator>() {
+		@Override
+		protected TermsIterator initialValue() {
+			return new TermsIterator(0, 0);
+		}
+	};
+
+	/**
+	 * Cria o dicionrio
+	 *
+	 * @param termsList
+	 *            os termos, distintos, na ordem dos seus ndices
+	 */
+	public TermDictionary(List<String> termsList) {
+		int termsTotal = termsList.size();
+		final byte[][] termsBytes = new byte[termsTotal][];
+		Integer[] order = new Integer[termsTotal];
+		for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+			termsBytes[termIndex] = termsList.get(termIndex).getBytes(
+					TERM_CHARSET);
+			maximumTermLength = Math.max(maximumTermLength,
+					termsBytes[termIndex].length);
+			order[termIndex] = termIndex;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer left, Integer right) {
+				return TermDictionary.compare(termsBytes[left], 0,
+						termsBytes[left].length, termsBytes[right]);
+			}
+		});
+
+		sortedTermIndexes = new int[termsTotal];
+		blockOffsets = new int[getBlocksTotal(termsTotal)];
+		data = new byte[16];
+		int size = 0;
+		byte[] previous = null;
+		for (int position = 0; position < termsTotal; position++) {
+			int termIndex = order[position];
+			byte[] term = termsBytes[termIndex];
+			sortedTermIndexes[position] = termIndex;
+
+			int shared = 0;
+			if (position % BLOCK_SIZE == 0) {
+				blockOffsets[position / BLOCK_SIZE] = size;
+			} else {
+				int limit = Math.min(previous.length, term.length);
+				while (shared < limit && previous[shared] == term[shared]) {
+					shared++;
+				}
+			}
+
+			if (size + 10 + term.length - shared > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length * 2, size + 10
+						+ term.length - shared));
+			}
+			if (position % BLOCK_SIZE != 0) {
+				size = writeVariableInt(data, size, shared);
+			}
+			size = writeVariableInt(data, size, term.length - shared);
+			System.arraycopy(term, shared, data, size, term.length - shared);
+			size += term.length - shared;
+			previous = term;
+		}
+		data = Arrays.copyOf(data, size);
+		termPositions = invert(sortedTermIndexes);
+	}
+
+	private TermDictionary(byte[] data, int[] blockOffsets,
+			int maximumTermLength, int[] sortedTermIndexes) {
+		this.data = data;
+		this.blockOffsets = blockOffsets;
+		this.maximumTermLength = maximumTermLength;
+		this.sortedTermIndexes = sortedTermIndexes;
+		this.termPositions = invert(sortedTermIndexes);
+	}
+
+	/**
+	 * L um dicionrio gravado por {@link #write(DataOutput)}
+	 *
+	 * @param buffer
+	 *            o buffer, na posio do dicionrio, que fica depois dele
+	 * @return o dicionrio
+	 */
+	public static TermDictionary read(ByteBuffer buffer) {
+		int termsTotal = buffer.getInt();
+		int maximumTermLength = buffer.getInt();
+		byte[] data = new byte[buffer.getInt()];
+		buffer.get(data);
+		int[] blockOffsets = new int[getBlocksTotal(termsTotal)];
+		buffer.asIntBuffer().get(blockOffsets);
+		buffer.position(buffer.position() + blockOffsets.length * 4);
+		int[] sortedTermIndexes = new int[termsTotal];
+		buffer.asIntBuffer().get(sortedTermIndexes);
+		buffer.position(buffer.position() + termsTotal * 4);
+		return new TermDictionary(data, blockOffsets, maximumTermLength,
+				sortedTermIndexes);
+	}
+
+	/**
+	 * Grava o dicionrio: quantidade de termos, tamanho do maior termo, bytes
+	 * dos blocos, incio de cada bloco e ndice de cada termo na ordem
+	 *
+	 * @param output
+	 *            a sada
+	 * @throws IOException
+	 */
+	public void write(DataOutput output) throws IOException {
+		output.writeInt(size());
+		output.writeInt(maximumTermLength);
+		output.writeInt(data.length);
+		output.write(data);
+		for (int blockOffset : blockOffsets) {
+			output.writeInt(blockOffset);
+		}
+		for (int termIndex : sortedTermIndexes) {
+			output.writeInt(termIndex);
+		}
+	}
+
+	public int size() {
+		return sortedTermIndexes.length;
+	}
+
+	/**
+	 * Obtm o tamanho do dicionrio em memria
+	 *
+	 * @return a quantidade de bytes dos vetores do dicionrio
+	 */
+	public long getSizeInBytes() {
+		return data.length + 4L * blockOffsets.length + 8L
+				* sortedTermIndexes.length;
+	}
+
+	/**
+	 * Obtm o ndice de um termo
+	 *
+	 * @param term
+	 *            o termo
+	 * @return o ndice do termo, ou -1 caso o termo no exista no dicionrio
+	 */
+	public int getTermIndex(String term) {
+		byte[] termBytes = term.getBytes(TERM_CHARSET);
+		int position = findCeiling(termBytes);
+		if (position == size()) {
+			return -1;
+		}
+		TermsIterator cursor = cursors.get();
+		if (cursor.position != position) {
+			cursor.seek(position);
+		}
+		return compare(cursor.termBytes, 0, cursor.termLength, termBytes) == 0 ? sortedTermIndexes[position]
+				: -1;
+	}
+
+	/**
+	 * Obtm um termo pelo seu ndice
+	 *
+	 * @param termIndex
+	 *            ndice do termo
+	 * @return o termo
+	 */
+	public String getTerm(int termIndex) {
+		TermsIterator cursor = cursors.get();
+		cursor.seek(termPositions[termIndex]);
+		return cursor.getTerm();
+	}
+
+	/**
+	 * Percorre, em ordem, os termos de um intervalo
+	 *
+	 * @param from
+	 *            o menor termo do intervalo, includo, ou null para comear
+	 *            do primeiro termo
+	 * @param to
+	 *            o maior termo do intervalo, excludo, ou null para ir at o
+	 *            ltimo termo
+	 * @return o iterador, antes do primeiro termo
+	 */
+	public TermsIterator range(String from, String to) {
+		int start = from == null ? 0 : findCeiling(from.getBytes(TERM_CHARSET));
+		int end = to == null ? size() : findCeiling(to.getBytes(TERM_CHARSET));
+		return new TermsIterator(start, Math.max(start, end));
+	}
+
+	/**
+	 * Percorre, em ordem, os termos que comeam com um prefixo
+	 *
+	 * @param prefix
+	 *            o prefixo
+	 * @return o iterador, antes do primeiro termo
+	 */
+	public TermsIterator prefix(String prefix) {
+		byte[] prefixBytes = prefix.getBytes(TERM_CHARSET);
+		int start = findCeiling(prefixBytes);
+
+		// O fim  o primeiro termo maior que todos os que tm o prefixo: o
+		// prefixo sem os bytes 0xFF finais e com o ltimo byte incrementado
+		int length = prefixBytes.length;
+		while (length > 0 && prefixBytes[length - 1] == (byte) 0xFF) {
+			length--;
+		}
+		int end = size();
+		if (length > 0) {
+			byte[] limit = Arrays.copyOf(prefixBytes, length);
+			limit[length - 1]++;
+			end = findCeiling(limit);
+		}
+		return new TermsIterator(start, end);
+	}
+
+	/**
+	 * Procura a posio, na ordem, do primeiro termo maior ou igual ao
+	 * indicado
+	 *
+	 * @param termBytes
+	 *            o termo, em UTF-8
+	 * @return a posio do termo, ou a quantidade de termos se todos forem
+	 *         menores
+	 */
+	private int findCeiling(byte[] termBytes) {
+		// ltimo bloco cujo primeiro termo  menor ou igual ao procurado
+		int low = 0;
+		int high = blockOffsets.length - 1;
+		int block = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int offset = blockOffsets[middle];
+			int length = 0;
+			int shift = 0;
+			byte value;
+			do {
+				value = data[offset++];
+				length |= (value & 0x7F) << shift;
+				shift += 7;
+			} while (value < 0);
+			if (compare(data, offset, length, termBytes) <= 0) {
+				block = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		if (block < 0) {
+			return 0;
+		}
+
+		TermsIterator cursor = cursors.get();
+		cursor.seek(block * BLOCK_SIZE);
+		int end = Math.min(size(), (block + 1) * BLOCK_SIZE);
+		while (compare(cursor.termBytes, 0, cursor.termLength, termBytes) < 0) {
+			if (cursor.position + 1 == end) {
+				return end;
+			}
+			cursor.decodeNext();
+		}
+		return cursor.position;
+	}
+
+	/**
+	 * Compara bytes de um termo com outro termo, como bytes sem sinal
+	 */
+	private static int compare(byte[] bytes, int offset, int length,
+			byte[] other) {
+		int limit = Math.min(length, other.length);
+		for (int index = 0; index < limit; index++) {
+			int difference = (bytes[offset + index] & 0xFF)
+					- (other[index] & 0xFF);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return length - other.length;
+	}
+
+	private static int writeVariableInt(byte[] bytes, int offset, int value) {
+		while ((value & ~0x7F) != 0) {
+			bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes[offset++] = (byte) value;
+		return offset;
+	}
+
+	private static int getBlocksTotal(int termsTotal) {
+		return (termsTotal + BLOCK_SIZE - 1) / BLOCK_SIZE;
+	}
+
+	private static int[] invert(int[] permutation) {
+		int[] inverse = new int[permutation.length];
+		for (int position = 0; position < permutation.length; position++) {
+			inverse[permutation[position]] = position;
+		}
+		return inverse;
+	}
+
+	/**
+	 * Iterador sobre os termos de um intervalo da ordem, que decodifica cada
+	 * termo a partir do anterior
+	 */
+	public class TermsIterator {
+		private int end;
+		private int position;
+		private int offset;
+		private byte[] termBytes = new byte[maximumTermLength];
+		private int termLength;
+		private boolean decoded;
+
+		private TermsIterator(int start, int end) {
+			this.end = end;
+			this.position = start - 1;
+		}
+
+		/**
+		 * Avana para o prximo termo
+		 *
+		 * @return false se no h mais termos no intervalo
+		 */
+		public boolean next() {
+			if (position + 1 >= end) {
+				return false;
+			}
+			if (decoded == false) {
+				seek(position + 1);
+			} else {
+				decodeNext();
+			}
+			return true;
+		}
+
+		public String getTerm() {
+			return new String(termBytes, 0, termLength, TERM_CHARSET);
+		}
+
+		public int getTermIndex() {
+			return sortedTermIndexes[position];
+		}
+
+		/**
+		 * Posiciona o iterador em uma posio da ordem, decodificando o seu
+		 * bloco desde o incio
+		 */
+		private void seek(int target) {
+			offset = blockOffsets[target / BLOCK_SIZE];
+			position = target - target % BLOCK_SIZE - 1;
+			do {
+				decodeNext();
+			} while (position < target);
+			decoded = true;
+		}
+
+		private void decodeNext() {
+			position++;
+			int shared = position % BLOCK_SIZE == 0 ? 0 : readVariableInt();
+			int suffixLength = readVariableInt();
+			System.arraycopy(data, offset, termBytes, shared, suffixLength);
+			offset += suffixLength;
+			termLength = shared + suffixLength;
+		}
+
+		private int readVariableInt() {
+			int value = 0;
+			int shift = 0;
+			byte current;
+			do {
+				current = data[offset++];
+				value |= (current & 0x7F) << shift;
+				shift += 7;
+			} while (current < 0);
+			return value;
+		}
+	}
+}
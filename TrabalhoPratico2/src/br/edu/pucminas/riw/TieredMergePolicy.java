@@ -0,0 +1,107 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Poltica de juno de segmentos por camadas de tamanho: um segmento est na
+ * camada 0 se tem menos que mnimo x fator postings, na camada 1 se tem menos
+ * que mnimo x fator, e assim por diante. Quando h fator segmentos
+ * vizinhos na mesma camada, eles so juntados em um segmento da camada
+ * seguinte. Assim, a quantidade de segmentos cresce com o logaritmo do
+ * tamanho da coleo, e cada posting  copiado uma vez por camada.
+ *
+ * S segmentos vizinhos so juntados, para que os documentos continuem na
+ * ordem em que foram acrescentados.
+ *
+ * Um segmento com uma frao de documentos excludos acima do mximo 
+ * reescrito sozinho, sem esperar pelos vizinhos, para que os documentos
+ * excludos sejam removidos fisicamente.
+ */
+public class TieredMergePolicy {
+	public static final int DEFAULT_MERGE_FACTOR = 10;
+	public static final long DEFAULT_MINIMUM_SEGMENT_SIZE = 65536;
+	public static final double DEFAULT_MAXIMUM_DELETED_RATIO = 0.3;
+
+	private int mergeFactor;
+	private long minimumSegmentSize;
+	private double maximumDeletedRatio;
+
+	public TieredMergePolicy() {
+		this(DEFAULT_MERGE_FACTOR, DEFAULT_MINIMUM_SEGMENT_SIZE);
+	}
+
+	public TieredMergePolicy(int mergeFactor, long minimumSegmentSize) {
+		this(mergeFactor, minimumSegmentSize, DEFAULT_MAXIMUM_DELETED_RATIO);
+	}
+
+	/**
+	 * Cria a poltica
+	 *
+	 * @param mergeFactor
+	 *            quantidade de segmentos de uma camada juntados de uma vez, a
+	 *            partir de 2
+	 * @param minimumSegmentSize
+	 *            quantidade de postings abaixo da qual os segmentos so
+	 *            tratados como do mesmo tamanho
+	 * @param maximumDeletedRatio
+	 *            frao de documentos excludos a partir da qual um segmento
+	 *             reescrito
+	 */
+	public TieredMergePolicy(int mergeFactor, long minimumSegmentSize,
+			double maximumDeletedRatio) {
+		this.mergeFactor = Math.max(2, mergeFactor);
+		this.minimumSegmentSize = Math.max(1, minimumSegmentSize);
+		this.maximumDeletedRatio = maximumDeletedRatio;
+	}
+
+	/**
+	 * Procura segmentos a serem juntados, comeando pelas camadas dos
+	 * segmentos mais antigos
+	 *
+	 * @param segments
+	 *            os segmentos do ndice, em ordem de criao
+	 * @return os segmentos vizinhos a serem juntados, ou null se no houver
+	 */
+	public List<Segment> findMerge(List<Segment> segments) {
+		for (Segment segment : segments) {
+			if (hasTooManyDeletions(segment)) {
+				return Collections.singletonList(segment);
+			}
+		}
+		for (int start = 0, end = 0; start < segments.size(); start = end) {
+			int tier = getTier(segments.get(start));
+			while (end < segments.size() && getTier(segments.get(end)) == tier) {
+				end++;
+			}
+			if (end - start >= mergeFactor) {
+				return new ArrayList<Segment>(segments.subList(start, start
+						+ mergeFactor));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Indica se um segmento deve ser reescrito por causa das excluses
+	 *
+	 * @param segment
+	 *            o segmento
+	 * @return true se a frao de documentos excludos atingiu o mximo
+	 */
+	public boolean hasTooManyDeletions(Segment segment) {
+		return segment.hasDeletions()
+				&& segment.getDeletedTotal() >= maximumDeletedRatio
+						* segment.getDocumentsTotal();
+	}
+
+	private int getTier(Segment segment) {
+		int tier = 0;
+		for (long limit = minimumSegmentSize * mergeFactor; segment
+				.getPostingsTotal() >= limit; limit *= mergeFactor) {
+			tier++;
+		}
+		return tier;
+	}
+}
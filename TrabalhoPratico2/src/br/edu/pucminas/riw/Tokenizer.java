@@ -0,0 +1,309 @@
+package br.edu.pucminas.riw;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tokenizador de passada nica. Em uma s varredura sobre os caracteres do
+ * contedo, remove nmeros, acentos e caracteres especiais, converte para
+ * minsculas, descarta palavras de um caractere e emite os termos.
+ *
+ * O resultado  o mesmo da antiga cadeia de replaceAll: nmeros sozinhos,
+ * caracteres fora de [a-zA-Z] e marcas diacrticas combinantes (aps a
+ * decomposio NFD) so tratados da mesma forma, e a remoo de palavras de um
+ * caractere segue a semntica de "\s\w?\s", em que uma palavra de um caractere
+ * logo aps outra removida, ou aps dois separadores seguidos,  mantida. Um
+ * contedo que comea com separador produz um primeiro termo vazio, como fazia
+ * o split(" ").
+ *
+ * Os termos podem ser recebidos como Strings ou, sem nenhuma alocao por
+ * termo, como trechos de um buffer interno entregues a um {@link TokenHandler}.
+ *
+ * Cada instncia guarda buffers prprios e no deve ser compartilhada entre
+ * threads.
+ */
+public class Tokenizer {
+	private static final char SEPARATOR = ' ';
+	private static final char IGNORED = 0;
+	private static final char EXPANDED = 1;
+
+	// Caracteres com reduo pr-calculada: Latin-1 e Latin Extended-A e B,
+	// que cobrem os textos da coleo
+	private static final int TABLE_SIZE = 0x0250;
+
+	// Para cada caractere da tabela: a letra minscula correspondente,
+	// SEPARATOR, IGNORED (marcas diacrticas combinantes) ou EXPANDED
+	// (decomposies em mais de um caractere, guardadas em EXPANSIONS_MAP)
+	private static final char[] FOLDING_TABLE = new char[TABLE_SIZE];
+	private static final Map<Character, String> EXPANSIONS_MAP = new HashMap<Character, String>();
+
+	// Reduo dos demais caracteres, calculada no primeiro uso de cada um;
+	// cresce apenas com os caracteres distintos que aparecem nos textos
+	private static final ConcurrentMap<Character, String> FOLDING_CACHE = new ConcurrentHashMap<Character, String>();
+
+	static {
+		for (int character = 0; character < TABLE_SIZE; character++) {
+			String folded = fold(String.valueOf((char) character));
+			if (folded.length() == 0) {
+				FOLDING_TABLE[character] = IGNORED;
+			} else if (folded.length() == 1) {
+				FOLDING_TABLE[character] = folded.charAt(0);
+			} else {
+				FOLDING_TABLE[character] = EXPANDED;
+				EXPANSIONS_MAP.put((char) character, folded);
+			}
+		}
+	}
+
+	private char[] contentBuffer = new char[1024];
+	private char[] tokenBuffer = new char[64];
+	private int tokenLength;
+	private char[] pendingBuffer = new char[3];
+	private int pendingLength;
+	private boolean started;
+	private boolean startsWithSeparator;
+	private TokenHandler tokenHandler;
+
+	/**
+	 * Receptor dos termos de um contedo, na ordem em que aparecem
+	 */
+	public interface TokenHandler {
+		/**
+		 * Recebe um termo. O buffer  reutilizado pelo tokenizador e s 
+		 * vlido durante a chamada.
+		 *
+		 * @param buffer
+		 *            buffer com o termo
+		 * @param offset
+		 *            incio do termo no buffer
+		 * @param length
+		 *            tamanho do termo, que pode ser 0 no primeiro termo
+		 */
+		void token(char[] buffer, int offset, int length);
+	}
+
+	/**
+	 * Decompe o texto e o reduz a letras minsculas e separadores
+	 *
+	 * @param text
+	 *            o texto, com um caractere ou um par de surrogates
+	 * @return o texto reduzido
+	 */
+	private static String fold(String text) {
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		StringBuilder folded = new StringBuilder();
+		for (int index = 0; index < decomposed.length();) {
+			int codePoint = decomposed.codePointAt(index);
+			index += Character.charCount(codePoint);
+
+			if (codePoint >= 0x0300 && codePoint <= 0x036F) {
+				continue;
+			}
+			if (codePoint >= 'a' && codePoint <= 'z') {
+				folded.append((char) codePoint);
+			} else if (codePoint >= 'A' && codePoint <= 'Z') {
+				folded.append((char) (codePoint + ('a' - 'A')));
+			} else {
+				folded.append(SEPARATOR);
+			}
+		}
+		return folded.toString();
+	}
+
+	/**
+	 * Reduz um caractere fora da tabela, consultando o cache
+	 *
+	 * @param character
+	 *            o caractere; um surrogate sem par vira separador
+	 * @return o caractere reduzido, que pode ser vazio ou ter mais de um
+	 *         caractere
+	 */
+	private static String foldCharacter(char character) {
+		String folded = FOLDING_CACHE.get(character);
+		if (folded == null) {
+			folded = Character.isSurrogate(character) ? String
+					.valueOf(SEPARATOR) : fold(String.valueOf(character));
+			FOLDING_CACHE.putIfAbsent(character, folded);
+		}
+		return folded;
+	}
+
+	/**
+	 * Divide o contedo em termos
+	 *
+	 * @param content
+	 *            o contedo
+	 * @param tokensList
+	 *            lista onde os termos so adicionados
+	 */
+	public void tokenize(String content, final List<String> tokensList) {
+		tokenize(content, new TokenHandler() {
+			@Override
+			public void token(char[] buffer, int offset, int length) {
+				tokensList.add(new String(buffer, offset, length));
+			}
+		});
+	}
+
+	/**
+	 * Divide o contedo em termos, entregando cada um ao receptor sem criar
+	 * Strings
+	 *
+	 * @param content
+	 *            o contedo
+	 * @param tokenHandler
+	 *            receptor dos termos
+	 */
+	public void tokenize(String content, TokenHandler tokenHandler) {
+		this.tokenHandler = tokenHandler;
+		tokenLength = 0;
+		pendingLength = 0;
+		started = false;
+		startsWithSeparator = false;
+
+		int length = content.length();
+		if (contentBuffer.length < length) {
+			contentBuffer = new char[Math.max(length, contentBuffer.length * 2)];
+		}
+		content.getChars(0, length, contentBuffer, 0);
+
+		boolean previousIsDigit = false;
+		for (int index = 0; index < length; index++) {
+			char character = contentBuffer[index];
+
+			// Sequncias de dgitos viram um nico separador
+			if (character >= '0' && character <= '9') {
+				if (previousIsDigit == false) {
+					push(SEPARATOR);
+				}
+				previousIsDigit = true;
+				continue;
+			}
+			previousIsDigit = false;
+
+			if (Character.isHighSurrogate(character) && index + 1 < length
+					&& Character.isLowSurrogate(contentBuffer[index + 1])) {
+				pushAll(fold(new String(contentBuffer, index, 2)));
+				index++;
+				continue;
+			}
+
+			if (character >= TABLE_SIZE) {
+				pushAll(foldCharacter(character));
+				continue;
+			}
+			char folded = FOLDING_TABLE[character];
+			if (folded == EXPANDED) {
+				pushAll(EXPANSIONS_MAP.get(character));
+			} else if (folded != IGNORED) {
+				push(folded);
+			}
+		}
+
+		// Esvazia os caracteres pendentes; sem o separador final no h mais
+		// palavras de um caractere a remover
+		for (int index = 0; index < pendingLength; index++) {
+			emit(pendingBuffer[index]);
+		}
+		pendingLength = 0;
+		if (tokenLength > 0) {
+			addToken();
+		}
+
+		if (started == false) {
+			tokenHandler.token(tokenBuffer, 0, 0);
+		}
+		this.tokenHandler = null;
+	}
+
+	private void pushAll(String folded) {
+		for (int index = 0; index < folded.length(); index++) {
+			push(folded.charAt(index));
+		}
+	}
+
+	/**
+	 * Recebe o prximo caractere j reduzido e aplica a remoo de palavras de
+	 * um caractere, que precisa olhar at dois caracteres  frente
+	 *
+	 * @param character
+	 *            letra minscula ou separador
+	 */
+	private void push(char character) {
+		// Caso mais comum: letra sem separadores pendentes
+		if (pendingLength == 0 && character != SEPARATOR && started) {
+			if (tokenLength == tokenBuffer.length) {
+				tokenBuffer = Arrays.copyOf(tokenBuffer, tokenLength * 2);
+			}
+			tokenBuffer[tokenLength++] = character;
+			return;
+		}
+
+		pendingBuffer[pendingLength++] = character;
+
+		while (pendingLength > 0) {
+			if (pendingBuffer[0] != SEPARATOR) {
+				emit(pendingBuffer[0]);
+				consume(1);
+			} else if (pendingLength == 1) {
+				return;
+			} else if (pendingBuffer[1] == SEPARATOR) {
+				emit(SEPARATOR);
+				consume(2);
+			} else if (pendingLength == 2) {
+				return;
+			} else if (pendingBuffer[2] == SEPARATOR) {
+				// Palavra de um caractere entre separadores
+				emit(SEPARATOR);
+				consume(3);
+			} else {
+				emit(SEPARATOR);
+				consume(1);
+			}
+		}
+	}
+
+	private void consume(int count) {
+		for (int index = count; index < pendingLength; index++) {
+			pendingBuffer[index - count] = pendingBuffer[index];
+		}
+		pendingLength -= count;
+	}
+
+	/**
+	 * Acumula o caractere no termo corrente, ou emite o termo ao encontrar um
+	 * separador
+	 *
+	 * @param character
+	 *            letra minscula ou separador
+	 */
+	private void emit(char character) {
+		if (started == false) {
+			started = true;
+			startsWithSeparator = character == SEPARATOR;
+		}
+
+		if (character != SEPARATOR) {
+			if (tokenLength == tokenBuffer.length) {
+				tokenBuffer = Arrays.copyOf(tokenBuffer, tokenLength * 2);
+			}
+			tokenBuffer[tokenLength++] = character;
+		} else if (tokenLength > 0) {
+			addToken();
+		}
+	}
+
+	private void addToken() {
+		if (startsWithSeparator) {
+			tokenHandler.token(tokenBuffer, 0, 0);
+			startsWithSeparator = false;
+		}
+		tokenHandler.token(tokenBuffer, 0, tokenLength);
+		tokenLength = 0;
+	}
+}
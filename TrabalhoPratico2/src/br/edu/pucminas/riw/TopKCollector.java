@@ -0,0 +1,285 @@
+package br.edu.pucminas.riw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Coletor dos k documentos mais similares de uma consulta, em uma nica
+ * passada: um heap mnimo em vetores paralelos de similaridades e documentos
+ * guarda os k melhores, e os documentos empatados com o k-simo que no cabem
+ * no heap ficam em um vetor de empates, j que tambm fazem parte do
+ * resultado. Na mesma passada, so guardados os documentos relevantes, com
+ * similaridade maior ou igual  relevncia mnima.
+ *
+ * Os vetores crescem conforme a necessidade e so reaproveitados de uma
+ * consulta para a outra; cada thread deve usar a sua instncia.
+ */
+public class TopKCollector {
+	private int treshold;
+	private double minimalRelevance;
+	private long[] deletedDocuments;
+
+	// Heap mnimo: na raiz, o pior documento, ou seja, o de menor similaridade
+	// e, no empate, o de maior ndice
+	private double[] scores = new double[16];
+	private int[] documents = new int[16];
+	private int size;
+
+	// Documentos fora do heap com a mesma similaridade da raiz
+	private int[] ties = new int[16];
+	private int tiesSize;
+
+	private int[] relevantDocuments = new int[16];
+	private int relevantSize;
+
+	/**
+	 * Prepara o coletor para uma nova consulta
+	 *
+	 * @param treshold
+	 *            quantidade de documentos mais similares a serem retornados
+	 * @param minimalRelevance
+	 *            similaridade mnima dos documentos relevantes
+	 */
+	public void reset(int treshold, double minimalRelevance) {
+		reset(treshold, minimalRelevance, null);
+	}
+
+	/**
+	 * Prepara o coletor para uma nova consulta, ignorando os documentos
+	 * excludos
+	 *
+	 * @param treshold
+	 *            quantidade de documentos mais similares a serem retornados
+	 * @param minimalRelevance
+	 *            similaridade mnima dos documentos relevantes
+	 * @param deletedDocuments
+	 *            mapa de bits dos documentos excludos, ou null
+	 */
+	public void reset(int treshold, double minimalRelevance,
+			long[] deletedDocuments) {
+		this.treshold = treshold;
+		this.minimalRelevance = minimalRelevance;
+		this.deletedDocuments = deletedDocuments;
+		size = 0;
+		tiesSize = 0;
+		relevantSize = 0;
+	}
+
+	/**
+	 * Considera um documento; documentos sem similaridade positiva ou
+	 * excludos so ignorados
+	 *
+	 * @param document
+	 *            ndice do documento
+	 * @param score
+	 *            similaridade do documento
+	 */
+	public void collect(int document, double score) {
+		if ((score > 0) == false
+				|| (deletedDocuments != null && (deletedDocuments[document >>> 6] & 1L << document) != 0)) {
+			return;
+		}
+		if (score >= minimalRelevance) {
+			if (relevantSize == relevantDocuments.length) {
+				relevantDocuments = Arrays.copyOf(relevantDocuments,
+						relevantSize * 2);
+			}
+			relevantDocuments[relevantSize++] = document;
+		}
+		offer(document, score);
+	}
+
+	/**
+	 * Junta ao coletor os documentos de outro coletor da mesma consulta,
+	 * tipicamente de outro intervalo de documentos; o outro coletor no deve
+	 * mais ser usado
+	 *
+	 * @param other
+	 *            o outro coletor
+	 */
+	public void merge(TopKCollector other) {
+		merge(other, null);
+	}
+
+	/**
+	 * Junta ao coletor os documentos de outro coletor da mesma consulta, com
+	 * ndices locais a um segmento do ndice; o outro coletor no deve mais
+	 * ser usado at ser preparado novamente
+	 *
+	 * @param other
+	 *            o outro coletor
+	 * @param documentIds
+	 *            identificador de cada documento do segmento, por ndice
+	 *            local, ou null se os ndices j so os identificadores
+	 */
+	public void merge(TopKCollector other, int[] documentIds) {
+		for (int position = 0; position < other.size; position++) {
+			offer(getDocumentId(documentIds, other.documents[position]),
+					other.scores[position]);
+		}
+		for (int position = 0; position < other.tiesSize; position++) {
+			offer(getDocumentId(documentIds, other.ties[position]),
+					other.scores[0]);
+		}
+
+		if (relevantSize + other.relevantSize > relevantDocuments.length) {
+			relevantDocuments = Arrays.copyOf(relevantDocuments,
+					Math.max(relevantSize * 2, relevantSize
+							+ other.relevantSize));
+		}
+		for (int position = 0; position < other.relevantSize; position++) {
+			relevantDocuments[relevantSize++] = getDocumentId(documentIds,
+					other.relevantDocuments[position]);
+		}
+	}
+
+	private static int getDocumentId(int[] documentIds, int document) {
+		return documentIds == null ? document : documentIds[document];
+	}
+
+	/**
+	 * Considera o documento para o heap dos k mais similares
+	 */
+	private void offer(int document, double score) {
+		if (treshold <= 0) {
+			return;
+		}
+
+		if (size < treshold) {
+			if (size == scores.length) {
+				scores = Arrays.copyOf(scores, size * 2);
+				documents = Arrays.copyOf(documents, size * 2);
+			}
+			siftUp(size++, document, score);
+			return;
+		}
+
+		if (score < scores[0]) {
+			return;
+		}
+		if (score == scores[0]) {
+			addTie(document);
+			return;
+		}
+
+		double evictedScore = scores[0];
+		int evictedDocument = documents[0];
+		siftDown(0, document, score);
+		if (scores[0] == evictedScore) {
+			addTie(evictedDocument);
+		} else {
+			tiesSize = 0;
+		}
+	}
+
+	/**
+	 * Obtm a similaridade mnima para que um documento ainda faa parte do
+	 * resultado ou do conjunto de relevantes
+	 *
+	 * @return o menor entre a k-sima maior similaridade j coletada, ou zero
+	 *         se ainda no h k documentos, e a relevncia mnima
+	 */
+	public double getThreshold() {
+		double kthScore = treshold <= 0 ? Double.POSITIVE_INFINITY
+				: (size == treshold ? scores[0] : 0);
+		return Math.min(kthScore, minimalRelevance);
+	}
+
+	/**
+	 * Obtm a quantidade de documentos relevantes coletados
+	 *
+	 * @return a quantidade de documentos com similaridade maior ou igual 
+	 *         relevncia mnima
+	 */
+	public int getRelevantCount() {
+		return relevantSize;
+	}
+
+	/**
+	 * Obtm o resultado da consulta; o heap  consumido, e o coletor s volta
+	 * a ser usado aps reset
+	 *
+	 * @return os documentos mais similares, por similaridade decrescente e,
+	 *         no empate, por ndice crescente, e o conjunto de relevantes
+	 */
+	public RelevanceSearchReturn getResults() {
+		// Retirar a raiz sucessivamente d os documentos do pior para o melhor
+		int[] results = new int[size + tiesSize];
+		int resultsSize = size;
+		double kthScore = size > 0 ? scores[0] : 0;
+		int kthStart = size;
+		while (size > 0) {
+			int position = --size;
+			results[position] = documents[0];
+			if (scores[0] == kthScore) {
+				kthStart = position;
+			}
+			if (size > 0) {
+				siftDown(0, documents[size], scores[size]);
+			}
+		}
+
+		// Os empates com o k-simo documento se juntam aos do heap, por ndice
+		if (tiesSize > 0) {
+			System.arraycopy(ties, 0, results, resultsSize, tiesSize);
+			Arrays.sort(results, kthStart, resultsSize + tiesSize);
+		}
+
+		List<Integer> resultDocumentsList = new ArrayList<Integer>(
+				results.length);
+		for (int document : results) {
+			resultDocumentsList.add(document);
+		}
+		Set<Integer> relevantDocumentsSet = new HashSet<Integer>(
+				relevantSize * 2);
+		for (int position = 0; position < relevantSize; position++) {
+			relevantDocumentsSet.add(relevantDocuments[position]);
+		}
+		return new RelevanceSearchReturn(resultDocumentsList,
+				relevantDocumentsSet);
+	}
+
+	private void addTie(int document) {
+		if (tiesSize == ties.length) {
+			ties = Arrays.copyOf(ties, tiesSize * 2);
+		}
+		ties[tiesSize++] = document;
+	}
+
+	private boolean isWorse(double score, int document, int position) {
+		return score < scores[position]
+				|| (score == scores[position] && document > documents[position]);
+	}
+
+	private void siftUp(int position, int document, double score) {
+		while (position > 0 && isWorse(score, document, (position - 1) / 2)) {
+			int parent = (position - 1) / 2;
+			scores[position] = scores[parent];
+			documents[position] = documents[parent];
+			position = parent;
+		}
+		scores[position] = score;
+		documents[position] = document;
+	}
+
+	private void siftDown(int position, int document, double score) {
+		while (2 * position + 1 < size) {
+			int child = 2 * position + 1;
+			if (child + 1 < size
+					&& isWorse(scores[child + 1], documents[child + 1], child)) {
+				child++;
+			}
+			if (isWorse(score, document, child)) {
+				break;
+			}
+			scores[position] = scores[child];
+			documents[position] = documents[child];
+			position = child;
+		}
+		scores[position] = score;
+		documents[position] = document;
+	}
+}
@@ -0,0 +1,114 @@
+package br.edu.pucminas.riw;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Codificao dos postings por diferenas entre documentos consecutivos em
+ * bytes variveis, com 7 bits de valor por byte. Cada bloco guarda as
+ * diferenas dos seus documentos seguidas das frequncias, e a posio de
+ * incio de cada bloco permite decodific-lo isoladamente.
+ */
+public class VariableByteCodec implements PostingsCodec {
+	private static final int MAXIMUM_VARIABLE_BYTE_SIZE = 5;
+
+	@Override
+	public String getName() {
+		return "vbyte";
+	}
+
+	@Override
+	public EncodedPostings encode(int[] documents, int[] frequencies) {
+		return new VariableBytePostings(documents, frequencies);
+	}
+
+	@Override
+	public EncodedPostings read(ByteBuffer buffer) {
+		return new VariableBytePostings(buffer);
+	}
+
+	private static class VariableBytePostings extends EncodedPostings {
+		private ByteBuffer bytes;
+		private int[] blocksOffsets;
+
+		public VariableBytePostings(int[] documents, int[] frequencies) {
+			super(documents);
+			byte[] bytes = new byte[documents.length * 2
+					* MAXIMUM_VARIABLE_BYTE_SIZE];
+			blocksOffsets = new int[getBlocksTotal(documents.length)];
+			int offset = 0;
+			for (int blockIndex = 0; blockIndex < blocksOffsets.length; blockIndex++) {
+				int start = blockIndex * PostingsIterator.BLOCK_SIZE;
+				int end = Math.min(start + PostingsIterator.BLOCK_SIZE,
+						documents.length);
+				blocksOffsets[blockIndex] = offset;
+				int lastDocument = getBaseDocument(blockIndex);
+				for (int postingIndex = start; postingIndex < end; postingIndex++) {
+					offset = Postings.writeVariableByte(bytes, offset,
+							documents[postingIndex] - lastDocument);
+					lastDocument = documents[postingIndex];
+				}
+				for (int postingIndex = start; postingIndex < end; postingIndex++) {
+					offset = Postings.writeVariableByte(bytes, offset,
+							frequencies[postingIndex]);
+				}
+			}
+			this.bytes = ByteBuffer.wrap(Arrays.copyOf(bytes, offset));
+		}
+
+		public VariableBytePostings(ByteBuffer buffer) {
+			super(buffer);
+			bytes = getBytes(buffer, buffer.getInt());
+			blocksOffsets = readInts(buffer, getBlocksTotal(size()));
+		}
+
+		@Override
+		protected void writeData(DataOutputStream output) throws IOException {
+			output.writeInt(bytes.limit());
+			writeBytes(output, bytes);
+			writeInts(output, blocksOffsets);
+		}
+
+		@Override
+		public PostingsIterator iterator() {
+			return new PostingsIterator(size(), getLastDocuments()) {
+				@Override
+				protected void decodeBlock(int blockIndex, int blockSize,
+						int[] documents, int[] frequencies) {
+					int offset = blocksOffsets[blockIndex];
+					int document = getBaseDocument(blockIndex);
+					for (int position = 0; position < blockSize; position++) {
+						int number = 0;
+						int shift = 0;
+						byte value;
+						do {
+							value = bytes.get(offset++);
+							number |= (value & 0x7F) << shift;
+							shift += 7;
+						} while (value < 0);
+						document += number;
+						documents[position] = document;
+					}
+					for (int position = 0; position < blockSize; position++) {
+						int number = 0;
+						int shift = 0;
+						byte value;
+						do {
+							value = bytes.get(offset++);
+							number |= (value & 0x7F) << shift;
+							shift += 7;
+						} while (value < 0);
+						frequencies[position] = number;
+					}
+				}
+			};
+		}
+
+		@Override
+		protected long getDataSizeInBytes() {
+			return bytes.limit() + blocksOffsets.length * 4L;
+		}
+	}
+}
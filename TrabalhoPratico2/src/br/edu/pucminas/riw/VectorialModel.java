@@ -1,186 +1,419 @@
 package br.edu.pucminas.riw;
 
+import java.nio.IntBuffer;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
 
 /**
  * Implementao do modelo vetorial.
+ *
+ * Os pesos TF-IDF so guardados junto aos postings de cada termo e as normas
+ * dos documentos so calculadas uma nica vez, na criao do modelo. Assim, a
+ * similaridade  calculada pelo {@link TermAtATimeScorer}, percorrendo apenas
+ * os postings dos termos da consulta.
+ *
+ * As consultas top-k so avaliadas documento a documento pelo
+ * {@link DocumentAtATimeScorer}, que usa limites superiores das contribuies
+ * dos termos para deixar de pontuar os documentos que no podem entrar no
+ * resultado. Opcionalmente, elas so avaliadas impacto a impacto pelo
+ * {@link ScoreAtATimeScorer}, sobre um ndice de impactos quantizados, com
+ * custo limitado por consulta e similaridades aproximadas.
+ *
+ * Em colees grandes, cada consulta  avaliada em paralelo sobre intervalos
+ * de documentos pelo {@link PartitionedQueryEvaluator}.
+ *
+ * O IDF dos termos vem das estatsticas da coleo, que, em um ndice com
+ * vrios segmentos, so as de todos eles; assim os pesos, as normas dos
+ * documentos e a norma da consulta, que inclui os termos ausentes do segmento,
+ * so os mesmos de um ndice nico.
  */
-public class VectorialModel implements SearchModel {
-	private int[][] termFrequenciesMatrix;
-	private int[] documentFrequenciesArray;
-	private double[][] vectorModelMatrix;
-	private Map<String, Integer> termsIndexMap;
+public class VectorialModel implements RankedSearchModel {
+	private static final int FREQUENCY_WEIGHTS_SIZE = 64;
+	public static final int DEFAULT_PARALLEL_DOCUMENTS_THRESHOLD = 262144;
 
-	public VectorialModel(int[][] termDocumentMatrix,
-			Map<String, Integer> termsIndexMap) {
-		createVectorModelRepresentation(termDocumentMatrix);
-		this.termsIndexMap = termsIndexMap;
+	private InvertedIndex invertedIndex;
+	private CollectionStatistics statistics;
+	private int documentsTotal;
+
+	// Pesos TF-IDF de cada termo, na mesma ordem dos postings do termo
+	private double[][] weightsPostings;
+
+	// Norma do vetor de cada documento
+	private double[] documentNorms;
+
+	private TermAtATimeScorer scorer;
+
+	private ThreadLocal<TopKCollector> collectors = new ThreadLocal<TopKCollector>() {
+		@Override
+		protected TopKCollector initialValue() {
+			return new TopKCollector();
+		}
+	};
+
+	// Nulos quando as consultas top-k tambm so avaliadas termo a termo
+	private DocumentAtATimeScorer topKScorer;
+	private ScoreAtATimeScorer impactScorer;
+
+	// Nulo quando as consultas so avaliadas de forma serial
+	private PartitionedQueryEvaluator partitionedEvaluator;
+
+	// Nulo quando a similaridade  aproximada, caso em que os lotes de
+	// consultas so avaliados consulta a consulta. Com a avaliao top-k, s
+	//  usado nos lotes de consultas sem relevncia
+	private QueryBatchScorer batchScorer;
+
+	public VectorialModel(InvertedIndex invertedIndex) {
+		this(invertedIndex, invertedIndex);
+	}
+
+	/**
+	 * Cria o modelo sobre um segmento de um ndice, com os pesos calculados a
+	 * partir das estatsticas de toda a coleo
+	 * 
+	 * @param invertedIndex
+	 *            o ndice invertido do segmento
+	 * @param statistics
+	 *            as estatsticas da coleo
+	 */
+	public VectorialModel(InvertedIndex invertedIndex,
+			CollectionStatistics statistics) {
+		this(invertedIndex, statistics,
+				DocumentAtATimeScorer.Strategy.MAXSCORE, true,
+				DEFAULT_PARALLEL_DOCUMENTS_THRESHOLD);
 	}
 
 	/**
-	 * Cria a matriz de documentos x termos para a modelagem Vetorial
+	 * Cria o modelo com avaliao top-k documento a documento e poda dinmica,
+	 * que retorna os mesmos documentos da avaliao exaustiva
+	 * 
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param strategy
+	 *            algoritmo de poda dinmica
+	 * @param blockMax
+	 *            se os limites por bloco de postings devem ser usados
 	 */
-	private void createVectorModelRepresentation(int[][] termDocumentMatrix) {
-		int documentsTotal = termDocumentMatrix[0].length;
-		int termsTotal = termDocumentMatrix.length;
+	public VectorialModel(InvertedIndex invertedIndex,
+			DocumentAtATimeScorer.Strategy strategy, boolean blockMax) {
+		this(invertedIndex, strategy, blockMax,
+				DEFAULT_PARALLEL_DOCUMENTS_THRESHOLD);
+	}
 
-		// Cria a matriz de frequncias de termos para calcular TF
-		termFrequenciesMatrix = new int[documentsTotal][termsTotal];
-		for (int documentIndex = 0; documentIndex < documentsTotal; documentIndex++) {
-			for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
-				termFrequenciesMatrix[documentIndex][termIndex] = termDocumentMatrix[termIndex][documentIndex];
-			}
+	/**
+	 * Cria o modelo com avaliao top-k documento a documento e poda dinmica,
+	 * avaliando cada consulta em paralelo a partir de um tamanho de coleo
+	 * 
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param strategy
+	 *            algoritmo de poda dinmica
+	 * @param blockMax
+	 *            se os limites por bloco de postings devem ser usados
+	 * @param parallelDocumentsThreshold
+	 *            quantidade de documentos a partir da qual as consultas so
+	 *            avaliadas em paralelo, se houver mais de um processador
+	 */
+	public VectorialModel(InvertedIndex invertedIndex,
+			DocumentAtATimeScorer.Strategy strategy, boolean blockMax,
+			int parallelDocumentsThreshold) {
+		this(invertedIndex, invertedIndex, strategy, blockMax,
+				parallelDocumentsThreshold);
+	}
+
+	private VectorialModel(InvertedIndex invertedIndex,
+			CollectionStatistics statistics,
+			DocumentAtATimeScorer.Strategy strategy, boolean blockMax,
+			int parallelDocumentsThreshold) {
+		this(invertedIndex, statistics,
+				TermAtATimeScorer.AccumulatorLimit.NONE, 0);
+		topKScorer = new DocumentAtATimeScorer(invertedIndex, weightsPostings,
+				documentNorms, strategy, blockMax);
+		if (documentsTotal >= parallelDocumentsThreshold
+				&& Runtime.getRuntime().availableProcessors() > 1) {
+			partitionedEvaluator = new PartitionedQueryEvaluator(
+					documentsTotal, scorer, topKScorer);
 		}
+	}
 
-		// Cria o vetor de frequncias de documentos por termo para calcular IDF
-		documentFrequenciesArray = new int[termsTotal];
-		for (int colIndex = 0; colIndex < termFrequenciesMatrix[0].length; colIndex++) {
-			for (int rowIndex = 0; rowIndex < termFrequenciesMatrix.length; rowIndex++) {
-				documentFrequenciesArray[colIndex] += (termFrequenciesMatrix[rowIndex][colIndex] > 0 ? 1
-						: 0);
-			}
+	/**
+	 * Cria o modelo com limitao de acumuladores, que aproxima a similaridade
+	 * para reduzir o custo de consultas com termos de alta frequncia
+	 * 
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param accumulatorLimit
+	 *            estratgia de limitao de acumuladores
+	 * @param maximumAccumulators
+	 *            quantidade mxima de acumuladores por consulta
+	 */
+	public VectorialModel(InvertedIndex invertedIndex,
+			TermAtATimeScorer.AccumulatorLimit accumulatorLimit,
+			int maximumAccumulators) {
+		this(invertedIndex, invertedIndex, accumulatorLimit,
+				maximumAccumulators);
+	}
+
+	private VectorialModel(InvertedIndex invertedIndex,
+			CollectionStatistics statistics,
+			TermAtATimeScorer.AccumulatorLimit accumulatorLimit,
+			int maximumAccumulators) {
+		this.invertedIndex = invertedIndex;
+		this.statistics = statistics;
+		createVectorModelRepresentation();
+		scorer = new TermAtATimeScorer(invertedIndex, weightsPostings,
+				documentNorms, accumulatorLimit, maximumAccumulators);
+		if (accumulatorLimit == TermAtATimeScorer.AccumulatorLimit.NONE) {
+			batchScorer = new QueryBatchScorer(invertedIndex, weightsPostings,
+					documentNorms);
 		}
+	}
 
-		// Cria a matriz do modelo vetorial, calculando TF-IDF
-		vectorModelMatrix = new double[documentsTotal][termsTotal];
-		for (int rowIndex = 0; rowIndex < documentsTotal; rowIndex++) {
-			for (int colIndex = 0; colIndex < termsTotal; colIndex++) {
-				if (termFrequenciesMatrix[rowIndex][colIndex] > 0) {
-					vectorModelMatrix[rowIndex][colIndex] = (1 + log2(termFrequenciesMatrix[rowIndex][colIndex]))
-							* log2(((double) documentsTotal)
-									/ documentFrequenciesArray[colIndex]);
-				}
+	/**
+	 * Cria o modelo com avaliao top-k impacto a impacto, sobre um ndice com
+	 * os pesos TF-IDF normalizados pela norma do documento quantizados em
+	 * inteiros
+	 * 
+	 * @param invertedIndex
+	 *            o ndice invertido
+	 * @param impactBits
+	 *            bits da quantizao dos impactos, de 1 a 15
+	 * @param postingsBudget
+	 *            quantidade mxima de postings percorridos por consulta
+	 */
+	public VectorialModel(InvertedIndex invertedIndex, int impactBits,
+			int postingsBudget) {
+		this(invertedIndex, TermAtATimeScorer.AccumulatorLimit.NONE, 0);
+
+		double[][] impactsPostings = new double[weightsPostings.length][];
+		for (int termIndex = 0; termIndex < weightsPostings.length; termIndex++) {
+			IntBuffer documents = invertedIndex.getDocuments(termIndex);
+			double[] impacts = new double[documents.limit()];
+			for (int postingIndex = 0; postingIndex < impacts.length; postingIndex++) {
+				double norm = documentNorms[documents.get(postingIndex)];
+				impacts[postingIndex] = norm > 0 ? weightsPostings[termIndex][postingIndex]
+						/ norm
+						: 0;
 			}
+			impactsPostings[termIndex] = impacts;
 		}
+		impactScorer = new ScoreAtATimeScorer(invertedIndex,
+				new ImpactOrderedIndex(invertedIndex, impactsPostings,
+						impactBits), postingsBudget);
+		batchScorer = null;
 	}
 
-	@Override
-	public List<Integer> processQuery(List<String> queryTerms) {
-		double[] query = prepareQuery(queryTerms);
-
-		List<Integer> resultsList = new ArrayList<Integer>();
+	/**
+	 * Calcula os pesos TF-IDF dos postings e as normas dos documentos
+	 */
+	private void createVectorModelRepresentation() {
+		documentsTotal = invertedIndex.getDocumentsTotal();
+		int termsTotal = invertedIndex.getTermsTotal();
 
-		for (int rowIndex = 0; rowIndex < vectorModelMatrix.length; rowIndex++) {
-			double similarity = getSimilarity(query, rowIndex);
+		// As normas so acumuladas em ordem crescente de termo, como seria
+		// percorrendo a linha do documento na matriz documentos x termos
+		weightsPostings = new double[termsTotal][];
+		documentNorms = new double[documentsTotal];
 
-			if (similarity > 0) {
-				resultsList.add(rowIndex);
+		// As frequncias baixas, que so a maioria, tm o peso tabelado
+		double[] frequencyWeights = new double[FREQUENCY_WEIGHTS_SIZE];
+		for (int frequency = 1; frequency < frequencyWeights.length; frequency++) {
+			frequencyWeights[frequency] = 1 + log2(frequency);
+		}
+		for (int termIndex = 0; termIndex < termsTotal; termIndex++) {
+			IntBuffer documents = invertedIndex.getDocuments(termIndex);
+			IntBuffer frequencies = invertedIndex.getFrequencies(termIndex);
+			double[] weights = new double[documents.limit()];
+			double inverseDocumentFrequency = log2(((double) statistics
+					.getDocumentsTotal())
+					/ statistics.getDocumentFrequency(invertedIndex
+							.getTerm(termIndex)));
+			for (int postingIndex = 0; postingIndex < weights.length; postingIndex++) {
+				int frequency = frequencies.get(postingIndex);
+				weights[postingIndex] = (frequency < frequencyWeights.length ? frequencyWeights[frequency]
+						: 1 + log2(frequency))
+						* inverseDocumentFrequency;
+				documentNorms[documents.get(postingIndex)] += Math.pow(
+						weights[postingIndex], 2);
 			}
+			weightsPostings[termIndex] = weights;
 		}
 
-		return resultsList;
+		for (int documentIndex = 0; documentIndex < documentsTotal; documentIndex++) {
+			documentNorms[documentIndex] = Math.sqrt(documentNorms[documentIndex]);
+		}
 	}
 
-	/**
-	 * Obtm a similaridade do documento em questo para a consulta
-	 * 
-	 * @param query
-	 *            a consulta
-	 * @param documentIndex
-	 *            ndice do documento na matriz da modelagem vetorial
-	 * @return a similaridade
-	 */
-	private double getSimilarity(double[] query, int documentIndex) {
-		double term1 = 0, term2 = 0, term3 = 0;
+	@Override
+	public List<Integer> processQuery(List<String> queryTerms) {
+		if (partitionedEvaluator != null) {
+			return partitionedEvaluator.processQuery(prepareQuery(queryTerms));
+		}
+
+		ScoreAccumulators accumulators = scorer.score(prepareQuery(queryTerms));
+
+		List<Integer> resultsList = new ArrayList<Integer>();
 
-		for (int colIndex = 0; colIndex < query.length; colIndex++) {
-			term1 += vectorModelMatrix[documentIndex][colIndex]
-					* query[colIndex];
-			term2 += Math.pow(vectorModelMatrix[documentIndex][colIndex], 2);
-			term3 += Math.pow(query[colIndex], 2);
+		for (int position = 0; position < accumulators.size(); position++) {
+			if (accumulators.getScore(position) > 0) {
+				resultsList.add(accumulators.getDocument(position));
+			}
 		}
-		term2 = Math.sqrt(term2);
-		term3 = Math.sqrt(term3);
 
-		double similarity = term1 / (term2 * term3);
-		return similarity;
+		return resultsList;
 	}
 
 	/**
-	 * Prepara a consulta com relao ao modelo atual
+	 * Prepara a consulta com relao ao modelo atual. Termos que no fazem
+	 * parte do vocabulrio, ou que ocorrem em todos os documentos e tm peso
+	 * zero, so ignorados. Os termos da coleo ausentes do segmento no tm
+	 * postings a percorrer, mas fazem parte da norma da consulta.
 	 * 
 	 * @param queryTerms
 	 *            termos da consulta
 	 * @return a consulta com relao ao modelo atual
 	 */
-	private double[] prepareQuery(List<String> queryTerms) {
-		// Cria o vetor de frequncias de termos
-		int[] termFrequenciesArray = new int[vectorModelMatrix[0].length];
+	private QueryVector prepareQuery(List<String> queryTerms) {
+		int[] termIndexes = new int[queryTerms.size()];
+		int termsSize = 0;
+		List<String> absentTerms = null;
 		for (String term : queryTerms) {
-			int termIndex = termsIndexMap.get(term);
-			termFrequenciesArray[termIndex]++;
+			int termIndex = invertedIndex.getTermIndex(term);
+			if (termIndex >= 0) {
+				termIndexes[termsSize++] = termIndex;
+			} else if (statistics != invertedIndex) {
+				if (absentTerms == null) {
+					absentTerms = new ArrayList<String>();
+				}
+				absentTerms.add(term);
+			}
 		}
+		Arrays.sort(termIndexes, 0, termsSize);
 
-		// Cria a consulta no modelo vetorial
-		double[] query = new double[vectorModelMatrix[0].length];
-		for (int colIndex = 0; colIndex < query.length; colIndex++) {
-			if (termFrequenciesArray[colIndex] > 0) {
-				query[colIndex] = (1 + log2(termFrequenciesArray[colIndex]))
-						* log2(((double) vectorModelMatrix.length)
-								/ documentFrequenciesArray[colIndex]);
+		double absentWeightsSquares = 0;
+		if (absentTerms != null) {
+			Collections.sort(absentTerms);
+			for (int start = 0, end = 0; start < absentTerms.size(); start = end) {
+				while (end < absentTerms.size()
+						&& absentTerms.get(end).equals(absentTerms.get(start))) {
+					end++;
+				}
+				int documentFrequency = statistics
+						.getDocumentFrequency(absentTerms.get(start));
+				if (documentFrequency > 0) {
+					absentWeightsSquares += Math.pow((1 + log2(end - start))
+							* log2(((double) statistics.getDocumentsTotal())
+									/ documentFrequency), 2);
+				}
+			}
+		}
+
+		// Cada sequncia de ndices iguais  um termo, com a sua frequncia
+		int[] queryTermIndexes = new int[termsSize];
+		double[] queryWeights = new double[termsSize];
+		int querySize = 0;
+		for (int start = 0, end = 0; start < termsSize; start = end) {
+			while (end < termsSize && termIndexes[end] == termIndexes[start]) {
+				end++;
+			}
+			double weight = (1 + log2(end - start))
+					* log2(((double) statistics.getDocumentsTotal())
+							/ statistics.getDocumentFrequency(invertedIndex
+									.getTerm(termIndexes[start])));
+			if (weight != 0) {
+				queryTermIndexes[querySize] = termIndexes[start];
+				queryWeights[querySize++] = weight;
 			}
 		}
 
-		return query;
+		return new QueryVector(Arrays.copyOf(queryTermIndexes, querySize),
+				Arrays.copyOf(queryWeights, querySize), absentWeightsSquares);
 	}
 
 	@Override
 	public RelevanceSearchReturn processQueryWithRelevance(
 			List<String> queryTerms, int treshold, double minimalRelevance) {
-		double[] query = prepareQuery(queryTerms);
-
-		// Calcula a similaridade de cada documento e armazena no mapa de
-		// similaridades
-		Map<Double, List<Integer>> similarityMap = new TreeMap<Double, List<Integer>>(
-				new Comparator<Double>() {
-					@Override
-					public int compare(Double o1, Double o2) {
-						return o2.compareTo(o1);
-					}
-				});
-		for (int rowIndex = 0; rowIndex < vectorModelMatrix.length; rowIndex++) {
-			double similarity = getSimilarity(query, rowIndex);
-
-			if (similarity > 0) {
-				if (similarityMap.containsKey(similarity) == false) {
-					List<Integer> documentsList = new ArrayList<Integer>();
-					documentsList.add(rowIndex);
-					similarityMap.put(similarity, documentsList);
-				} else {
-					similarityMap.get(similarity).add(rowIndex);
-				}
-			}
+		if (impactScorer != null) {
+			return impactScorer.score(prepareQuery(queryTerms), treshold,
+					minimalRelevance);
+		}
+		if (partitionedEvaluator != null) {
+			return partitionedEvaluator.processQueryWithRelevance(
+					prepareQuery(queryTerms), treshold, minimalRelevance);
+		}
+		if (topKScorer != null) {
+			return topKScorer.score(prepareQuery(queryTerms), treshold,
+					minimalRelevance);
 		}
 
-		// Varre o mapa de similaridades para obter os documentos resultantes
-		List<Integer> resultDocumentsList = new ArrayList<Integer>();
-		for (Map.Entry<Double, List<Integer>> entry : similarityMap.entrySet()) {
-			if (resultDocumentsList.size() >= treshold) {
-				break;
-			}
+		ScoreAccumulators accumulators = scorer.score(prepareQuery(queryTerms));
 
-			resultDocumentsList.addAll(entry.getValue());
+		TopKCollector collector = collectors.get();
+		collector.reset(treshold, minimalRelevance);
+		for (int position = 0; position < accumulators.size(); position++) {
+			collector.collect(accumulators.getDocument(position),
+					accumulators.getScore(position));
 		}
+		return collector.getResults();
+	}
 
-		// Varre o mapa de similaridades para obter os documentos mais
-		// relevantes
-		Set<Integer> relevantDocumentsSet = new HashSet<Integer>();
-		for (Map.Entry<Double, List<Integer>> entry : similarityMap.entrySet()) {
-			if (entry.getKey() < minimalRelevance) {
-				break;
+	@Override
+	public void collect(List<String> queryTerms, TopKCollector collector) {
+		QueryVector query = prepareQuery(queryTerms);
+		if (topKScorer != null) {
+			topKScorer.collect(query, 0, documentsTotal, collector);
+			return;
+		}
+
+		ScoreAccumulators accumulators = scorer.score(query);
+		for (int position = 0; position < accumulators.size(); position++) {
+			collector.collect(accumulators.getDocument(position),
+					accumulators.getScore(position));
+		}
+	}
+
+	@Override
+	public List<List<Integer>> processQueries(List<List<String>> queriesTerms) {
+		if (batchScorer == null) {
+			List<List<Integer>> resultsLists = new ArrayList<List<Integer>>(
+					queriesTerms.size());
+			for (List<String> queryTerms : queriesTerms) {
+				resultsLists.add(processQuery(queryTerms));
 			}
+			return resultsLists;
+		}
+
+		return batchScorer.processQueries(prepareQueries(queriesTerms));
+	}
 
-			relevantDocumentsSet.addAll(entry.getValue());
+	@Override
+	public List<RelevanceSearchReturn> processQueriesWithRelevance(
+			List<List<String>> queriesTerms, int treshold,
+			double minimalRelevance) {
+		// Com a avaliao top-k, cada consulta  avaliada com poda dinmica,
+		// que deixa de percorrer os postings que no alcanam o resultado; o
+		// lote percorreria todos os postings dos termos das consultas
+		if (batchScorer == null || topKScorer != null) {
+			List<RelevanceSearchReturn> returnsList = new ArrayList<RelevanceSearchReturn>(
+					queriesTerms.size());
+			for (List<String> queryTerms : queriesTerms) {
+				returnsList.add(processQueryWithRelevance(queryTerms,
+						treshold, minimalRelevance));
+			}
+			return returnsList;
 		}
 
-		return new RelevanceSearchReturn(resultDocumentsList,
-				relevantDocumentsSet);
+		return batchScorer.processQueriesWithRelevance(
+				prepareQueries(queriesTerms), treshold, minimalRelevance);
+	}
+
+	private QueryVector[] prepareQueries(List<List<String>> queriesTerms) {
+		QueryVector[] queries = new QueryVector[queriesTerms.size()];
+		for (int query = 0; query < queries.length; query++) {
+			queries[query] = prepareQuery(queriesTerms.get(query));
+		}
+		return queries;
 	}
 
 	/**
@@ -1,45 +1,91 @@
 
 package org.tartarus.snowball;
-import java.lang.reflect.InvocationTargetException;
 
 public class SnowballProgram {
     protected SnowballProgram()
     {
-	current = new StringBuffer();
+	current = new char[INITIAL_CAPACITY];
 	setCurrent("");
     }
 
+    private static final int INITIAL_CAPACITY = 16;
+
     /**
      * Set the current string.
      */
     public void setCurrent(String value)
     {
-	current.replace(0, current.length(), value);
+	current_length = 0;
+	ensure_capacity(value.length());
+	value.getChars(0, value.length(), current, 0);
+	current_length = value.length();
+	reset_cursors();
+    }
+
+    /**
+     * Set the current string to the chars of buffer between offset and
+     * offset + length. The chars are copied, so the buffer may be reused by
+     * the caller.
+     */
+    public void setCurrent(char[] buffer, int offset, int length)
+    {
+	current_length = 0;
+	ensure_capacity(length);
+	System.arraycopy(buffer, offset, current, 0, length);
+	current_length = length;
+	reset_cursors();
+    }
+
+    /**
+     * Get the current string.
+     */
+    public String getCurrent()
+    {
+	return new String(current, 0, current_length);
+    }
+
+    /**
+     * Get the buffer holding the current string. Only the first
+     * getCurrentLength() chars are meaningful, and the buffer is reused by
+     * the next call to setCurrent, so it must not be kept by the caller.
+     */
+    public char[] getCurrentBuffer()
+    {
+	return current;
+    }
+
+    /**
+     * Get the length of the current string.
+     */
+    public int getCurrentLength()
+    {
+	return current_length;
+    }
+
+    private void reset_cursors()
+    {
 	cursor = 0;
-	limit = current.length();
+	limit = current_length;
 	limit_backward = 0;
 	bra = cursor;
 	ket = limit;
     }
 
-    /**
-     * Get the current string.
+    /* Grow the buffer, keeping the current string, so that it can hold
+     * at least capacity chars.
      */
-    public String getCurrent()
+    private void ensure_capacity(int capacity)
     {
-        String result = current.toString();
-        // Make a new StringBuffer.  If we reuse the old one, and a user of
-        // the library keeps a reference to the buffer returned (for example,
-        // by converting it to a String in a way which doesn't force a copy),
-        // the buffer size will not decrease, and we will risk wasting a large
-        // amount of memory.
-        // Thanks to Wolfram Esser for spotting this problem.
-        current = new StringBuffer();
-        return result;
+	if (capacity <= current.length) return;
+	char[] buffer = new char[Math.max(capacity, current.length * 2)];
+	System.arraycopy(current, 0, buffer, 0, current_length);
+	current = buffer;
     }
 
-    // current string
-    protected StringBuffer current;
+    // current string, held in the first current_length chars of a
+    // reusable buffer
+    protected char[] current;
+    protected int current_length;
 
     protected int cursor;
     protected int limit;
@@ -50,6 +96,7 @@ public class SnowballProgram {
     protected void copy_from(SnowballProgram other)
     {
 	current          = other.current;
+	current_length   = other.current_length;
 	cursor           = other.cursor;
 	limit            = other.limit;
 	limit_backward   = other.limit_backward;
@@ -60,7 +107,7 @@ public class SnowballProgram {
     protected boolean in_grouping(char [] s, int min, int max)
     {
 	if (cursor >= limit) return false;
-	char ch = current.charAt(cursor);
+	char ch = current[cursor];
 	if (ch > max || ch < min) return false;
 	ch -= min;
 	if ((s[ch >> 3] & (0X1 << (ch & 0X7))) == 0) return false;
@@ -71,7 +118,7 @@ public class SnowballProgram {
     protected boolean in_grouping_b(char [] s, int min, int max)
     {
 	if (cursor <= limit_backward) return false;
-	char ch = current.charAt(cursor - 1);
+	char ch = current[cursor - 1];
 	if (ch > max || ch < min) return false;
 	ch -= min;
 	if ((s[ch >> 3] & (0X1 << (ch & 0X7))) == 0) return false;
@@ -82,7 +129,7 @@ public class SnowballProgram {
     protected boolean out_grouping(char [] s, int min, int max)
     {
 	if (cursor >= limit) return false;
-	char ch = current.charAt(cursor);
+	char ch = current[cursor];
 	if (ch > max || ch < min) {
 	    cursor++;
 	    return true;
@@ -98,7 +145,7 @@ public class SnowballProgram {
     protected boolean out_grouping_b(char [] s, int min, int max)
     {
 	if (cursor <= limit_backward) return false;
-	char ch = current.charAt(cursor - 1);
+	char ch = current[cursor - 1];
 	if (ch > max || ch < min) {
 	    cursor--;
 	    return true;
@@ -114,7 +161,7 @@ public class SnowballProgram {
     protected boolean in_range(int min, int max)
     {
 	if (cursor >= limit) return false;
-	char ch = current.charAt(cursor);
+	char ch = current[cursor];
 	if (ch > max || ch < min) return false;
 	cursor++;
 	return true;
@@ -123,7 +170,7 @@ public class SnowballProgram {
     protected boolean in_range_b(int min, int max)
     {
 	if (cursor <= limit_backward) return false;
-	char ch = current.charAt(cursor - 1);
+	char ch = current[cursor - 1];
 	if (ch > max || ch < min) return false;
 	cursor--;
 	return true;
@@ -132,7 +179,7 @@ public class SnowballProgram {
     protected boolean out_range(int min, int max)
     {
 	if (cursor >= limit) return false;
-	char ch = current.charAt(cursor);
+	char ch = current[cursor];
 	if (!(ch > max || ch < min)) return false;
 	cursor++;
 	return true;
@@ -141,7 +188,7 @@ public class SnowballProgram {
     protected boolean out_range_b(int min, int max)
     {
 	if (cursor <= limit_backward) return false;
-	char ch = current.charAt(cursor - 1);
+	char ch = current[cursor - 1];
 	if(!(ch > max || ch < min)) return false;
 	cursor--;
 	return true;
@@ -152,7 +199,7 @@ public class SnowballProgram {
 	if (limit - cursor < s_size) return false;
 	int i;
 	for (i = 0; i != s_size; i++) {
-	    if (current.charAt(cursor + i) != s.charAt(i)) return false;
+	    if (current[cursor + i] != s.charAt(i)) return false;
 	}
 	cursor += s_size;
 	return true;
@@ -163,7 +210,7 @@ public class SnowballProgram {
 	if (cursor - limit_backward < s_size) return false;
 	int i;
 	for (i = 0; i != s_size; i++) {
-	    if (current.charAt(cursor - s_size + i) != s.charAt(i)) return false;
+	    if (current[cursor - s_size + i] != s.charAt(i)) return false;
 	}
 	cursor -= s_size;
 	return true;
@@ -171,11 +218,26 @@ public class SnowballProgram {
 
     protected boolean eq_v(CharSequence s)
     {
-	return eq_s(s.length(), s.toString());
+	int s_size = s.length();
+	if (limit - cursor < s_size) return false;
+	int i;
+	for (i = 0; i != s_size; i++) {
+	    if (current[cursor + i] != s.charAt(i)) return false;
+	}
+	cursor += s_size;
+	return true;
     }
 
     protected boolean eq_v_b(CharSequence s)
-    {   return eq_s_b(s.length(), s.toString());
+    {
+	int s_size = s.length();
+	if (cursor - limit_backward < s_size) return false;
+	int i;
+	for (i = 0; i != s_size; i++) {
+	    if (current[cursor - s_size + i] != s.charAt(i)) return false;
+	}
+	cursor -= s_size;
+	return true;
     }
 
     protected int find_among(Among v[], int v_size)
@@ -202,7 +264,7 @@ public class SnowballProgram {
 		    diff = -1;
 		    break;
 		}
-		diff = current.charAt(c + common) - w.s[i2];
+		diff = current[c + common] - w.s[i2];
 		if (diff != 0) break;
 		common++;
 	    }
@@ -229,19 +291,8 @@ public class SnowballProgram {
 	    Among w = v[i];
 	    if (common_i >= w.s_size) {
 		cursor = c + w.s_size;
-		if (w.method == null) return w.result;
-		boolean res;
-		try {
-		    Object resobj = w.method.invoke(w.methodobject,
-						    new Object[0]);
-		    res = resobj.toString().equals("true");
-		} catch (InvocationTargetException e) {
-		    res = false;
-		    // FIXME - debug message
-		} catch (IllegalAccessException e) {
-		    res = false;
-		    // FIXME - debug message
-		}
+		if (w.routine == null) return w.result;
+		boolean res = w.routine.call(this);
 		cursor = c + w.s_size;
 		if (res) return w.result;
 	    }
@@ -275,7 +326,7 @@ public class SnowballProgram {
 		    diff = -1;
 		    break;
 		}
-		diff = current.charAt(c - 1 - common) - w.s[i2];
+		diff = current[c - 1 - common] - w.s[i2];
 		if (diff != 0) break;
 		common++;
 	    }
@@ -297,20 +348,9 @@ public class SnowballProgram {
 	    Among w = v[i];
 	    if (common_i >= w.s_size) {
 		cursor = c - w.s_size;
-		if (w.method == null) return w.result;
-
-		boolean res;
-		try {
-		    Object resobj = w.method.invoke(w.methodobject,
-						    new Object[0]);
-		    res = resobj.toString().equals("true");
-		} catch (InvocationTargetException e) {
-		    res = false;
-		    // FIXME - debug message
-		} catch (IllegalAccessException e) {
-		    res = false;
-		    // FIXME - debug message
-		}
+		if (w.routine == null) return w.result;
+
+		boolean res = w.routine.call(this);
 		cursor = c - w.s_size;
 		if (res) return w.result;
 	    }
@@ -324,8 +364,15 @@ public class SnowballProgram {
      */
     protected int replace_s(int c_bra, int c_ket, String s)
     {
-	int adjustment = s.length() - (c_ket - c_bra);
-	current.replace(c_bra, c_ket, s);
+	int s_size = s.length();
+	int adjustment = s_size - (c_ket - c_bra);
+	if (adjustment != 0) {
+	    ensure_capacity(current_length + adjustment);
+	    System.arraycopy(current, c_ket, current, c_bra + s_size,
+			     current_length - c_ket);
+	    current_length += adjustment;
+	}
+	s.getChars(0, s_size, current, c_bra);
 	limit += adjustment;
 	if (cursor >= c_ket) cursor += adjustment;
 	else if (cursor > c_bra) cursor = c_bra;
@@ -337,7 +384,7 @@ public class SnowballProgram {
 	if (bra < 0 ||
 	    bra > ket ||
 	    ket > limit ||
-	    limit > current.length())   // this line could be removed
+	    limit > current_length)   // this line could be removed
 	{
 	    System.err.println("faulty slice operation");
 	// FIXME: report error somehow.
@@ -381,8 +428,8 @@ public class SnowballProgram {
     protected StringBuffer slice_to(StringBuffer s)
     {
 	slice_check();
-	int len = ket - bra;
-	s.replace(0, s.length(), current.substring(bra, ket));
+	s.setLength(0);
+	s.append(current, bra, ket - bra);
 	return s;
     }
 
@@ -390,20 +437,22 @@ public class SnowballProgram {
     protected StringBuilder slice_to(StringBuilder s)
     {
 	slice_check();
-	int len = ket - bra;
-	s.replace(0, s.length(), current.substring(bra, ket));
+	s.setLength(0);
+	s.append(current, bra, ket - bra);
 	return s;
     }
 
     protected StringBuffer assign_to(StringBuffer s)
     {
-	s.replace(0, s.length(), current.substring(0, limit));
+	s.setLength(0);
+	s.append(current, 0, limit);
 	return s;
     }
 
     protected StringBuilder assign_to(StringBuilder s)
     {
-	s.replace(0, s.length(), current.substring(0, limit));
+	s.setLength(0);
+	s.append(current, 0, limit);
 	return s;
     }
 
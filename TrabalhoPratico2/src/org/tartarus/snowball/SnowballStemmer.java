@@ -1,7 +1,26 @@
 
 package org.tartarus.snowball;
-import java.lang.reflect.InvocationTargetException;
 
 public abstract class SnowballStemmer extends SnowballProgram {
     public abstract boolean stem();
+
+    /**
+     * Stem the word held in buffer between offset and offset + length,
+     * without allocating, and return the length of the stem.
+     *
+     * The stem is copied back to buffer starting at offset when it fits.
+     * Some stemmers can make a word longer (german turns sharp s into
+     * "ss"), so a caller whose buffer has no room to spare should compare
+     * the returned length with buffer.length - offset; the full stem is
+     * always available from getCurrentBuffer() until the next call.
+     */
+    public int stem(char[] buffer, int offset, int length)
+    {
+	setCurrent(buffer, offset, length);
+	stem();
+	if (current_length <= buffer.length - offset) {
+	    System.arraycopy(current, 0, buffer, offset, current_length);
+	}
+	return current_length;
+    }
 };
@@ -0,0 +1,160 @@
+package br.edu.pucminas.riw;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Verificao de referncia do {@link Tokenizer}: compara os seus termos com
+ * os da antiga cadeia de replaceAll, reproduzida aqui sem alteraes, para
+ * cada caractere do BMP em alguns contextos e para cada linha dos arquivos
+ * informados. Termina com cdigo de sada 1 na primeira divergncia, de modo
+ * que qualquer mudana na sada do tokenizador  detectada.
+ *
+ * Uso, a partir do diretrio do trabalho, com as classes j compiladas:
+ *
+ * <pre>
+ * java -cp classes br.edu.pucminas.riw.TokenizerGoldenCheck [arquivo...] [-e=codificao]
+ * </pre>
+ *
+ * Sem arquivos, so verificados docs.txt e queries.txt, em UTF-8.
+ */
+public class TokenizerGoldenCheck {
+	private static final String PARAM_ENCODING = "-e=";
+	private static final String[] CONTEXTS = { "%s", "ab%scd", "ab %s cd",
+			"a %s b", "%s%s a" };
+
+	private Tokenizer tokenizer = new Tokenizer();
+	private long contentsTotal;
+
+	/**
+	 * Divide o contedo em termos com a antiga cadeia de replaceAll
+	 *
+	 * @param content
+	 *            o contedo
+	 * @return os termos
+	 */
+	static List<String> tokenizeWithRegex(String content) {
+		// Remoo de nmeros sozinhos
+		String preProcessedContent = content.replaceAll("\\d+", " ");
+
+		// Substituio de caracteres acentuados
+		preProcessedContent = Normalizer.normalize(preProcessedContent,
+				Normalizer.Form.NFD).replaceAll(
+				"\\p{InCombiningDiacriticalMarks}+", "");
+
+		// Remoo de caracteres especiais
+		preProcessedContent = preProcessedContent
+				.replaceAll(
+						"[\\Q.,;:?=/\\!*&%$#(){}[]<>\"'-_+@|~\\E]",
+						" ");
+
+		// Remoo de caracteres no-reconhecidos
+		preProcessedContent = preProcessedContent.replaceAll("\\W", " ");
+
+		// Remoo de palavras menores que 2 caracteres
+		preProcessedContent = preProcessedContent.replaceAll("\\s\\w?\\s",
+				" ");
+
+		// Substituio de caracteres maisculos por minsculos
+		preProcessedContent = preProcessedContent.toLowerCase();
+
+		// Substituio de mltiplos espaos por apenas um espao
+		preProcessedContent = preProcessedContent.replaceAll("\\s+", " ");
+
+		return Arrays.asList(preProcessedContent.split(" "));
+	}
+
+	/**
+	 * Compara os termos do tokenizador com os da cadeia de referncia
+	 *
+	 * @param content
+	 *            o contedo
+	 * @param origin
+	 *            descrio da origem do contedo, para a mensagem de erro
+	 * @return true se os termos so iguais
+	 */
+	private boolean check(String content, String origin) {
+		contentsTotal++;
+		List<String> expectedList = tokenizeWithRegex(content);
+		List<String> tokensList = new ArrayList<String>();
+		tokenizer.tokenize(content, tokensList);
+		if (tokensList.equals(expectedList)) {
+			return true;
+		}
+
+		System.out.println("Divergncia em " + origin);
+		System.out.println("Esperado: " + format(expectedList));
+		System.out.println("Obtido:   " + format(tokensList));
+		return false;
+	}
+
+	/**
+	 * Formata os termos entre aspas, para que termos vazios apaream
+	 */
+	private static String format(List<String> tokensList) {
+		StringBuilder builder = new StringBuilder("[");
+		for (String token : tokensList) {
+			if (builder.length() > 1) {
+				builder.append(", ");
+			}
+			builder.append('"').append(token).append('"');
+		}
+		return builder.append(']').toString();
+	}
+
+	private boolean checkCharacters() {
+		for (int character = 0; character <= Character.MAX_VALUE; character++) {
+			String text = String.valueOf((char) character);
+			for (String context : CONTEXTS) {
+				if (check(String.format(context, text, text), String.format(
+						"caractere U+%04X", character)) == false) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean checkFile(String fileName, Charset charset)
+			throws IOException {
+		MappedCorpus corpus = new MappedCorpus(fileName, charset);
+		for (int documentIndex = 0; documentIndex < corpus.getDocumentsTotal(); documentIndex++) {
+			if (check(corpus.getContent(documentIndex), fileName + ", linha "
+					+ (documentIndex + 1)) == false) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Charset charset = Charset.forName("UTF-8");
+		List<String> fileNamesList = new ArrayList<String>();
+		for (String argument : args) {
+			if (argument.startsWith(PARAM_ENCODING)) {
+				charset = Charset.forName(argument.replace(PARAM_ENCODING, ""));
+			} else {
+				fileNamesList.add(argument);
+			}
+		}
+		if (fileNamesList.isEmpty()) {
+			fileNamesList.add("docs.txt");
+			fileNamesList.add("queries.txt");
+		}
+
+		TokenizerGoldenCheck goldenCheck = new TokenizerGoldenCheck();
+		boolean same = goldenCheck.checkCharacters();
+		for (int fileIndex = 0; same && fileIndex < fileNamesList.size(); fileIndex++) {
+			same = goldenCheck.checkFile(fileNamesList.get(fileIndex), charset);
+		}
+		if (same == false) {
+			System.exit(1);
+		}
+		System.out.println("Tokenizador igual  referncia em "
+				+ goldenCheck.contentsTotal + " contedos");
+	}
+}